@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Insert and query throughput of the movies table, opening the database for every
+ * operation without write-ahead logging (how the provider used to work) versus a single
+ * long-lived connection with write-ahead logging.
+ * <p>
+ * The results are logged with the {@link #TAG} tag.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/13
+ * @since 1.3.0 2017/05/13
+ */
+@RunWith(AndroidJUnit4.class)
+public class MoviesDatabaseBenchmark {
+    private static final String TAG = "MoviesDbBenchmark";
+    private static final String DATABASE_NAME = "benchmark_movies";
+    private static final int ROWS = 500;
+    private static final int QUERIES = 500;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mContext.deleteDatabase(DATABASE_NAME);
+    }
+
+    @Test
+    public void reopenPerOperation() throws Exception {
+        SQLiteHelper helper = new SQLiteHelper(mContext, DATABASE_NAME);
+        helper.setWriteAheadLoggingEnabled(false);
+
+        long start = System.nanoTime();
+        for (int i = 1; i <= ROWS; i++) {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            try {
+                db.insert(DatabaseContract.MovieEntry.TABLE_NAME, null, MovieFixtures.movie(i));
+            } finally {
+                db.close();
+            }
+        }
+        long insertNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int rows = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            SQLiteDatabase db = helper.getReadableDatabase();
+            try {
+                rows = queryAll(db);
+            } finally {
+                db.close();
+            }
+        }
+        long queryNanos = System.nanoTime() - start;
+
+        report("reopen per operation", insertNanos, queryNanos);
+        assertEquals(ROWS, rows);
+    }
+
+    @Test
+    public void persistentConnectionWithWal() throws Exception {
+        SQLiteHelper helper = new SQLiteHelper(mContext, DATABASE_NAME);
+        SQLiteDatabase db = helper.getWritableDatabase();
+
+        try {
+            long start = System.nanoTime();
+            for (int i = 1; i <= ROWS; i++) {
+                db.insert(DatabaseContract.MovieEntry.TABLE_NAME, null, MovieFixtures.movie(i));
+            }
+            long insertNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int rows = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                rows = queryAll(helper.getReadableDatabase());
+            }
+            long queryNanos = System.nanoTime() - start;
+
+            report("persistent connection, WAL", insertNanos, queryNanos);
+            assertEquals(ROWS, rows);
+        } finally {
+            helper.close();
+        }
+    }
+
+    private static int queryAll(SQLiteDatabase db) {
+        Cursor cursor = db.query(DatabaseContract.MovieEntry.TABLE_NAME,
+                DatabaseContract.MovieEntry.ALL_COLUMNS, null, null, null, null, null);
+        try {
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                rows++;
+            }
+            return rows;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static void report(String name, long insertNanos, long queryNanos) {
+        Log.i(TAG, String.format(Locale.US, "%s: %.0f inserts/s, %.0f queries/s",
+                name, ROWS / (insertNanos / 1e9), QUERIES / (queryNanos / 1e9)));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local.migration;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.example.android.popularmovies.data.local.DatabaseContract;
+import com.example.android.popularmovies.data.local.MovieFixtures;
+import com.example.android.popularmovies.data.local.SQLiteHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Upgrades a populated database from every past version to the current one, checking the
+ * stored data survives and the schema is the same a fresh install gets.
+ * <p>
+ * The version 1 database is built with the original schema, the later versions are reached
+ * running the steps up to them. The upgrade times are only logged with the {@link #TAG} tag,
+ * they depend on the device.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/28
+ * @since 1.3.0 2017/05/24
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationsTest {
+    private static final String TAG = "MigrationsTest";
+    private static final String DATABASE_NAME = "migration_movies";
+    private static final String FRESH_DATABASE_NAME = "migration_movies_fresh";
+    private static final int ROWS = 2000;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mContext.deleteDatabase(DATABASE_NAME);
+        mContext.deleteDatabase(FRESH_DATABASE_NAME);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mContext.deleteDatabase(DATABASE_NAME);
+        mContext.deleteDatabase(FRESH_DATABASE_NAME);
+    }
+
+    @Test
+    public void stepsChainEveryVersion() throws Exception {
+        int version = 1;
+        for (Migration migration : Migrations.all()) {
+            assertEquals(version, migration.getStartVersion());
+            version = migration.getEndVersion();
+        }
+        assertEquals(DatabaseContract.DATABASE_VERSION, version);
+    }
+
+    @Test
+    public void upgradesFromEveryVersion() throws Exception {
+        for (int version = 1; version < DatabaseContract.DATABASE_VERSION; version++) {
+            mContext.deleteDatabase(DATABASE_NAME);
+            createDatabase(version);
+
+            SQLiteHelper helper = new SQLiteHelper(mContext, DATABASE_NAME);
+            try {
+                long start = System.nanoTime();
+                SQLiteDatabase db = helper.getWritableDatabase();
+                long millis = (System.nanoTime() - start) / 1000000;
+
+                Log.i(TAG, String.format(Locale.US, "version %d to %d, %d movies: %d ms",
+                        version, DatabaseContract.DATABASE_VERSION, ROWS, millis));
+
+                assertEquals(DatabaseContract.DATABASE_VERSION, db.getVersion());
+                assertData(db);
+                assertEquals(freshSchema(), schema(db));
+            } finally {
+                helper.close();
+            }
+        }
+    }
+
+    /**
+     * Creates a version 1 database with {@link #ROWS} movies and moves it to a version.
+     */
+    private void createDatabase(int version) {
+        SQLiteDatabase db = mContext.openOrCreateDatabase(DATABASE_NAME, Context.MODE_PRIVATE, null);
+        try {
+            // The movies table didn't change since version 1
+            db.execSQL(DatabaseContract.MovieEntry.SQL_CREATE_TABLE);
+            db.setVersion(1);
+
+            db.beginTransaction();
+            try {
+                for (int i = 1; i <= ROWS; i++) {
+                    db.insert(DatabaseContract.MovieEntry.TABLE_NAME, null, MovieFixtures.movie(i));
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            Migrations.migrate(db, 1, version);
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * @return the schema a fresh install gets
+     */
+    private List<String> freshSchema() {
+        SQLiteHelper helper = new SQLiteHelper(mContext, FRESH_DATABASE_NAME);
+        try {
+            return schema(helper.getReadableDatabase());
+        } finally {
+            helper.close();
+        }
+    }
+
+    private static void assertData(SQLiteDatabase db) {
+        assertEquals(ROWS, DatabaseUtils.queryNumEntries(db, DatabaseContract.MovieEntry.TABLE_NAME));
+
+        // Version 1 only stored favourites
+        assertEquals(ROWS, DatabaseUtils.queryNumEntries(db, DatabaseContract.FavouriteEntry.TABLE_NAME));
+
+        Cursor cursor = db.query(DatabaseContract.MovieEntry.TABLE_NAME, DatabaseContract.MovieEntry.ALL_COLUMNS,
+                DatabaseContract.MovieEntry._ID + " = ?", new String[]{"42"}, null, null, null);
+        try {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("Movie 42", cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_TITLE)));
+            assertEquals("Overview of the movie 42",
+                    cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_OVERVIEW)));
+        } finally {
+            cursor.close();
+        }
+
+        // The movies stored before the full-text index are indexed too
+        assertEquals(1, DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM " +
+                DatabaseContract.MovieSearchEntry.TABLE_NAME + " WHERE " +
+                DatabaseContract.MovieSearchEntry.TABLE_NAME + " MATCH ?", new String[]{"title:1234"}));
+    }
+
+    /**
+     * @return the definition of every table, index and trigger, by name
+     */
+    private static List<String> schema(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT type, name, sql FROM sqlite_master " +
+                "WHERE name NOT LIKE 'sqlite_%' AND name != 'android_metadata' ORDER BY name", null);
+        try {
+            List<String> schema = new ArrayList<>();
+            while (cursor.moveToNext()) {
+                schema.add(cursor.getString(0) + " " + cursor.getString(1) + ": " + cursor.getString(2));
+            }
+            return schema;
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -27,6 +27,10 @@ import com.example.android.popularmovies.injection.component.DaggerApplicationCo
 import com.example.android.popularmovies.injection.module.ApplicationModule;
 import com.squareup.leakcanary.LeakCanary;
 
+import io.reactivex.Completable;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
 import timber.log.Timber;
 
 /**
@@ -66,6 +70,23 @@ public class PopularMoviesApp extends Application {
         SharedPreferences.Editor editor = PreferenceManager.getDefaultSharedPreferences(this).edit();
         editor.putString(SharedPrefKeys.API_KEY, getString(R.string.movie_db_api_v3_key));
         editor.apply();
+
+        // Load the favourite ids off the main thread, the screens check them while binding
+        Completable.fromAction(new Action() {
+            @Override
+            public void run() throws Exception {
+                getComponent().favouritesIndex().load();
+            }
+        }).subscribeOn(Schedulers.io())
+                .doOnError(new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable e) throws Exception {
+                        // The lookups fall back to the database until a later write loads it
+                        Timber.e(e, "Could not load the favourite ids");
+                    }
+                })
+                .onErrorComplete()
+                .subscribe();
     }
 
     /**
@@ -16,28 +16,47 @@
 
 package com.example.android.popularmovies.data;
 
+import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.net.Uri;
 import android.support.annotation.Nullable;
 
 import com.example.android.popularmovies.data.local.DatabaseContract;
-import com.example.android.popularmovies.data.local.SharedPrefKeys;
+import com.example.android.popularmovies.data.local.FavouritesIndex;
+import com.example.android.popularmovies.data.local.FavouritesOrder;
+import com.example.android.popularmovies.data.local.FavouritesWriteQueue;
+import com.example.android.popularmovies.data.local.LiveQuery;
+import com.example.android.popularmovies.data.local.MovieChanges;
+import com.example.android.popularmovies.data.local.MovieDetailCacheHelper;
+import com.example.android.popularmovies.data.local.MovieCursorMapper;
+import com.example.android.popularmovies.data.local.MovieListCacheHelper;
 import com.example.android.popularmovies.data.local.SharedPreferencesHelper;
 import com.example.android.popularmovies.data.model.Movie;
 import com.example.android.popularmovies.data.model.MovieCollection;
 import com.example.android.popularmovies.data.model.ReviewCollection;
 import com.example.android.popularmovies.data.model.TrailersCollection;
+import com.example.android.popularmovies.data.remote.ConditionalCache;
+import com.example.android.popularmovies.data.remote.RateLimiter;
+import com.example.android.popularmovies.data.remote.RequestCoalescer;
+import com.example.android.popularmovies.data.remote.Resilience;
+import com.example.android.popularmovies.data.remote.ResiliencePolicy;
 import com.example.android.popularmovies.injection.context.ApplicationContext;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableSource;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.HttpUrl;
+import retrofit2.Response;
 
 /**
  * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
@@ -47,11 +66,120 @@ import io.reactivex.ObservableSource;
  */
 @Singleton
 public class DataManager {
+    /**
+     * Consecutive failures that open the API host circuit
+     */
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+
+    /**
+     * How long the API host circuit stays open
+     */
+    private static final long CIRCUIT_COOL_DOWN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * Sustained API request rate, below the TMDb limit of 40 requests every 10 seconds
+     */
+    private static final double API_PERMITS_PER_SECOND = 3.5;
+
+    /**
+     * API requests that can go out at once
+     */
+    private static final int API_BURST = 10;
+
+    /**
+     * Parsed API responses kept in memory
+     */
+    private static final int CONDITIONAL_CACHE_ENTRIES = 64;
+
+    /**
+     * How long a stored popular movies page is shown without refreshing it
+     */
+    private static final long POPULAR_MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(12);
+
+    /**
+     * How long a stored top rated movies page is shown without refreshing it
+     */
+    private static final long TOP_RATED_MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * How long the stored reviews of a movie are shown without refreshing them
+     */
+    private static final long REVIEWS_MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * How long the stored videos of a movie are shown without refreshing them, they rarely
+     * change once the movie is out
+     */
+    private static final long VIDEOS_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    /**
+     * How long the stored details of a movie are shown without refreshing them
+     */
+    private static final long DETAIL_MAX_AGE_MILLIS = TimeUnit.HOURS.toMillis(24);
+
+    /**
+     * The favourite movies read per page
+     */
+    public static final int FAVOURITES_PAGE_SIZE = 20;
+
+    /**
+     * The stored movies a search returns, the best matches are the first ones
+     */
+    private static final int SEARCH_LIMIT = 50;
+
+    /**
+     * How long the favourites writes must settle before the live queries run again
+     */
+    private static final long LIVE_QUERY_DEBOUNCE_MILLIS = 100;
+
+    /**
+     * Retry policy of the movie lists, the grid is useless without them
+     */
+    private static final ResiliencePolicy LIST_POLICY = ResiliencePolicy.builder()
+            .setMaxRetries(3)
+            .setInitialBackoffMillis(500)
+            .setMaxBackoffMillis(8000)
+            .build();
+
+    /**
+     * Retry policy of the movie details, the screen already shows the basic info
+     */
+    private static final ResiliencePolicy DETAIL_POLICY = ResiliencePolicy.builder()
+            .setMaxRetries(2)
+            .setInitialBackoffMillis(500)
+            .setMaxBackoffMillis(4000)
+            .build();
+
     /**
      * A helper to manage shared preferences
      */
     private final SharedPreferencesHelper mSharedPreferencesHelper;
 
+    /**
+     * The offline copy of the movie lists
+     */
+    private final MovieListCacheHelper mMovieListCacheHelper;
+
+    /**
+     * The stored reviews and videos
+     */
+    private final MovieDetailCacheHelper mMovieDetailCacheHelper;
+
+    /**
+     * The favourite movie ids
+     */
+    private final FavouritesIndex mFavouritesIndex;
+
+    /**
+     * The queued favourite writes
+     */
+    private final FavouritesWriteQueue mFavouritesWriteQueue;
+
+    /**
+     * The stored movies and favourites changes
+     */
+    private final MovieChanges mMovieChanges;
+
     /**
      * The Retrofit REST service
      */
@@ -62,19 +190,57 @@ public class DataManager {
      */
     private final Context mContext;
 
+    /**
+     * Shares the in-flight API requests between concurrent subscribers
+     */
+    private final RequestCoalescer mRequestCoalescer = new RequestCoalescer();
+
+    /**
+     * Retries and circuit breakers of the API requests
+     */
+    private final Resilience mResilience = new Resilience(CIRCUIT_FAILURE_THRESHOLD,
+            CIRCUIT_COOL_DOWN_MILLIS);
+
+    /**
+     * Keeps the API requests under the TMDb rate limit, every retry takes a token too
+     */
+    private final RateLimiter mRateLimiter = new RateLimiter(API_PERMITS_PER_SECOND, API_BURST);
+
+    /**
+     * Parsed API responses and their validators, revalidated once expired
+     */
+    private final ConditionalCache mConditionalCache = new ConditionalCache(CONDITIONAL_CACHE_ENTRIES);
+
+    /**
+     * The API host, the key of its circuit breaker
+     */
+    private final String mApiHost = HttpUrl.parse(MovieDbApiService.BASE_API_HOST).host();
+
     /**
      * Injects the service and the helpers using dagger2 dependency injection
      *
      * @param sharedPreferencesHelper The {@link SharedPreferencesHelper} to inject
+     * @param movieListCacheHelper    The {@link MovieListCacheHelper} to inject
+     * @param movieDetailCacheHelper  The {@link MovieDetailCacheHelper} to inject
+     * @param favouritesIndex         The {@link FavouritesIndex} to inject
+     * @param favouritesWriteQueue    The {@link FavouritesWriteQueue} to inject
+     * @param movieChanges            The {@link MovieChanges} to inject
      * @param movieDbApiHelper        The {@link MovieDbApiService} to inject
      * @see Inject
      * @since 1.2.0 2017/03/18
      */
     @Inject
     public DataManager(@ApplicationContext Context context, SharedPreferencesHelper sharedPreferencesHelper,
-                       MovieDbApiService movieDbApiHelper) {
+                       MovieListCacheHelper movieListCacheHelper, MovieDetailCacheHelper movieDetailCacheHelper,
+                       FavouritesIndex favouritesIndex, FavouritesWriteQueue favouritesWriteQueue,
+                       MovieChanges movieChanges, MovieDbApiService movieDbApiHelper) {
         this.mContext = context;
         this.mSharedPreferencesHelper = sharedPreferencesHelper;
+        this.mMovieListCacheHelper = movieListCacheHelper;
+        this.mMovieDetailCacheHelper = movieDetailCacheHelper;
+        this.mFavouritesIndex = favouritesIndex;
+        this.mFavouritesWriteQueue = favouritesWriteQueue;
+        this.mMovieChanges = movieChanges;
         this.mMovieDbApiService = movieDbApiHelper;
     }
 
@@ -88,6 +254,56 @@ public class DataManager {
         return mSharedPreferencesHelper;
     }
 
+    /**
+     * Gets how many API requests were saved by joining an identical in-flight request.
+     *
+     * @return the saved requests count
+     * @since 1.3.0 2017/05/05
+     */
+    public long getSavedRequestCount() {
+        return mRequestCoalescer.getSavedCount();
+    }
+
+    /**
+     * Gets how many expired responses were revalidated with a 304, reusing the parsed object.
+     *
+     * @return the not modified responses count
+     * @since 1.3.0 2017/05/11
+     */
+    public long getNotModifiedCount() {
+        return mConditionalCache.getNotModifiedCount();
+    }
+
+    /**
+     * Gets the number of API requests waiting for the rate limiter.
+     *
+     * @return the queue depth
+     * @since 1.3.0 2017/05/10
+     */
+    public int getRequestQueueDepth() {
+        return mRateLimiter.getQueueDepth();
+    }
+
+    /**
+     * Gets how long the API requests waited for the rate limiter.
+     *
+     * @return the wait counts by bucket, see {@link RateLimiter#WAIT_BUCKETS_MILLIS}
+     * @since 1.3.0 2017/05/10
+     */
+    public long[] getRequestWaitHistogram() {
+        return mRateLimiter.getWaitHistogram();
+    }
+
+    /**
+     * Checks if the API requests are failing fast because the API host is down.
+     *
+     * @return {@literal true} if the API circuit is open, otherwise {@literal false}
+     * @since 1.3.0 2017/05/09
+     */
+    public boolean isApiUnavailable() {
+        return mResilience.getCircuitBreaker(mApiHost).isOpen();
+    }
+
     /**
      * Get a list of the current popular movies on TMDb. This list updates daily.
      *
@@ -98,8 +314,39 @@ public class DataManager {
      */
     public Observable<MovieCollection> getPopularMovies(@Nullable Integer page,
                                                         @Nullable String language) {
-        String apiKey = (String) mSharedPreferencesHelper.getEntry(SharedPrefKeys.API_KEY, String.class);
-        return mMovieDbApiService.getPopularMovies(apiKey, page, language);
+        return getPopularMovies(page, language, RateLimiter.Priority.FOREGROUND);
+    }
+
+    /**
+     * Get a list of the current popular movies on TMDb. This list updates daily.
+     *
+     * @param page     The page to fetch
+     * @param language The language locale
+     * @param priority The request priority, prefetches should use
+     *                 {@link RateLimiter.Priority#BACKGROUND}
+     * @return A Observable object, which wraps the REST API result
+     * @since 1.3.0 2017/05/10
+     */
+    public Observable<MovieCollection> getPopularMovies(@Nullable final Integer page,
+                                                        @Nullable final String language,
+                                                        final RateLimiter.Priority priority) {
+        String key = RequestCoalescer.key("popular", page, language);
+
+        // A foreground request doesn't join a prefetch queued behind the other requests, the
+        // validators are still shared
+        String flightKey = RequestCoalescer.key(key, priority);
+
+        Observable<MovieCollection> remote = mRequestCoalescer.coalesce(flightKey, mConditionalCache.get(key,
+                new ConditionalCache.ConditionalRequest<MovieCollection>() {
+                    @Override
+                    public Observable<Response<MovieCollection>> execute(String eTag, String lastModified) {
+                        return network(mMovieDbApiService.getPopularMovies(page, language, eTag, lastModified),
+                                priority, LIST_POLICY);
+                    }
+                })
+                .doOnNext(persistPage(DatabaseContract.ListPageEntry.LIST_POPULAR, language)));
+
+        return offlineFirst(DatabaseContract.ListPageEntry.LIST_POPULAR, page, language, POPULAR_MAX_AGE_MILLIS, remote);
     }
 
     /**
@@ -112,127 +359,551 @@ public class DataManager {
      */
     public Observable<MovieCollection> getTopRatedMovies(@Nullable Integer page,
                                                          @Nullable String language) {
-        String apiKey = (String) mSharedPreferencesHelper.getEntry(SharedPrefKeys.API_KEY, String.class);
-        return mMovieDbApiService.getTopRatedMovies(apiKey, page, language);
+        return getTopRatedMovies(page, language, RateLimiter.Priority.FOREGROUND);
+    }
+
+    /**
+     * Get the top rated movies on TMDb.
+     *
+     * @param page     The page to fetch
+     * @param language The language locale
+     * @param priority The request priority, prefetches should use
+     *                 {@link RateLimiter.Priority#BACKGROUND}
+     * @return A Observable object, which wraps the REST API result
+     * @since 1.3.0 2017/05/10
+     */
+    public Observable<MovieCollection> getTopRatedMovies(@Nullable final Integer page,
+                                                         @Nullable final String language,
+                                                         final RateLimiter.Priority priority) {
+        String key = RequestCoalescer.key("top_rated", page, language);
+
+        // A foreground request doesn't join a prefetch queued behind the other requests, the
+        // validators are still shared
+        String flightKey = RequestCoalescer.key(key, priority);
+
+        Observable<MovieCollection> remote = mRequestCoalescer.coalesce(flightKey, mConditionalCache.get(key,
+                new ConditionalCache.ConditionalRequest<MovieCollection>() {
+                    @Override
+                    public Observable<Response<MovieCollection>> execute(String eTag, String lastModified) {
+                        return network(mMovieDbApiService.getTopRatedMovies(page, language, eTag, lastModified),
+                                priority, LIST_POLICY);
+                    }
+                })
+                .doOnNext(persistPage(DatabaseContract.ListPageEntry.LIST_TOP_RATED, language)));
+
+        return offlineFirst(DatabaseContract.ListPageEntry.LIST_TOP_RATED, page, language, TOP_RATED_MAX_AGE_MILLIS, remote);
     }
 
     /**
-     * Gets the movie reviews from the REST API.
+     * Gets the movie reviews, the stored ones while they are fresh, otherwise from the REST API.
      *
      * @param movieId The movie id
      * @return A Observable object, which wraps the REST API result
      * @since 1.2.0 2017/03/18
      */
-    public Observable<ReviewCollection> getReviews(Long movieId) {
-        String apiKey = (String) mSharedPreferencesHelper.getEntry(SharedPrefKeys.API_KEY, String.class);
-        return mMovieDbApiService.getMovieReviews(movieId, apiKey);
+    public Observable<ReviewCollection> getReviews(final Long movieId) {
+        String key = RequestCoalescer.key("reviews", movieId);
+
+        final Observable<ReviewCollection> remote = mRequestCoalescer.coalesce(key, mConditionalCache.get(key,
+                new ConditionalCache.ConditionalRequest<ReviewCollection>() {
+                    @Override
+                    public Observable<Response<ReviewCollection>> execute(String eTag, String lastModified) {
+                        return network(mMovieDbApiService.getMovieReviews(movieId, eTag, lastModified),
+                                RateLimiter.Priority.FOREGROUND, DETAIL_POLICY);
+                    }
+                })
+                .doOnNext(new Consumer<ReviewCollection>() {
+                    @Override
+                    public void accept(ReviewCollection reviews) throws Exception {
+                        mMovieDetailCacheHelper.putReviews(movieId, reviews);
+                    }
+                }));
+
+        return Observable.defer(new Callable<ObservableSource<ReviewCollection>>() {
+            @Override
+            public ObservableSource<ReviewCollection> call() throws Exception {
+                return storedFirst(mMovieDetailCacheHelper.getReviews(movieId), REVIEWS_MAX_AGE_MILLIS, remote);
+            }
+        });
     }
 
     /**
-     * Gets the movie trailers from the REST API.
+     * Gets the movie trailers, the stored ones while they are fresh, otherwise from the REST API.
      *
      * @param movieId The movie id
      * @return A Observable object, which wraps the REST API result
      * @since 1.2.0 2017/03/18
      */
-    public Observable<TrailersCollection> getTrailers(Long movieId) {
-        String apiKey = (String) mSharedPreferencesHelper.getEntry(SharedPrefKeys.API_KEY, String.class);
-        return mMovieDbApiService.getMovieTrailers(movieId, apiKey);
+    public Observable<TrailersCollection> getTrailers(final Long movieId) {
+        String key = RequestCoalescer.key("videos", movieId);
+
+        final Observable<TrailersCollection> remote = mRequestCoalescer.coalesce(key, mConditionalCache.get(key,
+                new ConditionalCache.ConditionalRequest<TrailersCollection>() {
+                    @Override
+                    public Observable<Response<TrailersCollection>> execute(String eTag, String lastModified) {
+                        return network(mMovieDbApiService.getMovieTrailers(movieId, eTag, lastModified),
+                                RateLimiter.Priority.FOREGROUND, DETAIL_POLICY);
+                    }
+                })
+                .doOnNext(new Consumer<TrailersCollection>() {
+                    @Override
+                    public void accept(TrailersCollection videos) throws Exception {
+                        mMovieDetailCacheHelper.putVideos(movieId, videos);
+                    }
+                }));
+
+        return Observable.defer(new Callable<ObservableSource<TrailersCollection>>() {
+            @Override
+            public ObservableSource<TrailersCollection> call() throws Exception {
+                return storedFirst(mMovieDetailCacheHelper.getVideos(movieId), VIDEOS_MAX_AGE_MILLIS, remote);
+            }
+        });
+    }
+
+    /**
+     * Gets the full movie details, including the trailers and reviews, using a single
+     * request.
+     * <p>
+     * Fresh stored details are served alone, without the network. When stale details, or the
+     * movie trailers or reviews, are stored, the movie is emitted first with them and then
+     * again with the full details from the REST API, a failed refresh keeps the stored ones.
+     *
+     * @param movieId The movie id
+     * @return A Observable object, which wraps the REST API result
+     * @since 1.3.0 2017/05/08
+     */
+    public Observable<Movie> getMovieDetail(final Long movieId) {
+        String key = RequestCoalescer.key("detail", movieId);
+
+        final Observable<Movie> remote = mRequestCoalescer.coalesce(key, mConditionalCache.get(key,
+                new ConditionalCache.ConditionalRequest<Movie>() {
+                    @Override
+                    public Observable<Response<Movie>> execute(String eTag, String lastModified) {
+                        return network(mMovieDbApiService.getMovieDetail(movieId, eTag, lastModified),
+                                RateLimiter.Priority.FOREGROUND, DETAIL_POLICY);
+                    }
+                })
+                .doOnNext(new Consumer<Movie>() {
+                    @Override
+                    public void accept(Movie detail) throws Exception {
+                        mMovieDetailCacheHelper.putMovieDetail(detail);
+
+                        if (detail.videos() != null) {
+                            mMovieDetailCacheHelper.putVideos(movieId, detail.videos());
+                        }
+
+                        if (detail.reviews() != null) {
+                            mMovieDetailCacheHelper.putReviews(movieId, detail.reviews());
+                        }
+                    }
+                }));
+
+        return Observable.defer(new Callable<ObservableSource<Movie>>() {
+            @Override
+            public ObservableSource<Movie> call() throws Exception {
+                MovieDetailCacheHelper.Stored<Movie> detail = mMovieDetailCacheHelper.getMovieDetail(movieId);
+
+                if (detail != null && detail.isFresh(DETAIL_MAX_AGE_MILLIS)) {
+                    return Observable.just(detail.getValue());
+                }
+
+                Movie stored = detail != null ? detail.getValue() : getStoredMovieDetail(movieId);
+
+                if (stored == null) {
+                    return remote;
+                }
+
+                return Observable.just(stored)
+                        .concatWith(remote.onErrorResumeNext(Observable.<Movie>empty()));
+            }
+        });
     }
 
     /**
-     * Gets the favourite movies.
+     * Gets a stored movie with its stored trailers and reviews, used when its details are not
+     * stored.
      *
-     * @param page The current page to fetch
+     * @param movieId The movie id
+     * @return the stored movie, or {@literal null} if neither the movie, its trailers nor its
+     * reviews are stored
+     * @since 1.3.0 2017/05/16
+     */
+    @Nullable
+    private Movie getStoredMovieDetail(long movieId) {
+        Movie movie = mMovieDetailCacheHelper.getMovie(movieId);
+
+        if (movie == null) {
+            return null;
+        }
+
+        MovieDetailCacheHelper.Stored<TrailersCollection> videos = mMovieDetailCacheHelper.getVideos(movieId);
+        MovieDetailCacheHelper.Stored<ReviewCollection> reviews = mMovieDetailCacheHelper.getReviews(movieId);
+
+        if (videos == null && reviews == null) {
+            return null;
+        }
+
+        return movie.toBuilder()
+                .setVideos(videos != null ? videos.getValue() : null)
+                .setReviews(reviews != null ? reviews.getValue() : null)
+                .build();
+    }
+
+    /**
+     * Serves the stored rows while they are fresh, otherwise goes to the network. When the
+     * network fails the stale rows are served, better than nothing.
+     *
+     * @param stored       the stored rows, {@literal null} if none
+     * @param maxAgeMillis how long the stored rows are served without refreshing them
+     * @param remote       the network request, stores the rows it gets
+     * @param <T>          the stored collection type
+     * @return the stored or fetched rows
+     * @since 1.3.0 2017/05/16
+     */
+    private static <T> Observable<T> storedFirst(@Nullable MovieDetailCacheHelper.Stored<T> stored,
+                                                 long maxAgeMillis, Observable<T> remote) {
+        if (stored == null) {
+            return remote;
+        }
+
+        if (stored.isFresh(maxAgeMillis)) {
+            return Observable.just(stored.getValue());
+        }
+
+        return remote.onErrorResumeNext(Observable.just(stored.getValue()));
+    }
+
+    /**
+     * Serves a list page from the disk first. A fresh stored page is served alone, a stale one
+     * is emitted right away and followed by the refreshed page, when the refresh fails the
+     * stored page is kept. Without a stored page the request goes to the network.
+     *
+     * @param list         the list name, see {@link DatabaseContract.ListPageEntry#LIST_POPULAR}
+     * @param page         the page to fetch, {@literal null} for the first one
+     * @param language     the list language
+     * @param maxAgeMillis how long a stored page is served without refreshing it
+     * @param remote       the network request, stores the page it gets
+     * @return the stored page followed by the refreshed one
+     * @since 1.3.0 2017/05/15
+     */
+    private Observable<MovieCollection> offlineFirst(final String list, @Nullable final Integer page,
+                                                     @Nullable final String language, final long maxAgeMillis,
+                                                     final Observable<MovieCollection> remote) {
+        return Observable.defer(new Callable<ObservableSource<MovieCollection>>() {
+            @Override
+            public ObservableSource<MovieCollection> call() throws Exception {
+                MovieListCacheHelper.CachedPage cached =
+                        mMovieListCacheHelper.getPage(list, page != null ? page : 1, language);
+
+                if (cached == null || cached.getCollection().results().isEmpty()) {
+                    return remote;
+                }
+
+                if (cached.isFresh(maxAgeMillis)) {
+                    return Observable.just(cached.getCollection());
+                }
+
+                return Observable.just(cached.getCollection())
+                        .concatWith(remote.onErrorResumeNext(Observable.<MovieCollection>empty()));
+            }
+        });
+    }
+
+    /**
+     * Creates the action that stores the list pages fetched from the network.
+     *
+     * @param list     the list name, see {@link DatabaseContract.ListPageEntry#LIST_POPULAR}
+     * @param language the list language
+     * @return the store action
+     * @since 1.3.0 2017/05/15
+     */
+    private Consumer<MovieCollection> persistPage(final String list, @Nullable final String language) {
+        return new Consumer<MovieCollection>() {
+            @Override
+            public void accept(MovieCollection collection) throws Exception {
+                mMovieListCacheHelper.putPage(list, language, collection);
+            }
+        };
+    }
+
+    /**
+     * Sends an API request through the rate limiter and the resilience operator.
+     *
+     * @param request  the Retrofit request
+     * @param priority the request priority
+     * @param policy   the endpoint retry policy
+     * @param <T>      the response type
+     * @return the request with the limits and retries applied
+     * @since 1.3.0 2017/05/11
+     */
+    private <T> Observable<Response<T>> network(Observable<Response<T>> request,
+                                                RateLimiter.Priority priority,
+                                                ResiliencePolicy policy) {
+        return request
+                .compose(ConditionalCache.<T>throwOnError())
+                .compose(mRateLimiter.<Response<T>>limit(priority))
+                .compose(mResilience.<Response<T>>forEndpoint(mApiHost, policy));
+    }
+
+    /**
+     * Gets a page of the favourite movies. The pages are read with keyset pagination, each page
+     * starts after the last movie of the previous one, so every page costs the same no matter
+     * how many favourites there are.
+     *
+     * @param order        The sort order
+     * @param page         The page number, only reported back on the collection
+     * @param afterMovieId The last movie of the previous page, {@literal null} for the first page
      * @return A Observable object, which wraps the SQLite result
-     * @since 1.2.0 2017/03/18
+     * @since 1.3.0 2017/05/19
      */
-    public Observable<MovieCollection> getFavourites(final int page) {
+    public Observable<MovieCollection> getFavourites(final FavouritesOrder order, final int page,
+                                                     @Nullable final Long afterMovieId) {
         return Observable.defer(new Callable<ObservableSource<? extends MovieCollection>>() {
             @Override
             public ObservableSource<? extends MovieCollection> call() throws Exception {
-                // Do some long running operation
-                Cursor cursor = null;
-                MovieCollection collection;
-                try {
-                    cursor = mContext.getContentResolver().query(DatabaseContract.MovieEntry.CONTENT_URI,
-                            DatabaseContract.MovieEntry.ALL_COLUMNS,
-                            null,
-                            null,
-                            null);
+                return Observable.just(queryFavourites(order, page, afterMovieId, FAVOURITES_PAGE_SIZE));
+            }
+        });
+    }
 
-                    List<Movie> results = new ArrayList<>(0);
+    /**
+     * Follows the first favourite movies. Emits them on subscription and again every time
+     * the favourites or any stored movie change, once the writes settle, until disposed. A
+     * batch of writes runs a single query, and a result equal to the last one is not emitted.
+     *
+     * @param order The sort order
+     * @param limit How many favourites to follow, usually the ones on screen
+     * @return A Observable object, which wraps the SQLite results, emitted on the io scheduler
+     * @see LiveQuery
+     * @since 1.3.0 2017/05/26
+     */
+    public Observable<MovieCollection> observeFavourites(final FavouritesOrder order, final int limit) {
+        // The favourites rows and the movie rows they show
+        Uri[] uris = {DatabaseContract.FavouriteEntry.CONTENT_URI, DatabaseContract.MovieEntry.CONTENT_URI};
 
-                    while (cursor != null && cursor.moveToNext()) {
-                        results.add(Movie.fromCursor(cursor));
+        return LiveQuery.create(mContext.getContentResolver(), uris,
+                new Callable<MovieCollection>() {
+                    @Override
+                    public MovieCollection call() throws Exception {
+                        return queryFavourites(order, 1, null, limit);
                     }
+                }, LIVE_QUERY_DEBOUNCE_MILLIS, Schedulers.io());
+    }
 
-                    collection = MovieCollection.builder()
-                            .setPage(page)
-                            .setResults(results)
-                            .setTotal_pages(1)
-                            .setTotal_results(results.size())
-                            .build();
+    /**
+     * Reads a page of the favourite movies, see {@link #getFavourites(FavouritesOrder, int, Long)}.
+     *
+     * @param order        The sort order
+     * @param page         The page number, only reported back on the collection
+     * @param afterMovieId The last movie of the previous page, {@literal null} for the first page
+     * @param limit        The max movies to read
+     * @return the favourites page
+     * @since 1.3.0 2017/05/26
+     */
+    private MovieCollection queryFavourites(FavouritesOrder order, int page, @Nullable Long afterMovieId,
+                                            int limit) {
+        // Read the queued favourite changes too
+        mFavouritesWriteQueue.flush();
+
+        Uri uri = DatabaseContract.FavouriteEntry.CONTENT_URI.buildUpon()
+                .appendQueryParameter(DatabaseContract.QUERY_PARAMETER_LIMIT, String.valueOf(limit))
+                .build();
+
+        Cursor cursor = null;
+        try {
+            // The grid only shows the posters, the detail screen loads the full movie
+            cursor = mContext.getContentResolver().query(uri,
+                    DatabaseContract.MovieEntry.GRID_COLUMNS,
+                    afterMovieId != null ? order.getSeekSelection() : null,
+                    afterMovieId != null ? order.getSeekSelectionArgs(afterMovieId) : null,
+                    order.getSortOrder());
+
+            List<Movie> results = cursor != null
+                    ? new MovieCursorMapper(cursor).readAll()
+                    : new ArrayList<Movie>(0);
+
+            // The index knows the total without counting the rows
+            int total = mFavouritesIndex.size();
+
+            return MovieCollection.builder()
+                    .setPage(page)
+                    .setResults(results)
+                    .setTotal_pages(Math.max(1, (total + FAVOURITES_PAGE_SIZE - 1) / FAVOURITES_PAGE_SIZE))
+                    .setTotal_results(total)
+                    .build();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Searches the stored movies, the favourites and every cached list, on the full-text index.
+     * Works offline and is fast enough to run while typing, every word of the query is matched
+     * as a prefix. The movies with the words on the title go first, then the most popular.
+     *
+     * @param query The text to search, as the user typed it
+     * @return A Observable object, which wraps the SQLite result, a single page with the best matches
+     * @since 1.3.0 2017/05/23
+     */
+    public Observable<MovieCollection> searchLocal(final String query) {
+        return Observable.defer(new Callable<ObservableSource<? extends MovieCollection>>() {
+            @Override
+            public ObservableSource<? extends MovieCollection> call() throws Exception {
+                Uri uri = DatabaseContract.MovieSearchEntry.buildSearchUri(query).buildUpon()
+                        .appendQueryParameter(DatabaseContract.QUERY_PARAMETER_LIMIT, String.valueOf(SEARCH_LIMIT))
+                        .build();
+
+                Cursor cursor = mContext.getContentResolver().query(uri, DatabaseContract.MovieEntry.GRID_COLUMNS,
+                        null, null, null);
 
-                    return Observable.just(collection);
+                List<Movie> results;
+                try {
+                    results = cursor != null
+                            ? new MovieCursorMapper(cursor).readAll()
+                            : new ArrayList<Movie>(0);
                 } finally {
                     if (cursor != null) {
                         cursor.close();
                     }
                 }
+
+                return Observable.just(MovieCollection.builder()
+                        .setPage(1)
+                        .setResults(results)
+                        .setTotal_pages(1)
+                        .setTotal_results(results.size())
+                        .build());
+            }
+        });
+    }
+
+    /**
+     * Gets a stored movie with all its columns, the grids only read some of them.
+     *
+     * @param movieId The movie id
+     * @return A Observable object, which wraps the SQLite result, empty if the movie is not stored
+     * @since 1.3.0 2017/05/20
+     */
+    public Observable<Movie> getStoredMovie(final long movieId) {
+        return Observable.defer(new Callable<ObservableSource<Movie>>() {
+            @Override
+            public ObservableSource<Movie> call() throws Exception {
+                Movie movie = mMovieDetailCacheHelper.getMovie(movieId);
+                return movie != null ? Observable.just(movie) : Observable.<Movie>empty();
             }
         });
     }
 
     /**
-     * Adds a movie to the favourite collection.
+     * Adds a movie to the favourite collection. {@link #isFavorite(Movie)} reflects it right
+     * away, the write is queued on the {@link FavouritesWriteQueue}.
      *
      * @param movie The movie to add
      * @since 1.2.0 2017/03/18
      */
     public void addMovieToFavourites(Movie movie) {
-        mContext.getContentResolver().insert(DatabaseContract.MovieEntry.CONTENT_URI,
-                Movie.toContentValues(movie));
+        setFavourite(movie, true);
+    }
+
+    /**
+     * Adds several movies to the favourite collection in a single transaction.
+     *
+     * @param movies The movies to add, the ones already stored are replaced
+     * @return the number of stored movies
+     * @since 1.3.0 2017/05/14
+     */
+    public int addMoviesToFavourites(List<Movie> movies) {
+        // The queued changes go first, a queued removal must not undo this insert
+        mFavouritesWriteQueue.flush();
+
+        ContentValues[] values = new ContentValues[movies.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Movie.toContentValues(movies.get(i));
+        }
+
+        int inserted = mContext.getContentResolver().bulkInsert(DatabaseContract.FavouriteEntry.CONTENT_URI, values);
+
+        for (Movie movie : movies) {
+            mFavouritesIndex.add(movie.id());
+        }
+
+        return inserted;
     }
 
     /**
-     * Removes a movie to the favourite collection.
+     * Removes a movie to the favourite collection. {@link #isFavorite(Movie)} reflects it right
+     * away, the write is queued on the {@link FavouritesWriteQueue}.
      *
      * @param movie The movie to delete
      * @since 1.2.0 2017/03/18
      */
     public void removeFavourite(Movie movie) {
-        mContext.getContentResolver().delete(
-                DatabaseContract.MovieEntry.CONTENT_URI,
-                DatabaseContract.MovieEntry._ID + " = " + movie.id(),
-                null
-        );
+        setFavourite(movie, false);
+    }
+
+    /**
+     * Updates the favourites index and queues the write.
+     *
+     * @param movie     The movie
+     * @param favourite {@literal true} to add it to the favourites, {@literal false} to remove it
+     * @since 1.3.0 2017/05/18
+     */
+    private void setFavourite(Movie movie, boolean favourite) {
+        boolean wasFavourite = mFavouritesIndex.contains(movie.id());
+
+        if (favourite) {
+            mFavouritesIndex.add(movie.id());
+        } else {
+            mFavouritesIndex.remove(movie.id());
+        }
+
+        mFavouritesWriteQueue.enqueue(movie, favourite, wasFavourite);
     }
 
     /**
-     * Checks if a movie is stored on the favourites collection.
+     * Checks if a movie is stored on the favourites collection, a lookup on the in memory
+     * {@link FavouritesIndex}, safe to call from the main thread once the index is loaded.
      *
      * @param movie The movie to check
      * @return {@literal true} if the movie is a favourite, otherwise {@literal false}
      * @since 1.2.0 2017/03/18
      */
     public boolean isFavorite(Movie movie) {
-        if(movie != null) {
-            boolean favorite = false;
-            Cursor cursor = mContext.getContentResolver().query(
-                    DatabaseContract.MovieEntry.CONTENT_URI,
-                    null,
-                    DatabaseContract.MovieEntry._ID + " = " + movie.id(),
-                    null,
-                    null
-            );
-            if (cursor != null) {
-                favorite = cursor.getCount() != 0;
-                cursor.close();
-            }
-            return favorite;
-        } else {
-            return false;
-        }
+        return movie != null && mFavouritesIndex.contains(movie.id());
+    }
+
+    /**
+     * Checks if a movie is a favourite, see {@link #isFavorite(Movie)}.
+     *
+     * @param movieId The movie id
+     * @return {@literal true} if the movie is a favourite
+     * @since 1.3.0 2017/05/25
+     */
+    public boolean isFavorite(long movieId) {
+        return mFavouritesIndex.contains(movieId);
+    }
+
+    /**
+     * Gets the favourite changes, a movie added or removed.
+     *
+     * @return the changes stream, emitted on the thread making them, it never completes
+     * @since 1.3.0 2017/05/17
+     */
+    public Observable<FavouritesIndex.Change> getFavouriteChanges() {
+        return mFavouritesIndex.changes();
+    }
+
+    /**
+     * Gets the changes stored on the content provider, with the changed movie when it's a
+     * single one. Unlike {@link #getFavouriteChanges()} the favourite changes are emitted once
+     * written, the readers see them, and the changes of the stored movies are emitted too.
+     *
+     * @return the changes stream, emitted on the thread delivering them, it never completes
+     * @since 1.3.0 2017/05/25
+     */
+    public Observable<MovieChanges.Change> getStoredChanges() {
+        return mMovieChanges.changes();
     }
 }
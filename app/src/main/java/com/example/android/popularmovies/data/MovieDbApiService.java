@@ -16,18 +16,25 @@
 
 package com.example.android.popularmovies.data;
 
+import com.example.android.popularmovies.BuildConfig;
+import com.example.android.popularmovies.data.model.Movie;
 import com.example.android.popularmovies.data.model.MovieCollection;
 import com.example.android.popularmovies.data.model.ReviewCollection;
 import com.example.android.popularmovies.data.model.TrailersCollection;
+import com.example.android.popularmovies.data.remote.ApiKeyInterceptor;
+import com.example.android.popularmovies.data.remote.ConditionalCache;
 import com.example.android.popularmovies.util.AppGsonTypeAdapterFactory;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 import io.reactivex.Observable;
+import okhttp3.OkHttpClient;
+import retrofit2.Response;
 import retrofit2.Retrofit;
 import retrofit2.adapter.rxjava2.RxJava2CallAdapterFactory;
 import retrofit2.converter.gson.GsonConverterFactory;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Path;
 import retrofit2.http.Query;
 
@@ -37,60 +44,128 @@ import retrofit2.http.Query;
  * @since 1.2.0 2017/03/18
  */
 public interface MovieDbApiService {
-    String BASE_API_HOST =
-            "https://api.themoviedb.org/3/movie/";
+    /**
+     * The API base URL, TMDb unless the build points it at a local stand-in server
+     */
+    String BASE_API_HOST = BuildConfig.API_BASE_URL;
+
+    /**
+     * The TMDb image CDN base URL, served over HTTPS so HTTP/2 can be negotiated
+     */
+    String BASE_IMAGE_URL = "https://image.tmdb.org/t/p/";
+
+    /**
+     * The HTTP disk cache directory, relative to the application cache dir
+     */
+    String HTTP_CACHE_DIR = "http";
+
+    /**
+     * The HTTP disk cache max size in bytes
+     */
+    long HTTP_CACHE_SIZE = 10 * 1024 * 1024;
+
+    /**
+     * The image disk cache directory, relative to the application cache dir
+     */
+    String IMAGE_CACHE_DIR = "images";
+
+    /**
+     * The image disk cache max size in bytes
+     */
+    long IMAGE_CACHE_SIZE = 50 * 1024 * 1024;
+
+    /**
+     * Conditional request header, sends the ETag of the cached response
+     */
+    String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    /**
+     * Conditional request header, sends the Last-Modified date of the cached response
+     */
+    String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
 
     /**
      * Get a list of the current popular movies on TMDb. This list updates daily.
+     * <p>
+     * The api key is appended by the {@link ApiKeyInterceptor}. Like the other endpoints it
+     * can be sent as a conditional request, see {@link ConditionalCache}.
      *
-     * @param apiKey   The api key
-     * @param page     The page to fetch
-     * @param language The language ICU locale
-     * @return A Observable object, which wraps the REST API result
+     * @param page         The page to fetch
+     * @param language     The language ICU locale
+     * @param eTag         The cached response ETag, {@literal null} for a plain request
+     * @param lastModified The cached response Last-Modified date, {@literal null} for a plain request
+     * @return A Observable object, which wraps the REST API response, 304 when the cached
+     * response is still valid
      * @since 1.2.0 2017/03/18
      */
     @GET("popular")
-    Observable<MovieCollection> getPopularMovies(@Query("api_key") String apiKey,
-                                                 @Query("page") Integer page,
-                                                 @Query("language") String language);
+    Observable<Response<MovieCollection>> getPopularMovies(@Query("page") Integer page,
+                                                           @Query("language") String language,
+                                                           @Header(HEADER_IF_NONE_MATCH) String eTag,
+                                                           @Header(HEADER_IF_MODIFIED_SINCE) String lastModified);
 
     /**
      * Get the top rated movies on TMDb.
      *
-     * @param apiKey   The api key
-     * @param page     The page to fetch
-     * @param language The language ICU locale
-     * @return A Observable object, which wraps the REST API result
+     * @param page         The page to fetch
+     * @param language     The language ICU locale
+     * @param eTag         The cached response ETag, {@literal null} for a plain request
+     * @param lastModified The cached response Last-Modified date, {@literal null} for a plain request
+     * @return A Observable object, which wraps the REST API response, 304 when the cached
+     * response is still valid
      * @since 1.2.0 2017/03/18
      */
     @GET("top_rated")
-    Observable<MovieCollection> getTopRatedMovies(@Query("api_key") String apiKey,
-                                                  @Query("page") Integer page,
-                                                  @Query("language") String language);
+    Observable<Response<MovieCollection>> getTopRatedMovies(@Query("page") Integer page,
+                                                            @Query("language") String language,
+                                                            @Header(HEADER_IF_NONE_MATCH) String eTag,
+                                                            @Header(HEADER_IF_MODIFIED_SINCE) String lastModified);
 
     /**
      * Gets the movie reviews.
      *
-     * @param apiKey  The api key
-     * @param movieId The movie id
-     * @return A Observable object, which wraps the REST API result
+     * @param movieId      The movie id
+     * @param eTag         The cached response ETag, {@literal null} for a plain request
+     * @param lastModified The cached response Last-Modified date, {@literal null} for a plain request
+     * @return A Observable object, which wraps the REST API response, 304 when the cached
+     * response is still valid
      * @since 1.2.0 2017/03/18
      */
     @GET("{movie_id}/reviews")
-    Observable<ReviewCollection> getMovieReviews(@Path("movie_id") Long movieId,
-                                                 @Query("api_key") String apiKey);
+    Observable<Response<ReviewCollection>> getMovieReviews(@Path("movie_id") Long movieId,
+                                                           @Header(HEADER_IF_NONE_MATCH) String eTag,
+                                                           @Header(HEADER_IF_MODIFIED_SINCE) String lastModified);
 
     /**
      * Gets the movie trailers.
      *
-     * @param apiKey  The api key
-     * @param movieId The movie id
-     * @return A Observable object, which wraps the REST API result
+     * @param movieId      The movie id
+     * @param eTag         The cached response ETag, {@literal null} for a plain request
+     * @param lastModified The cached response Last-Modified date, {@literal null} for a plain request
+     * @return A Observable object, which wraps the REST API response, 304 when the cached
+     * response is still valid
      * @since 1.2.0 2017/03/18
      */
     @GET("{movie_id}/videos")
-    Observable<TrailersCollection> getMovieTrailers(@Path("movie_id") Long movieId,
-                                                    @Query("api_key") String apiKey);
+    Observable<Response<TrailersCollection>> getMovieTrailers(@Path("movie_id") Long movieId,
+                                                              @Header(HEADER_IF_NONE_MATCH) String eTag,
+                                                              @Header(HEADER_IF_MODIFIED_SINCE) String lastModified);
+
+    /**
+     * Gets the full movie details, with the trailers and the first page of reviews
+     * appended to the same response.
+     *
+     * @param movieId      The movie id
+     * @param eTag         The cached response ETag, {@literal null} for a plain request
+     * @param lastModified The cached response Last-Modified date, {@literal null} for a plain request
+     * @return A Observable object, which wraps the REST API response, 304 when the cached
+     * response is still valid
+     * @since 1.3.0 2017/05/08
+     */
+    @GET("{movie_id}?append_to_response=videos,reviews")
+    Observable<Response<Movie>> getMovieDetail(@Path("movie_id") Long movieId,
+                                               @Header(HEADER_IF_NONE_MATCH) String eTag,
+                                               @Header(HEADER_IF_MODIFIED_SINCE) String lastModified);
 
     /**
      * Helper class that sets up a new services
@@ -101,16 +176,30 @@ public interface MovieDbApiService {
         /**
          * Factory method
          *
+         * @param client The shared HTTP client
          * @return The service instance
          * @since 1.2.0 2017/03/18
          */
-        public static MovieDbApiService newMovieDbApiService() {
+        public static MovieDbApiService newMovieDbApiService(OkHttpClient client) {
+            return newMovieDbApiService(client, BASE_API_HOST);
+        }
+
+        /**
+         * Factory method
+         *
+         * @param client  The shared HTTP client
+         * @param baseUrl The API base URL, must end with a slash
+         * @return The service instance
+         * @since 1.3.0 2017/05/12
+         */
+        public static MovieDbApiService newMovieDbApiService(OkHttpClient client, String baseUrl) {
             Gson gson = new GsonBuilder()
                     .registerTypeAdapterFactory(AppGsonTypeAdapterFactory.create())
                     .setDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
                     .create();
             Retrofit retrofit = new Retrofit.Builder()
-                    .baseUrl(MovieDbApiService.BASE_API_HOST)
+                    .baseUrl(baseUrl)
+                    .client(client)
                     .addConverterFactory(GsonConverterFactory.create(gson))
                     .addCallAdapterFactory(RxJava2CallAdapterFactory.create())
                     .build();
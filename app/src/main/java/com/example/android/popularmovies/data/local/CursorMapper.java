@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the rows of a cursor into models. The column indexes are resolved once, when the
+ * mapper is created, and every row is read by index.
+ * <p>
+ * The columns not on the cursor read as empty values, so a mapper works with the slim
+ * projections too. A mapper is bound to its cursor, create one per query.
+ *
+ * @param <T> the model type
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/21
+ * @since 1.3.0 2017/05/21
+ */
+public abstract class CursorMapper<T> {
+    /**
+     * The index of the columns not on the cursor
+     */
+    protected static final int MISSING = -1;
+
+    /**
+     * The mapped cursor
+     */
+    protected final Cursor mCursor;
+
+    /**
+     * Constructor
+     *
+     * @param cursor the cursor to map
+     * @since 1.3.0 2017/05/21
+     */
+    protected CursorMapper(Cursor cursor) {
+        this.mCursor = cursor;
+    }
+
+    /**
+     * Reads the current row.
+     *
+     * @return the model
+     * @since 1.3.0 2017/05/21
+     */
+    public abstract T read();
+
+    /**
+     * Reads every row after the current position.
+     *
+     * @return the models
+     * @since 1.3.0 2017/05/21
+     */
+    public List<T> readAll() {
+        List<T> results = new ArrayList<>(Math.max(0, mCursor.getCount() - mCursor.getPosition() - 1));
+
+        while (mCursor.moveToNext()) {
+            results.add(read());
+        }
+
+        return results;
+    }
+
+    /**
+     * @param column the column name
+     * @return the column index, {@link #MISSING} if the column is not on the cursor
+     * @since 1.3.0 2017/05/21
+     */
+    protected int index(String column) {
+        return mCursor.getColumnIndex(column);
+    }
+
+    /**
+     * @param index the column index
+     * @return the column value, empty if the column is missing or null
+     * @since 1.3.0 2017/05/21
+     */
+    protected String getString(int index) {
+        if (index == MISSING) {
+            return "";
+        }
+
+        String value = mCursor.getString(index);
+        return value != null ? value : "";
+    }
+
+    /**
+     * @param index the column index
+     * @return the column value, 0 if the column is missing
+     * @since 1.3.0 2017/05/21
+     */
+    protected int getInt(int index) {
+        return index != MISSING ? mCursor.getInt(index) : 0;
+    }
+
+    /**
+     * @param index the column index
+     * @return the column value, 0 if the column is missing
+     * @since 1.3.0 2017/05/21
+     */
+    protected long getLong(int index) {
+        return index != MISSING ? mCursor.getLong(index) : 0L;
+    }
+
+    /**
+     * @param index the column index
+     * @return the column value, 0 if the column is missing
+     * @since 1.3.0 2017/05/21
+     */
+    protected float getFloat(int index) {
+        return index != MISSING ? mCursor.getFloat(index) : 0f;
+    }
+}
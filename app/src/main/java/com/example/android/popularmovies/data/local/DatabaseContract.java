@@ -17,6 +17,7 @@
 package com.example.android.popularmovies.data.local;
 
 import android.content.ContentResolver;
+import android.content.ContentUris;
 import android.net.Uri;
 import android.provider.BaseColumns;
 
@@ -43,6 +44,97 @@ public class DatabaseContract {
      */
     public static final String PATH_MOVIES = "movies";
 
+    /**
+     * The Path to the favourite movies
+     */
+    public static final String PATH_FAVOURITES = "favourites";
+
+    /**
+     * The Path to the cached list pages
+     */
+    public static final String PATH_LIST_PAGES = "list_pages";
+
+    /**
+     * The Path to the movies of the cached list pages
+     */
+    public static final String PATH_LIST_MOVIES = "list_movies";
+
+    /**
+     * The Path to the stored movie reviews
+     */
+    public static final String PATH_REVIEWS = "reviews";
+
+    /**
+     * The Path to the stored movie videos
+     */
+    public static final String PATH_VIDEOS = "videos";
+
+    /**
+     * The Path to the fetches of the stored movie reviews and videos
+     */
+    public static final String PATH_FETCHES = "fetches";
+
+    /**
+     * The Path to the stored movies search
+     */
+    public static final String PATH_SEARCH = "search";
+
+    /**
+     * The Path to the stored movie details
+     */
+    public static final String PATH_MOVIE_DETAILS = "movie_details";
+
+    /**
+     * The Path to the stored genres
+     */
+    public static final String PATH_GENRES = "genres";
+
+    /**
+     * The Path to the stored production companies
+     */
+    public static final String PATH_COMPANIES = "companies";
+
+    /**
+     * The Path to the stored production countries
+     */
+    public static final String PATH_COUNTRIES = "countries";
+
+    /**
+     * The Path to the stored spoken languages
+     */
+    public static final String PATH_LANGUAGES = "languages";
+
+    /**
+     * The Path to the genres of the stored movie details
+     */
+    public static final String PATH_MOVIE_GENRES = "movie_genres";
+
+    /**
+     * The Path to the production companies of the stored movie details
+     */
+    public static final String PATH_MOVIE_COMPANIES = "movie_companies";
+
+    /**
+     * The Path to the production countries of the stored movie details
+     */
+    public static final String PATH_MOVIE_COUNTRIES = "movie_countries";
+
+    /**
+     * The Path to the spoken languages of the stored movie details
+     */
+    public static final String PATH_MOVIE_LANGUAGES = "movie_languages";
+
+    /**
+     * Query parameter limiting the number of rows a query returns
+     */
+    public static final String QUERY_PARAMETER_LIMIT = "limit";
+
+    /**
+     * The key of the value returned by the content provider methods, see
+     * {@link android.content.ContentResolver#call(Uri, String, String, android.os.Bundle)}
+     */
+    public static final String CALL_RESULT = "result";
+
     /**
      * The SQLite database name
      */
@@ -51,10 +143,13 @@ public class DatabaseContract {
     /**
      * The current Database version
      */
-    public static final int DATABASE_VERSION = 1;
+    public static final int DATABASE_VERSION = 7;
 
     /**
      * Defines the movies table structure.
+     * <p>
+     * Since version 2 the table stores every known movie, the favourites and the cached list
+     * pages only reference them.
      *
      * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
      * @version 1.0.2 2017/04/04
@@ -78,6 +173,12 @@ public class DatabaseContract {
         public static final String CONTENT_DIR_TYPE =
                 ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_MOVIES;
 
+        /**
+         * The content type for cursors with a single item
+         */
+        public static final String CONTENT_ITEM_TYPE =
+                ContentResolver.CURSOR_ITEM_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_MOVIES;
+
         /**
          * The movie title
          */
@@ -145,6 +246,27 @@ public class DatabaseContract {
                         COLUMN_VOTE_COUNT + " INTEGER," +
                         COLUMN_BACKDROP_PATH + " TEXT );";
 
+        /**
+         * SQL statement to index the movies by title, see {@link FavouritesOrder#TITLE}
+         */
+        public static final String SQL_CREATE_INDEX_TITLE =
+                "CREATE INDEX " + TABLE_NAME + "_" + COLUMN_TITLE + " ON " + TABLE_NAME +
+                        " (" + COLUMN_TITLE + " COLLATE NOCASE);";
+
+        /**
+         * SQL statement to index the movies by popularity, see {@link FavouritesOrder#POPULARITY}
+         */
+        public static final String SQL_CREATE_INDEX_POPULARITY =
+                "CREATE INDEX " + TABLE_NAME + "_" + COLUMN_POPULARITY + " ON " + TABLE_NAME +
+                        " (" + COLUMN_POPULARITY + ");";
+
+        /**
+         * SQL statement to index the movies by vote average, see {@link FavouritesOrder#VOTE_AVERAGE}
+         */
+        public static final String SQL_CREATE_INDEX_AVERAGE_VOTE =
+                "CREATE INDEX " + TABLE_NAME + "_" + COLUMN_AVERAGE_VOTE + " ON " + TABLE_NAME +
+                        " (" + COLUMN_AVERAGE_VOTE + ");";
+
         /**
          * All columns projection
          */
@@ -161,5 +283,1288 @@ public class DatabaseContract {
                 COLUMN_VOTE_COUNT,
                 COLUMN_BACKDROP_PATH
         };
+
+        /**
+         * The columns the movie grids show, leaves out the long overview so a cursor window
+         * holds many more rows. The detail screen loads the full row.
+         */
+        public static final String[] GRID_COLUMNS = {
+                _ID,
+                COLUMN_POSTER_PATH,
+                COLUMN_TITLE
+        };
+
+        /**
+         * Builds the URI of a single movie.
+         *
+         * @param movieId the movie id
+         * @return the movie URI
+         * @since 1.3.0 2017/05/25
+         */
+        public static Uri buildMovieUri(long movieId) {
+            return ContentUris.withAppendedId(CONTENT_URI, movieId);
+        }
+    }
+
+    /**
+     * Defines the favourites table structure, the favourite movie ids and when they were added.
+     * <p>
+     * The content URI reads the favourites joined with the {@link MovieEntry} table, inserting
+     * a movie through it stores the movie and marks it as favourite.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/15
+     * @since 1.3.0 2017/05/15
+     */
+    public static final class FavouriteEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_FAVOURITES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "favourites";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_FAVOURITES;
+
+        /**
+         * The content type for cursors with a single item
+         */
+        public static final String CONTENT_ITEM_TYPE =
+                ContentResolver.CURSOR_ITEM_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_FAVOURITES;
+
+        /**
+         * Provider method checking if a movie is a favourite, takes the movie id as argument
+         * and returns a boolean {@link DatabaseContract#CALL_RESULT}
+         */
+        public static final String METHOD_EXISTS = "favourites_exists";
+
+        /**
+         * Provider method counting the favourites, returns an int {@link DatabaseContract#CALL_RESULT}
+         */
+        public static final String METHOD_COUNT = "favourites_count";
+
+        /**
+         * The favourite movie id, see {@link MovieEntry#_ID}
+         */
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+
+        /**
+         * When the movie was added to the favourites, in milliseconds
+         */
+        public static final String COLUMN_ADDED_AT = "added_at";
+
+        /**
+         * The favourites joined with their movies
+         */
+        public static final String JOIN_MOVIES = MovieEntry.TABLE_NAME + " INNER JOIN " + TABLE_NAME +
+                " ON " + MovieEntry.TABLE_NAME + "." + MovieEntry._ID + " = " + TABLE_NAME + "." + COLUMN_MOVIE_ID;
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_MOVIE_ID + " INTEGER PRIMARY KEY, " +
+                        COLUMN_ADDED_AT + " INTEGER NOT NULL );";
+
+        /**
+         * SQL statement to index the favourites by date added, see {@link FavouritesOrder#ADDED_AT}
+         */
+        public static final String SQL_CREATE_INDEX_ADDED_AT =
+                "CREATE INDEX " + TABLE_NAME + "_" + COLUMN_ADDED_AT + " ON " + TABLE_NAME +
+                        " (" + COLUMN_ADDED_AT + ");";
+
+        /**
+         * Builds the URI of a single favourite.
+         *
+         * @param movieId the movie id
+         * @return the favourite URI
+         * @since 1.3.0 2017/05/22
+         */
+        public static Uri buildFavouriteUri(long movieId) {
+            return ContentUris.withAppendedId(CONTENT_URI, movieId);
+        }
+    }
+
+    /**
+     * Defines the cached list pages table structure, one row per page of a remote movie list
+     * with its totals and when it was fetched.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/15
+     * @see BaseColumns
+     * @since 1.3.0 2017/05/15
+     */
+    public static final class ListPageEntry implements BaseColumns {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_LIST_PAGES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "list_pages";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_LIST_PAGES;
+
+        /**
+         * The popular movies list
+         */
+        public static final String LIST_POPULAR = "popular";
+
+        /**
+         * The top rated movies list
+         */
+        public static final String LIST_TOP_RATED = "top_rated";
+
+        /**
+         * The list name, {@link #LIST_POPULAR} or {@link #LIST_TOP_RATED}
+         */
+        public static final String COLUMN_LIST = "list";
+
+        /**
+         * The page number
+         */
+        public static final String COLUMN_PAGE = "page";
+
+        /**
+         * The list language, empty for the API default
+         */
+        public static final String COLUMN_LANGUAGE = "language";
+
+        /**
+         * The list total pages
+         */
+        public static final String COLUMN_TOTAL_PAGES = "total_pages";
+
+        /**
+         * The list total results
+         */
+        public static final String COLUMN_TOTAL_RESULTS = "total_results";
+
+        /**
+         * When the page was fetched, in milliseconds
+         */
+        public static final String COLUMN_FETCHED_AT = "fetched_at";
+
+        /**
+         * SQL statement to create the SQLite table, storing a page again replaces it
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        _ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                        COLUMN_LIST + " TEXT NOT NULL, " +
+                        COLUMN_PAGE + " INTEGER NOT NULL, " +
+                        COLUMN_LANGUAGE + " TEXT NOT NULL DEFAULT '', " +
+                        COLUMN_TOTAL_PAGES + " INTEGER, " +
+                        COLUMN_TOTAL_RESULTS + " INTEGER, " +
+                        COLUMN_FETCHED_AT + " INTEGER NOT NULL, " +
+                        "UNIQUE (" + COLUMN_LIST + ", " + COLUMN_PAGE + ", " + COLUMN_LANGUAGE +
+                        ") ON CONFLICT REPLACE );";
+
+        /**
+         * All columns projection
+         */
+        public static final String[] ALL_COLUMNS = {
+                _ID,
+                COLUMN_LIST,
+                COLUMN_PAGE,
+                COLUMN_LANGUAGE,
+                COLUMN_TOTAL_PAGES,
+                COLUMN_TOTAL_RESULTS,
+                COLUMN_FETCHED_AT
+        };
+    }
+
+    /**
+     * Defines the cached list movies table structure, the ordered movie ids of each cached
+     * list page.
+     * <p>
+     * The content URI reads the entries joined with the {@link MovieEntry} table.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/15
+     * @since 1.3.0 2017/05/15
+     */
+    public static final class ListMovieEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_LIST_MOVIES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "list_movies";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_LIST_MOVIES;
+
+        /**
+         * The list name, see {@link ListPageEntry#COLUMN_LIST}
+         */
+        public static final String COLUMN_LIST = ListPageEntry.COLUMN_LIST;
+
+        /**
+         * The page number
+         */
+        public static final String COLUMN_PAGE = ListPageEntry.COLUMN_PAGE;
+
+        /**
+         * The list language, empty for the API default
+         */
+        public static final String COLUMN_LANGUAGE = ListPageEntry.COLUMN_LANGUAGE;
+
+        /**
+         * The movie position on the page
+         */
+        public static final String COLUMN_POSITION = "position";
+
+        /**
+         * The movie id, see {@link MovieEntry#_ID}
+         */
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+
+        /**
+         * The entries joined with their movies
+         */
+        public static final String JOIN_MOVIES = MovieEntry.TABLE_NAME + " INNER JOIN " + TABLE_NAME +
+                " ON " + MovieEntry.TABLE_NAME + "." + MovieEntry._ID + " = " + TABLE_NAME + "." + COLUMN_MOVIE_ID;
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_LIST + " TEXT NOT NULL, " +
+                        COLUMN_PAGE + " INTEGER NOT NULL, " +
+                        COLUMN_LANGUAGE + " TEXT NOT NULL DEFAULT '', " +
+                        COLUMN_POSITION + " INTEGER NOT NULL, " +
+                        COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                        "PRIMARY KEY (" + COLUMN_LIST + ", " + COLUMN_PAGE + ", " + COLUMN_LANGUAGE + ", " +
+                        COLUMN_POSITION + ") ON CONFLICT REPLACE );";
+
+        /**
+         * SQL statement to index the entries by movie, used to find the movies no list
+         * references anymore
+         */
+        public static final String SQL_CREATE_INDEX_MOVIE_ID =
+                "CREATE INDEX " + TABLE_NAME + "_" + COLUMN_MOVIE_ID + " ON " + TABLE_NAME +
+                        " (" + COLUMN_MOVIE_ID + ");";
+    }
+
+    /**
+     * Defines the stored reviews table structure, the reviews of each movie in the API order
+     * and when they were fetched.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/16
+     * @since 1.3.0 2017/05/16
+     */
+    public static final class ReviewEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_REVIEWS).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "reviews";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_REVIEWS;
+
+        /**
+         * The reviewed movie id, see {@link MovieEntry#_ID}
+         */
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+
+        /**
+         * The review position on the API response
+         */
+        public static final String COLUMN_POSITION = "position";
+
+        /**
+         * The review id
+         */
+        public static final String COLUMN_REVIEW_ID = "review_id";
+
+        /**
+         * The review author
+         */
+        public static final String COLUMN_AUTHOR = "author";
+
+        /**
+         * The review content
+         */
+        public static final String COLUMN_CONTENT = "content";
+
+        /**
+         * The review URL
+         */
+        public static final String COLUMN_URL = "url";
+
+        /**
+         * When the review was fetched, in milliseconds
+         */
+        public static final String COLUMN_FETCHED_AT = "fetched_at";
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                        COLUMN_POSITION + " INTEGER NOT NULL, " +
+                        COLUMN_REVIEW_ID + " TEXT NOT NULL, " +
+                        COLUMN_AUTHOR + " TEXT, " +
+                        COLUMN_CONTENT + " TEXT, " +
+                        COLUMN_URL + " TEXT, " +
+                        COLUMN_FETCHED_AT + " INTEGER NOT NULL, " +
+                        "PRIMARY KEY (" + COLUMN_MOVIE_ID + ", " + COLUMN_POSITION + ") ON CONFLICT REPLACE );";
+
+        /**
+         * All columns projection
+         */
+        public static final String[] ALL_COLUMNS = {
+                COLUMN_MOVIE_ID,
+                COLUMN_POSITION,
+                COLUMN_REVIEW_ID,
+                COLUMN_AUTHOR,
+                COLUMN_CONTENT,
+                COLUMN_URL,
+                COLUMN_FETCHED_AT
+        };
+    }
+
+    /**
+     * Defines the stored videos table structure, the trailers and clips of each movie in the
+     * API order and when they were fetched.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/16
+     * @since 1.3.0 2017/05/16
+     */
+    public static final class VideoEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_VIDEOS).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "videos";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_VIDEOS;
+
+        /**
+         * The movie id, see {@link MovieEntry#_ID}
+         */
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+
+        /**
+         * The video position on the API response
+         */
+        public static final String COLUMN_POSITION = "position";
+
+        /**
+         * The video id
+         */
+        public static final String COLUMN_VIDEO_ID = "video_id";
+
+        /**
+         * The video language
+         */
+        public static final String COLUMN_ISO_639_1 = "iso_639_1";
+
+        /**
+         * The video country
+         */
+        public static final String COLUMN_ISO_3166_1 = "iso_3166_1";
+
+        /**
+         * The video key on its site
+         */
+        public static final String COLUMN_KEY = "key";
+
+        /**
+         * The video name
+         */
+        public static final String COLUMN_NAME = "name";
+
+        /**
+         * The site hosting the video
+         */
+        public static final String COLUMN_SITE = "site";
+
+        /**
+         * The video resolution
+         */
+        public static final String COLUMN_SIZE = "size";
+
+        /**
+         * The video type, trailer, teaser, clip...
+         */
+        public static final String COLUMN_TYPE = "type";
+
+        /**
+         * When the video was fetched, in milliseconds
+         */
+        public static final String COLUMN_FETCHED_AT = "fetched_at";
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                        COLUMN_POSITION + " INTEGER NOT NULL, " +
+                        COLUMN_VIDEO_ID + " TEXT NOT NULL, " +
+                        COLUMN_ISO_639_1 + " TEXT, " +
+                        COLUMN_ISO_3166_1 + " TEXT, " +
+                        COLUMN_KEY + " TEXT, " +
+                        COLUMN_NAME + " TEXT, " +
+                        COLUMN_SITE + " TEXT, " +
+                        COLUMN_SIZE + " INTEGER, " +
+                        COLUMN_TYPE + " TEXT, " +
+                        COLUMN_FETCHED_AT + " INTEGER NOT NULL, " +
+                        "PRIMARY KEY (" + COLUMN_MOVIE_ID + ", " + COLUMN_POSITION + ") ON CONFLICT REPLACE );";
+
+        /**
+         * All columns projection
+         */
+        public static final String[] ALL_COLUMNS = {
+                COLUMN_MOVIE_ID,
+                COLUMN_POSITION,
+                COLUMN_VIDEO_ID,
+                COLUMN_ISO_639_1,
+                COLUMN_ISO_3166_1,
+                COLUMN_KEY,
+                COLUMN_NAME,
+                COLUMN_SITE,
+                COLUMN_SIZE,
+                COLUMN_TYPE,
+                COLUMN_FETCHED_AT
+        };
+    }
+
+    /**
+     * Defines the full-text index of the stored movies, an FTS4 table over the title and
+     * overview of the {@link MovieEntry} rows. It holds no copy of the text, the movies table
+     * is its content, and the triggers keep it in sync with every movie the provider writes.
+     * <p>
+     * The content URI searches the stored movies, the text is given on the
+     * {@link #QUERY_PARAMETER_QUERY} parameter and the rows are the matching movies, the title
+     * matches first.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/23
+     * @see SearchQuery
+     * @since 1.3.0 2017/05/23
+     */
+    public static final class MovieSearchEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_SEARCH).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "movies_fts";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_SEARCH;
+
+        /**
+         * Query parameter with the text to search
+         */
+        public static final String QUERY_PARAMETER_QUERY = "q";
+
+        /**
+         * The FTS row id, the same as {@link MovieEntry#_ID}
+         */
+        public static final String COLUMN_DOCID = "docid";
+
+        /**
+         * The indexed movie title, see {@link MovieEntry#COLUMN_TITLE}
+         */
+        public static final String COLUMN_TITLE = MovieEntry.COLUMN_TITLE;
+
+        /**
+         * The indexed movie overview, see {@link MovieEntry#COLUMN_OVERVIEW}
+         */
+        public static final String COLUMN_OVERVIEW = MovieEntry.COLUMN_OVERVIEW;
+
+        /**
+         * The matching movies joined with their rows
+         */
+        public static final String JOIN_MOVIES = TABLE_NAME + " INNER JOIN " + MovieEntry.TABLE_NAME +
+                " ON " + MovieEntry.TABLE_NAME + "." + MovieEntry._ID + " = " + TABLE_NAME + "." + COLUMN_DOCID;
+
+        /**
+         * SQL statement to create the FTS table. The 2 and 3 characters prefixes are indexed
+         * too, the searches while typing are prefix queries.
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE VIRTUAL TABLE " + TABLE_NAME + " USING fts4(" +
+                        COLUMN_TITLE + ", " +
+                        COLUMN_OVERVIEW + ", " +
+                        "content=\"" + MovieEntry.TABLE_NAME + "\", " +
+                        "prefix=\"2,3\");";
+
+        /**
+         * SQL statement to index the movies already stored
+         */
+        public static final String SQL_REBUILD =
+                "INSERT INTO " + TABLE_NAME + " (" + TABLE_NAME + ") VALUES ('rebuild');";
+
+        /**
+         * The movie text changed, the update triggers skip the rows stored again as they were
+         */
+        private static final String TEXT_CHANGED =
+                " WHEN old." + COLUMN_TITLE + " IS NOT new." + COLUMN_TITLE +
+                        " OR old." + COLUMN_OVERVIEW + " IS NOT new." + COLUMN_OVERVIEW;
+
+        private static final String DELETE_OLD =
+                " BEGIN DELETE FROM " + TABLE_NAME + " WHERE " + COLUMN_DOCID + " = old." + MovieEntry._ID + "; END;";
+
+        private static final String INSERT_NEW =
+                " BEGIN INSERT INTO " + TABLE_NAME + " (" + COLUMN_DOCID + ", " + COLUMN_TITLE + ", " +
+                        COLUMN_OVERVIEW + ") VALUES (new." + MovieEntry._ID + ", new." + COLUMN_TITLE +
+                        ", new." + COLUMN_OVERVIEW + "); END;";
+
+        /**
+         * SQL statements to create the triggers keeping the FTS table in sync, the old text
+         * must be removed before the movie row changes
+         */
+        public static final String[] SQL_CREATE_TRIGGERS = {
+                "CREATE TRIGGER " + TABLE_NAME + "_before_update BEFORE UPDATE ON " +
+                        MovieEntry.TABLE_NAME + TEXT_CHANGED + DELETE_OLD,
+                "CREATE TRIGGER " + TABLE_NAME + "_before_delete BEFORE DELETE ON " +
+                        MovieEntry.TABLE_NAME + DELETE_OLD,
+                "CREATE TRIGGER " + TABLE_NAME + "_after_update AFTER UPDATE ON " +
+                        MovieEntry.TABLE_NAME + TEXT_CHANGED + INSERT_NEW,
+                "CREATE TRIGGER " + TABLE_NAME + "_after_insert AFTER INSERT ON " +
+                        MovieEntry.TABLE_NAME + INSERT_NEW
+        };
+
+        /**
+         * Builds the URI searching the stored movies.
+         *
+         * @param query the text to search, as the user typed it
+         * @return the search URI
+         * @since 1.3.0 2017/05/23
+         */
+        public static Uri buildSearchUri(String query) {
+            return CONTENT_URI.buildUpon().appendQueryParameter(QUERY_PARAMETER_QUERY, query).build();
+        }
+    }
+
+    /**
+     * Defines the stored movie details table structure, the detail fields of the opened movies
+     * the lists don't carry and when they were fetched. The genres, production companies,
+     * production countries and spoken languages are stored once on their own tables and
+     * referenced by position from the junction tables, see {@link MovieGenreEntry}.
+     * <p>
+     * The item URI reads the full movie in a single query, see {@link #DETAIL_COLUMNS}.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/27
+     * @see MovieDetailCursorMapper
+     * @since 1.3.0 2017/05/27
+     */
+    public static final class MovieDetailEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_MOVIE_DETAILS).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "movie_details";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_MOVIE_DETAILS;
+
+        /**
+         * The content type for cursors with a single item
+         */
+        public static final String CONTENT_ITEM_TYPE =
+                ContentResolver.CURSOR_ITEM_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_MOVIE_DETAILS;
+
+        /**
+         * The movie id, see {@link MovieEntry#_ID}
+         */
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+
+        /**
+         * Whether the movie is for adults
+         */
+        public static final String COLUMN_ADULT = "adult";
+
+        /**
+         * Whether the movie is a video release
+         */
+        public static final String COLUMN_VIDEO = "video";
+
+        /**
+         * The movie budget
+         */
+        public static final String COLUMN_BUDGET = "budget";
+
+        /**
+         * The movie home page
+         */
+        public static final String COLUMN_HOMEPAGE = "homepage";
+
+        /**
+         * The movie IMDB id
+         */
+        public static final String COLUMN_IMDB_ID = "imdb_id";
+
+        /**
+         * The movie revenue
+         */
+        public static final String COLUMN_REVENUE = "revenue";
+
+        /**
+         * The movie runtime, in minutes
+         */
+        public static final String COLUMN_RUNTIME = "runtime";
+
+        /**
+         * The movie release status
+         */
+        public static final String COLUMN_STATUS = "status";
+
+        /**
+         * The movie tagline
+         */
+        public static final String COLUMN_TAGLINE = "tagline";
+
+        /**
+         * When the details were fetched, in milliseconds
+         */
+        public static final String COLUMN_FETCHED_AT = "fetched_at";
+
+        /**
+         * The concatenated genres of the movie, only on the detail query
+         */
+        public static final String COLUMN_GENRES = "genres";
+
+        /**
+         * The concatenated production companies of the movie, only on the detail query
+         */
+        public static final String COLUMN_PRODUCTION_COMPANIES = "production_companies";
+
+        /**
+         * The concatenated production countries of the movie, only on the detail query
+         */
+        public static final String COLUMN_PRODUCTION_COUNTRIES = "production_countries";
+
+        /**
+         * The concatenated spoken languages of the movie, only on the detail query
+         */
+        public static final String COLUMN_SPOKEN_LANGUAGES = "spoken_languages";
+
+        /**
+         * Separates the position, key and name of a concatenated row, a control character no
+         * name contains
+         */
+        public static final String FIELD_SEPARATOR = "\u001F";
+
+        /**
+         * Separates the concatenated rows, a control character no name contains
+         */
+        public static final String RECORD_SEPARATOR = "\u001E";
+
+        /**
+         * The details joined with their movies
+         */
+        public static final String JOIN_MOVIES = MovieEntry.TABLE_NAME + " INNER JOIN " + TABLE_NAME +
+                " ON " + MovieEntry.TABLE_NAME + "." + MovieEntry._ID + " = " + TABLE_NAME + "." + COLUMN_MOVIE_ID;
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_MOVIE_ID + " INTEGER PRIMARY KEY ON CONFLICT REPLACE, " +
+                        COLUMN_ADULT + " INTEGER, " +
+                        COLUMN_VIDEO + " INTEGER, " +
+                        COLUMN_BUDGET + " INTEGER, " +
+                        COLUMN_HOMEPAGE + " TEXT, " +
+                        COLUMN_IMDB_ID + " TEXT, " +
+                        COLUMN_REVENUE + " INTEGER, " +
+                        COLUMN_RUNTIME + " INTEGER, " +
+                        COLUMN_STATUS + " TEXT, " +
+                        COLUMN_TAGLINE + " TEXT, " +
+                        COLUMN_FETCHED_AT + " INTEGER NOT NULL );";
+
+        /**
+         * SQL statement to create the trigger removing the junction rows of the removed
+         * details, the genres and the rest are kept for the other movies
+         */
+        public static final String SQL_CREATE_TRIGGER_DELETE =
+                "CREATE TRIGGER " + TABLE_NAME + "_after_delete AFTER DELETE ON " + TABLE_NAME + " BEGIN " +
+                        deleteJunctionRows(MovieGenreEntry.TABLE_NAME) +
+                        deleteJunctionRows(MovieCompanyEntry.TABLE_NAME) +
+                        deleteJunctionRows(MovieCountryEntry.TABLE_NAME) +
+                        deleteJunctionRows(MovieLanguageEntry.TABLE_NAME) + "END;";
+
+        /**
+         * The detail query projection, the movie and detail columns and the related rows of
+         * each junction table concatenated on a single column. Each related row is its
+         * position, key and name split by {@link #FIELD_SEPARATOR}, and the rows are split by
+         * {@link #RECORD_SEPARATOR}, the concatenation order is undefined so the position
+         * comes along.
+         */
+        public static final String[] DETAIL_COLUMNS = {
+                qualified(MovieEntry.TABLE_NAME, MovieEntry._ID),
+                qualified(MovieEntry.TABLE_NAME, MovieEntry.COLUMN_ORIGINAL_TITLE),
+                qualified(MovieEntry.TABLE_NAME, MovieEntry.COLUMN_ORIGINAL_LANGUAGE),
+                qualified(MovieEntry.TABLE_NAME, MovieEntry.COLUMN_OVERVIEW),
+                qualified(MovieEntry.TABLE_NAME, MovieEntry.COLUMN_RELEASE_DATE),
+                qualified(MovieEntry.TABLE_NAME, MovieEntry.COLUMN_POSTER_PATH),
+                qualified(MovieEntry.TABLE_NAME, MovieEntry.COLUMN_POPULARITY),
+                qualified(MovieEntry.TABLE_NAME, MovieEntry.COLUMN_TITLE),
+                qualified(MovieEntry.TABLE_NAME, MovieEntry.COLUMN_AVERAGE_VOTE),
+                qualified(MovieEntry.TABLE_NAME, MovieEntry.COLUMN_VOTE_COUNT),
+                qualified(MovieEntry.TABLE_NAME, MovieEntry.COLUMN_BACKDROP_PATH),
+                qualified(TABLE_NAME, COLUMN_ADULT),
+                qualified(TABLE_NAME, COLUMN_VIDEO),
+                qualified(TABLE_NAME, COLUMN_BUDGET),
+                qualified(TABLE_NAME, COLUMN_HOMEPAGE),
+                qualified(TABLE_NAME, COLUMN_IMDB_ID),
+                qualified(TABLE_NAME, COLUMN_REVENUE),
+                qualified(TABLE_NAME, COLUMN_RUNTIME),
+                qualified(TABLE_NAME, COLUMN_STATUS),
+                qualified(TABLE_NAME, COLUMN_TAGLINE),
+                qualified(TABLE_NAME, COLUMN_FETCHED_AT),
+                concatenated(MovieGenreEntry.TABLE_NAME, MovieGenreEntry.COLUMN_GENRE_ID,
+                        GenreEntry.TABLE_NAME, GenreEntry._ID, GenreEntry.COLUMN_NAME, COLUMN_GENRES),
+                concatenated(MovieCompanyEntry.TABLE_NAME, MovieCompanyEntry.COLUMN_COMPANY_ID,
+                        CompanyEntry.TABLE_NAME, CompanyEntry._ID, CompanyEntry.COLUMN_NAME,
+                        COLUMN_PRODUCTION_COMPANIES),
+                concatenated(MovieCountryEntry.TABLE_NAME, MovieCountryEntry.COLUMN_ISO_3166_1,
+                        CountryEntry.TABLE_NAME, CountryEntry.COLUMN_ISO_3166_1, CountryEntry.COLUMN_NAME,
+                        COLUMN_PRODUCTION_COUNTRIES),
+                concatenated(MovieLanguageEntry.TABLE_NAME, MovieLanguageEntry.COLUMN_ISO_639_1,
+                        LanguageEntry.TABLE_NAME, LanguageEntry.COLUMN_ISO_639_1, LanguageEntry.COLUMN_NAME,
+                        COLUMN_SPOKEN_LANGUAGES)
+        };
+
+        /**
+         * Builds the URI of the details of a single movie.
+         *
+         * @param movieId the movie id
+         * @return the movie details URI
+         * @since 1.3.0 2017/05/27
+         */
+        public static Uri buildMovieDetailUri(long movieId) {
+            return ContentUris.withAppendedId(CONTENT_URI, movieId);
+        }
+
+        /**
+         * @param table  the table name
+         * @param column the column name
+         * @return the column read from the table, keeping its name
+         */
+        private static String qualified(String table, String column) {
+            return table + "." + column + " AS " + column;
+        }
+
+        /**
+         * @param junction    the junction table
+         * @param junctionKey the junction column referencing the related table
+         * @param related     the related table
+         * @param relatedKey  the related table key
+         * @param name        the related table name column
+         * @param alias       the concatenated column name
+         * @return the subquery concatenating the related rows of the movie
+         */
+        private static String concatenated(String junction, String junctionKey, String related,
+                                           String relatedKey, String name, String alias) {
+            return "(SELECT group_concat(" +
+                    junction + "." + MovieGenreEntry.COLUMN_POSITION + " || '" + FIELD_SEPARATOR + "' || " +
+                    related + "." + relatedKey + " || '" + FIELD_SEPARATOR + "' || " +
+                    "ifnull(" + related + "." + name + ", ''), '" + RECORD_SEPARATOR + "') FROM " +
+                    junction + " INNER JOIN " + related + " ON " + related + "." + relatedKey + " = " +
+                    junction + "." + junctionKey + " WHERE " + junction + "." + MovieGenreEntry.COLUMN_MOVIE_ID +
+                    " = " + TABLE_NAME + "." + COLUMN_MOVIE_ID + ") AS " + alias;
+        }
+
+        /**
+         * @param junction the junction table
+         * @return the trigger statement removing the junction rows of the removed movie
+         */
+        private static String deleteJunctionRows(String junction) {
+            return "DELETE FROM " + junction + " WHERE " + MovieGenreEntry.COLUMN_MOVIE_ID + " = old." +
+                    COLUMN_MOVIE_ID + "; ";
+        }
+    }
+
+    /**
+     * Defines the stored genres table structure, every genre is stored once.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/27
+     * @see BaseColumns
+     * @since 1.3.0 2017/05/27
+     */
+    public static final class GenreEntry implements BaseColumns {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_GENRES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "genres";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_GENRES;
+
+        /**
+         * The genre name
+         */
+        public static final String COLUMN_NAME = "name";
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        _ID + " INTEGER PRIMARY KEY ON CONFLICT REPLACE, " +
+                        COLUMN_NAME + " TEXT );";
+    }
+
+    /**
+     * Defines the stored production companies table structure, every company is stored once.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/27
+     * @see BaseColumns
+     * @since 1.3.0 2017/05/27
+     */
+    public static final class CompanyEntry implements BaseColumns {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_COMPANIES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "companies";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_COMPANIES;
+
+        /**
+         * The company name
+         */
+        public static final String COLUMN_NAME = "name";
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        _ID + " INTEGER PRIMARY KEY ON CONFLICT REPLACE, " +
+                        COLUMN_NAME + " TEXT );";
+    }
+
+    /**
+     * Defines the stored production countries table structure, every country is stored once
+     * by its ISO 3166-1 code.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/27
+     * @since 1.3.0 2017/05/27
+     */
+    public static final class CountryEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_COUNTRIES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "countries";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_COUNTRIES;
+
+        /**
+         * The country ISO 3166-1 code
+         */
+        public static final String COLUMN_ISO_3166_1 = "iso_3166_1";
+
+        /**
+         * The country name
+         */
+        public static final String COLUMN_NAME = "name";
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_ISO_3166_1 + " TEXT PRIMARY KEY ON CONFLICT REPLACE, " +
+                        COLUMN_NAME + " TEXT );";
+    }
+
+    /**
+     * Defines the stored spoken languages table structure, every language is stored once by its
+     * ISO 639-1 code.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/27
+     * @since 1.3.0 2017/05/27
+     */
+    public static final class LanguageEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_LANGUAGES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "languages";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_LANGUAGES;
+
+        /**
+         * The language ISO 639-1 code
+         */
+        public static final String COLUMN_ISO_639_1 = "iso_639_1";
+
+        /**
+         * The language name
+         */
+        public static final String COLUMN_NAME = "name";
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_ISO_639_1 + " TEXT PRIMARY KEY ON CONFLICT REPLACE, " +
+                        COLUMN_NAME + " TEXT );";
+    }
+
+    /**
+     * Defines the movie genres junction table structure, the ordered genre ids of each stored
+     * movie details. The production companies, production countries and spoken languages
+     * junction tables share its columns but the related key.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/27
+     * @since 1.3.0 2017/05/27
+     */
+    public static final class MovieGenreEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_MOVIE_GENRES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "movie_genres";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_MOVIE_GENRES;
+
+        /**
+         * The movie id, see {@link MovieDetailEntry#COLUMN_MOVIE_ID}
+         */
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+
+        /**
+         * The genre position on the API response
+         */
+        public static final String COLUMN_POSITION = "position";
+
+        /**
+         * The genre id, see {@link GenreEntry#_ID}
+         */
+        public static final String COLUMN_GENRE_ID = "genre_id";
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                        COLUMN_POSITION + " INTEGER NOT NULL, " +
+                        COLUMN_GENRE_ID + " INTEGER NOT NULL, " +
+                        "PRIMARY KEY (" + COLUMN_MOVIE_ID + ", " + COLUMN_POSITION + ") ON CONFLICT REPLACE );";
+    }
+
+    /**
+     * Defines the movie production companies junction table structure, see
+     * {@link MovieGenreEntry}.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/27
+     * @since 1.3.0 2017/05/27
+     */
+    public static final class MovieCompanyEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_MOVIE_COMPANIES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "movie_companies";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_MOVIE_COMPANIES;
+
+        /**
+         * The movie id, see {@link MovieDetailEntry#COLUMN_MOVIE_ID}
+         */
+        public static final String COLUMN_MOVIE_ID = MovieGenreEntry.COLUMN_MOVIE_ID;
+
+        /**
+         * The company position on the API response
+         */
+        public static final String COLUMN_POSITION = MovieGenreEntry.COLUMN_POSITION;
+
+        /**
+         * The company id, see {@link CompanyEntry#_ID}
+         */
+        public static final String COLUMN_COMPANY_ID = "company_id";
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                        COLUMN_POSITION + " INTEGER NOT NULL, " +
+                        COLUMN_COMPANY_ID + " INTEGER NOT NULL, " +
+                        "PRIMARY KEY (" + COLUMN_MOVIE_ID + ", " + COLUMN_POSITION + ") ON CONFLICT REPLACE );";
+    }
+
+    /**
+     * Defines the movie production countries junction table structure, see
+     * {@link MovieGenreEntry}.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/27
+     * @since 1.3.0 2017/05/27
+     */
+    public static final class MovieCountryEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_MOVIE_COUNTRIES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "movie_countries";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_MOVIE_COUNTRIES;
+
+        /**
+         * The movie id, see {@link MovieDetailEntry#COLUMN_MOVIE_ID}
+         */
+        public static final String COLUMN_MOVIE_ID = MovieGenreEntry.COLUMN_MOVIE_ID;
+
+        /**
+         * The country position on the API response
+         */
+        public static final String COLUMN_POSITION = MovieGenreEntry.COLUMN_POSITION;
+
+        /**
+         * The country code, see {@link CountryEntry#COLUMN_ISO_3166_1}
+         */
+        public static final String COLUMN_ISO_3166_1 = CountryEntry.COLUMN_ISO_3166_1;
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                        COLUMN_POSITION + " INTEGER NOT NULL, " +
+                        COLUMN_ISO_3166_1 + " TEXT NOT NULL, " +
+                        "PRIMARY KEY (" + COLUMN_MOVIE_ID + ", " + COLUMN_POSITION + ") ON CONFLICT REPLACE );";
+    }
+
+    /**
+     * Defines the movie spoken languages junction table structure, see {@link MovieGenreEntry}.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/27
+     * @since 1.3.0 2017/05/27
+     */
+    public static final class MovieLanguageEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_MOVIE_LANGUAGES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "movie_languages";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_MOVIE_LANGUAGES;
+
+        /**
+         * The movie id, see {@link MovieDetailEntry#COLUMN_MOVIE_ID}
+         */
+        public static final String COLUMN_MOVIE_ID = MovieGenreEntry.COLUMN_MOVIE_ID;
+
+        /**
+         * The language position on the API response
+         */
+        public static final String COLUMN_POSITION = MovieGenreEntry.COLUMN_POSITION;
+
+        /**
+         * The language code, see {@link LanguageEntry#COLUMN_ISO_639_1}
+         */
+        public static final String COLUMN_ISO_639_1 = LanguageEntry.COLUMN_ISO_639_1;
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                        COLUMN_POSITION + " INTEGER NOT NULL, " +
+                        COLUMN_ISO_639_1 + " TEXT NOT NULL, " +
+                        "PRIMARY KEY (" + COLUMN_MOVIE_ID + ", " + COLUMN_POSITION + ") ON CONFLICT REPLACE );";
+    }
+
+    /**
+     * Defines the fetches table structure, when the reviews or videos of each movie were last
+     * fetched. A fetch without results stores no rows on their tables, its row here tells
+     * it apart from a movie never fetched.
+     *
+     * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+     * @version 1.3.0 2017/05/28
+     * @since 1.3.0 2017/05/28
+     */
+    public static final class FetchEntry {
+        /**
+         * The content URI
+         */
+        public static final Uri CONTENT_URI = BASE_CONTENT_URI.buildUpon().appendPath(PATH_FETCHES).build();
+
+        /**
+         * The Table name
+         */
+        public static final String TABLE_NAME = "fetches";
+
+        /**
+         * The content type for cursors with more than 1 item
+         */
+        public static final String CONTENT_DIR_TYPE =
+                ContentResolver.CURSOR_DIR_BASE_TYPE + "/" + CONTENT_AUTHORITY + "/" + PATH_FETCHES;
+
+        /**
+         * The fetched movie id, see {@link MovieEntry#_ID}
+         */
+        public static final String COLUMN_MOVIE_ID = "movie_id";
+
+        /**
+         * What was fetched, see {@link #KIND_REVIEWS} and {@link #KIND_VIDEOS}
+         */
+        public static final String COLUMN_KIND = "kind";
+
+        /**
+         * When it was fetched, in milliseconds
+         */
+        public static final String COLUMN_FETCHED_AT = "fetched_at";
+
+        /**
+         * The fetch of the movie reviews, see {@link ReviewEntry}
+         */
+        public static final String KIND_REVIEWS = "reviews";
+
+        /**
+         * The fetch of the movie videos, see {@link VideoEntry}
+         */
+        public static final String KIND_VIDEOS = "videos";
+
+        /**
+         * SQL statement to create the SQLite table
+         */
+        public static final String SQL_CREATE_TABLE =
+                "CREATE TABLE " + TABLE_NAME + " (" +
+                        COLUMN_MOVIE_ID + " INTEGER NOT NULL, " +
+                        COLUMN_KIND + " TEXT NOT NULL, " +
+                        COLUMN_FETCHED_AT + " INTEGER NOT NULL, " +
+                        "PRIMARY KEY (" + COLUMN_MOVIE_ID + ", " + COLUMN_KIND + ") ON CONFLICT REPLACE );";
     }
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * The favourites statements the provider runs the most, compiled once and reused with bound
+ * arguments so SQLite doesn't parse and plan them again on every call.
+ * <p>
+ * A compiled statement is not thread safe, each one is guarded by its own lock. The writes
+ * begin a transaction before taking the lock, the thread holding a write lock already owns the
+ * database connection and never waits for it while holding the lock.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/22
+ * @see MoviesProvider
+ * @since 1.3.0 2017/05/22
+ */
+final class FavouriteStatements {
+    /**
+     * Stops at the first row of the primary key, nothing is read from the movies table
+     */
+    private static final String SQL_EXISTS =
+            "SELECT EXISTS (SELECT 1 FROM " + DatabaseContract.FavouriteEntry.TABLE_NAME +
+                    " WHERE " + DatabaseContract.FavouriteEntry.COLUMN_MOVIE_ID + " = ? LIMIT 1)";
+
+    private static final String SQL_COUNT =
+            "SELECT COUNT(*) FROM " + DatabaseContract.FavouriteEntry.TABLE_NAME;
+
+    /**
+     * Keeps the date of the movies already added
+     */
+    private static final String SQL_INSERT =
+            "INSERT OR IGNORE INTO " + DatabaseContract.FavouriteEntry.TABLE_NAME + " (" +
+                    DatabaseContract.FavouriteEntry.COLUMN_MOVIE_ID + ", " +
+                    DatabaseContract.FavouriteEntry.COLUMN_ADDED_AT + ") VALUES (?, ?)";
+
+    private static final String SQL_DELETE =
+            "DELETE FROM " + DatabaseContract.FavouriteEntry.TABLE_NAME +
+                    " WHERE " + DatabaseContract.FavouriteEntry.COLUMN_MOVIE_ID + " = ?";
+
+    private final SQLiteDatabase mDatabase;
+    private final SQLiteStatement mExists;
+    private final SQLiteStatement mCount;
+    private final SQLiteStatement mInsert;
+    private final SQLiteStatement mDelete;
+
+    /**
+     * Constructor, compiles the statements.
+     *
+     * @param db the writable database, the statements are bound to it
+     * @since 1.3.0 2017/05/22
+     */
+    FavouriteStatements(SQLiteDatabase db) {
+        this.mDatabase = db;
+        this.mExists = db.compileStatement(SQL_EXISTS);
+        this.mCount = db.compileStatement(SQL_COUNT);
+        this.mInsert = db.compileStatement(SQL_INSERT);
+        this.mDelete = db.compileStatement(SQL_DELETE);
+    }
+
+    /**
+     * @param movieId the movie id
+     * @return {@literal true} if the movie is a favourite
+     * @since 1.3.0 2017/05/22
+     */
+    boolean exists(long movieId) {
+        synchronized (mExists) {
+            mExists.bindLong(1, movieId);
+            try {
+                return mExists.simpleQueryForLong() != 0;
+            } finally {
+                mExists.clearBindings();
+            }
+        }
+    }
+
+    /**
+     * @return the number of favourites
+     * @since 1.3.0 2017/05/22
+     */
+    int count() {
+        synchronized (mCount) {
+            return (int) mCount.simpleQueryForLong();
+        }
+    }
+
+    /**
+     * Marks a stored movie as favourite, a movie already added keeps its date.
+     *
+     * @param movieId the movie id
+     * @param addedAt the current time, in milliseconds
+     * @return the row id, -1 if the movie was already a favourite
+     * @since 1.3.0 2017/05/22
+     */
+    long insert(long movieId, long addedAt) {
+        mDatabase.beginTransaction();
+        try {
+            long rowId;
+            synchronized (mInsert) {
+                mInsert.bindLong(1, movieId);
+                mInsert.bindLong(2, addedAt);
+                try {
+                    rowId = mInsert.executeInsert();
+                } finally {
+                    mInsert.clearBindings();
+                }
+            }
+            mDatabase.setTransactionSuccessful();
+            return rowId;
+        } finally {
+            mDatabase.endTransaction();
+        }
+    }
+
+    /**
+     * Removes a movie from the favourites, the movie itself stays stored.
+     *
+     * @param movieId the movie id
+     * @return the number of removed rows
+     * @since 1.3.0 2017/05/22
+     */
+    int delete(long movieId) {
+        mDatabase.beginTransaction();
+        try {
+            int deleted;
+            synchronized (mDelete) {
+                mDelete.bindLong(1, movieId);
+                try {
+                    deleted = mDelete.executeUpdateDelete();
+                } finally {
+                    mDelete.clearBindings();
+                }
+            }
+            mDatabase.setTransactionSuccessful();
+            return deleted;
+        } finally {
+            mDatabase.endTransaction();
+        }
+    }
+
+    /**
+     * Releases the statements.
+     *
+     * @since 1.3.0 2017/05/22
+     */
+    void close() {
+        mExists.close();
+        mCount.close();
+        mInsert.close();
+        mDelete.close();
+    }
+}
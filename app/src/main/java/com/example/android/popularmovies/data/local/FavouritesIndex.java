@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+
+import com.example.android.popularmovies.injection.context.ApplicationContext;
+import com.example.android.popularmovies.util.LongHashSet;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.reactivex.Observable;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * In memory copy of the favourite movie ids, loaded once from the content provider and kept
+ * in sync by the writes, so checking a movie is a hash lookup instead of a query.
+ * <p>
+ * The favourites must only be written through {@link com.example.android.popularmovies.data.DataManager},
+ * which updates the index. Until the ids are loaded the lookups ask the provider for the
+ * single value instead of waiting for the whole load, the load queries outside of the index
+ * lock and only takes it to publish the ids.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/22
+ * @see LongHashSet
+ * @since 1.3.0 2017/05/17
+ */
+@Singleton
+public class FavouritesIndex {
+    /**
+     * The application content resolver
+     */
+    private final ContentResolver mContentResolver;
+
+    /**
+     * Answers the lookups until the ids are loaded
+     */
+    private final FavouritesQueries mFavouritesQueries;
+
+    /**
+     * The favourite movie ids, guarded by this
+     */
+    private LongHashSet mIds = new LongHashSet();
+
+    /**
+     * Held by the load while it queries the content provider, the lookups don't wait for it
+     */
+    private final Object mLoadLock = new Object();
+
+    /**
+     * Publishes every change
+     */
+    private final Subject<Change> mChanges = PublishSubject.<Change>create().toSerialized();
+
+    /**
+     * If the ids were loaded, set with the ids under this
+     */
+    private volatile boolean mLoaded;
+
+    /**
+     * Constructor
+     *
+     * @param context           the application context
+     * @param favouritesQueries the favourite queries
+     * @since 1.3.0 2017/05/17
+     */
+    @Inject
+    public FavouritesIndex(@ApplicationContext Context context, FavouritesQueries favouritesQueries) {
+        this.mContentResolver = context.getContentResolver();
+        this.mFavouritesQueries = favouritesQueries;
+    }
+
+    /**
+     * Loads the favourite ids, only the first call queries the content provider. Called at
+     * startup off the main thread, the writes load the ids too if they are not yet.
+     *
+     * @since 1.3.0 2017/05/17
+     */
+    public void load() {
+        if (mLoaded) {
+            return;
+        }
+
+        synchronized (mLoadLock) {
+            if (mLoaded) {
+                return;
+            }
+
+            LongHashSet ids = new LongHashSet();
+            Cursor cursor = mContentResolver.query(DatabaseContract.FavouriteEntry.CONTENT_URI,
+                    new String[]{DatabaseContract.MovieEntry._ID}, null, null, null);
+
+            if (cursor != null) {
+                try {
+                    int idColumn = cursor.getColumnIndex(DatabaseContract.MovieEntry._ID);
+                    while (cursor.moveToNext()) {
+                        ids.add(cursor.getLong(idColumn));
+                    }
+                } finally {
+                    cursor.close();
+                }
+            }
+
+            synchronized (this) {
+                mIds = ids;
+                mLoaded = true;
+            }
+        }
+    }
+
+    /**
+     * @param movieId the movie id
+     * @return {@literal true} if the movie is a favourite
+     * @since 1.3.0 2017/05/17
+     */
+    public boolean contains(long movieId) {
+        if (!mLoaded) {
+            // Nothing was written before the load, see add and remove, the provider has the answer
+            return mFavouritesQueries.exists(movieId);
+        }
+
+        synchronized (this) {
+            return mIds.contains(movieId);
+        }
+    }
+
+    /**
+     * @return the number of favourite movies
+     * @since 1.3.0 2017/05/17
+     */
+    public int size() {
+        if (!mLoaded) {
+            return mFavouritesQueries.count();
+        }
+
+        synchronized (this) {
+            return mIds.size();
+        }
+    }
+
+    /**
+     * Marks a movie as favourite.
+     *
+     * @param movieId the movie id
+     * @since 1.3.0 2017/05/17
+     */
+    public void add(long movieId) {
+        boolean changed;
+        load();
+        synchronized (this) {
+            changed = mIds.add(movieId);
+        }
+
+        if (changed) {
+            mChanges.onNext(new Change(movieId, true));
+        }
+    }
+
+    /**
+     * Removes a movie from the favourites.
+     *
+     * @param movieId the movie id
+     * @since 1.3.0 2017/05/17
+     */
+    public void remove(long movieId) {
+        boolean changed;
+        load();
+        synchronized (this) {
+            changed = mIds.remove(movieId);
+        }
+
+        if (changed) {
+            mChanges.onNext(new Change(movieId, false));
+        }
+    }
+
+    /**
+     * The favourite changes, emitted on the thread making them.
+     *
+     * @return the changes stream, it never completes
+     * @since 1.3.0 2017/05/17
+     */
+    public Observable<Change> changes() {
+        return mChanges;
+    }
+
+    /**
+     * A movie added to or removed from the favourites
+     *
+     * @since 1.3.0 2017/05/17
+     */
+    public static class Change {
+        private final long mMovieId;
+        private final boolean mFavourite;
+
+        Change(long movieId, boolean favourite) {
+            this.mMovieId = movieId;
+            this.mFavourite = favourite;
+        }
+
+        /**
+         * @return the changed movie id
+         * @since 1.3.0 2017/05/17
+         */
+        public long getMovieId() {
+            return mMovieId;
+        }
+
+        /**
+         * @return {@literal true} if the movie was added, {@literal false} if it was removed
+         * @since 1.3.0 2017/05/17
+         */
+        public boolean isFavourite() {
+            return mFavourite;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import java.util.Arrays;
+
+/**
+ * The favourites sort orders, each one backed by an index and using the movie id to break
+ * the ties so the order is total.
+ * <p>
+ * The pages are read with keyset pagination, a page starts after the last movie of the
+ * previous one instead of skipping an offset, so every page is an index range seek no matter
+ * how deep it is. The sort values of the last movie are read back with a primary key lookup,
+ * comparing the stored values avoids the float precision of the model.
+ * <p>
+ * The nullable sort columns keep the raw column on the order, so their index still gives
+ * it, the nulls go where SQLite sorts them: first on ascending order and last on descending
+ * order. The seek matches them with explicit {@code IS NULL} terms, a movie without the value
+ * would otherwise match no comparison and end the paging. Those seeks are not a single range,
+ * the index is walked in order up to the last movie.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/28
+ * @see DatabaseContract.FavouriteEntry
+ * @since 1.3.0 2017/05/19
+ */
+public enum FavouritesOrder {
+    /**
+     * Alphabetically, ignoring the case
+     */
+    TITLE(DatabaseContract.MovieEntry.TABLE_NAME, DatabaseContract.MovieEntry.COLUMN_TITLE,
+            DatabaseContract.MovieEntry._ID, " COLLATE NOCASE", true, true),
+
+    /**
+     * The most popular first
+     */
+    POPULARITY(DatabaseContract.MovieEntry.TABLE_NAME, DatabaseContract.MovieEntry.COLUMN_POPULARITY,
+            DatabaseContract.MovieEntry._ID, "", false, true),
+
+    /**
+     * The best rated first
+     */
+    VOTE_AVERAGE(DatabaseContract.MovieEntry.TABLE_NAME, DatabaseContract.MovieEntry.COLUMN_AVERAGE_VOTE,
+            DatabaseContract.MovieEntry._ID, "", false, true),
+
+    /**
+     * The last added first
+     */
+    ADDED_AT(DatabaseContract.FavouriteEntry.TABLE_NAME, DatabaseContract.FavouriteEntry.COLUMN_ADDED_AT,
+            DatabaseContract.FavouriteEntry.COLUMN_MOVIE_ID, "", false, false);
+
+    private final String mSortOrder;
+    private final String mSeekSelection;
+    private final int mSeekSelectionArgCount;
+
+    /**
+     * Constructor
+     *
+     * @param table     the table of the sort column
+     * @param column    the sort column
+     * @param idColumn  the movie id column of the table, breaks the ties
+     * @param collation the sort column collation clause, empty for the default one
+     * @param ascending the sort direction
+     * @param nullable  whether the sort column can be null
+     * @since 1.3.0 2017/05/19
+     */
+    FavouritesOrder(String table, String column, String idColumn, String collation,
+                    boolean ascending, boolean nullable) {
+        String valueColumn = table + "." + column;
+        String sortColumn = valueColumn + collation;
+        String tieColumn = table + "." + idColumn;
+        String direction = ascending ? " ASC" : " DESC";
+        String after = ascending ? " > " : " < ";
+        String key = "(SELECT " + column + " FROM " + table + " WHERE " + idColumn + " = ?)";
+
+        mSortOrder = sortColumn + direction + ", " + tieColumn + direction;
+
+        if (!nullable) {
+            // The first condition is the range the index seeks to, the second one skips the
+            // ties up to the last movie
+            mSeekSelection = sortColumn + " " + after.trim() + "= " + key + " AND (" +
+                    sortColumn + after + key + " OR " + tieColumn + after + "?)";
+        } else if (ascending) {
+            // The nulls go first, after a null only the nulls up to the last movie are skipped
+            mSeekSelection = "(" + sortColumn + after + key + " OR " +
+                    sortColumn + " = " + key + " AND " + tieColumn + after + "? OR " +
+                    key + " IS NULL AND (" + valueColumn + " IS NOT NULL OR " + tieColumn + after + "?))";
+        } else {
+            // The nulls go last, after a value every null follows
+            mSeekSelection = "(" + sortColumn + after + key + " OR " +
+                    sortColumn + " = " + key + " AND " + tieColumn + after + "? OR " +
+                    valueColumn + " IS NULL AND (" + key + " IS NOT NULL OR " + tieColumn + after + "?))";
+        }
+
+        // Every argument is the id of the last movie
+        int count = 0;
+        for (int i = mSeekSelection.indexOf('?'); i >= 0; i = mSeekSelection.indexOf('?', i + 1)) {
+            count++;
+        }
+        mSeekSelectionArgCount = count;
+    }
+
+    /**
+     * @return the sort order clause
+     * @since 1.3.0 2017/05/19
+     */
+    public String getSortOrder() {
+        return mSortOrder;
+    }
+
+    /**
+     * The selection of the favourites after a movie, takes the arguments returned by
+     * {@link #getSeekSelectionArgs(long)}.
+     *
+     * @return the where clause
+     * @since 1.3.0 2017/05/19
+     */
+    public String getSeekSelection() {
+        return mSeekSelection;
+    }
+
+    /**
+     * @param afterMovieId the last movie of the previous page
+     * @return the arguments of {@link #getSeekSelection()}
+     * @since 1.3.0 2017/05/19
+     */
+    public String[] getSeekSelectionArgs(long afterMovieId) {
+        String[] args = new String[mSeekSelectionArgCount];
+        Arrays.fill(args, String.valueOf(afterMovieId));
+        return args;
+    }
+}
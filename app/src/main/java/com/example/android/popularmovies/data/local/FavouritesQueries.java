@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.os.Bundle;
+
+import com.example.android.popularmovies.data.model.Movie;
+import com.example.android.popularmovies.injection.context.ApplicationContext;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * The favourite queries, by movie id and with bound arguments. The provider runs them with
+ * precompiled statements, see {@link FavouriteStatements}.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/22
+ * @see MoviesProvider
+ * @since 1.3.0 2017/05/22
+ */
+@Singleton
+public class FavouritesQueries {
+    /**
+     * The application content resolver
+     */
+    private final ContentResolver mContentResolver;
+
+    /**
+     * Constructor
+     *
+     * @param context the application context
+     * @since 1.3.0 2017/05/22
+     */
+    @Inject
+    public FavouritesQueries(@ApplicationContext Context context) {
+        this.mContentResolver = context.getContentResolver();
+    }
+
+    /**
+     * Checks if a movie is a favourite, reads a single value instead of the movie row.
+     *
+     * @param movieId the movie id
+     * @return {@literal true} if the movie is a favourite
+     * @since 1.3.0 2017/05/22
+     */
+    public boolean exists(long movieId) {
+        Bundle result = mContentResolver.call(DatabaseContract.FavouriteEntry.CONTENT_URI,
+                DatabaseContract.FavouriteEntry.METHOD_EXISTS, String.valueOf(movieId), null);
+
+        return result != null && result.getBoolean(DatabaseContract.CALL_RESULT);
+    }
+
+    /**
+     * @return the number of favourites
+     * @since 1.3.0 2017/05/22
+     */
+    public int count() {
+        Bundle result = mContentResolver.call(DatabaseContract.FavouriteEntry.CONTENT_URI,
+                DatabaseContract.FavouriteEntry.METHOD_COUNT, null, null);
+
+        return result != null ? result.getInt(DatabaseContract.CALL_RESULT) : 0;
+    }
+
+    /**
+     * Removes a movie from the favourites.
+     *
+     * @param movieId the movie id
+     * @return {@literal true} if the movie was a favourite
+     * @since 1.3.0 2017/05/22
+     */
+    public boolean delete(long movieId) {
+        return mContentResolver.delete(DatabaseContract.FavouriteEntry.buildFavouriteUri(movieId), null, null) > 0;
+    }
+
+    /**
+     * Creates the batch operation storing a movie and marking it as favourite.
+     *
+     * @param movie the movie
+     * @return the insert operation
+     * @since 1.3.0 2017/05/22
+     */
+    public static ContentProviderOperation newInsert(Movie movie) {
+        return ContentProviderOperation.newInsert(DatabaseContract.FavouriteEntry.CONTENT_URI)
+                .withValues(Movie.toContentValues(movie))
+                .build();
+    }
+
+    /**
+     * Creates the batch operation removing a movie from the favourites.
+     *
+     * @param movieId the movie id
+     * @return the delete operation
+     * @since 1.3.0 2017/05/22
+     */
+    public static ContentProviderOperation newDelete(long movieId) {
+        return ContentProviderOperation.newDelete(DatabaseContract.FavouriteEntry.buildFavouriteUri(movieId))
+                .build();
+    }
+}
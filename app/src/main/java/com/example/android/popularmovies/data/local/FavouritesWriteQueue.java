@@ -0,0 +1,225 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.os.RemoteException;
+
+import com.example.android.popularmovies.data.model.Movie;
+import com.example.android.popularmovies.injection.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.reactivex.Scheduler;
+import io.reactivex.schedulers.Schedulers;
+import timber.log.Timber;
+
+/**
+ * Write-behind queue of the favourite changes. The {@link FavouritesIndex} is updated right
+ * away by the caller, the writes wait a short moment on a background scheduler so the
+ * repeated toggles of a movie collapse into its final state, then every pending write is
+ * applied in a single transaction.
+ * <p>
+ * A movie toggled back to its stored state is not written at all. When the batch fails the
+ * index is rolled back for the movies not changed again since. The flushes run one at a time,
+ * in order.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/18
+ * @see FavouritesIndex
+ * @since 1.3.0 2017/05/18
+ */
+@Singleton
+public class FavouritesWriteQueue {
+    /**
+     * How long the writes wait for more changes
+     */
+    private static final long FLUSH_DELAY_MILLIS = 300;
+
+    /**
+     * The application content resolver
+     */
+    private final ContentResolver mContentResolver;
+
+    /**
+     * The favourite ids, rolled back on failed writes
+     */
+    private final FavouritesIndex mFavouritesIndex;
+
+    /**
+     * Runs the flushes
+     */
+    private final Scheduler mScheduler;
+
+    /**
+     * Held by the flushes from taking the pending writes until they are committed, so the
+     * flushes commit in order and a flush returns once the writes queued before it are stored
+     */
+    private final Object mFlushLock = new Object();
+
+    /**
+     * The pending writes by movie id, in the order they were first queued, guarded by this
+     */
+    private Map<Long, Pending> mPending = new LinkedHashMap<>();
+
+    /**
+     * If a flush is scheduled, guarded by this
+     */
+    private boolean mFlushScheduled;
+
+    /**
+     * Constructor
+     *
+     * @param context         the application context
+     * @param favouritesIndex the favourite ids
+     * @since 1.3.0 2017/05/18
+     */
+    @Inject
+    public FavouritesWriteQueue(@ApplicationContext Context context, FavouritesIndex favouritesIndex) {
+        this(context.getContentResolver(), favouritesIndex, Schedulers.io());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param contentResolver the content resolver to write with
+     * @param favouritesIndex the favourite ids
+     * @param scheduler       the scheduler running the flushes
+     * @since 1.3.0 2017/05/18
+     */
+    public FavouritesWriteQueue(ContentResolver contentResolver, FavouritesIndex favouritesIndex,
+                                Scheduler scheduler) {
+        this.mContentResolver = contentResolver;
+        this.mFavouritesIndex = favouritesIndex;
+        this.mScheduler = scheduler;
+    }
+
+    /**
+     * Queues a favourite change, the last change of a movie wins.
+     *
+     * @param movie        the movie
+     * @param favourite    {@literal true} to add it to the favourites, {@literal false} to remove it
+     * @param wasFavourite if the movie was a favourite before the change
+     * @since 1.3.0 2017/05/18
+     */
+    public synchronized void enqueue(Movie movie, boolean favourite, boolean wasFavourite) {
+        Pending pending = mPending.get(movie.id());
+
+        if (pending == null) {
+            mPending.put(movie.id(), new Pending(movie, favourite, wasFavourite));
+        } else if (pending.mStoredFavourite == favourite) {
+            // Toggled back to the stored state, nothing to write
+            mPending.remove(movie.id());
+        } else {
+            mPending.put(movie.id(), new Pending(movie, favourite, pending.mStoredFavourite));
+        }
+
+        if (!mFlushScheduled && !mPending.isEmpty()) {
+            mFlushScheduled = true;
+            mScheduler.scheduleDirect(new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            }, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Writes the pending changes now, in a single transaction. Called before reading the
+     * favourites so the reads see the queued changes. Blocks, don't call it from the main
+     * thread.
+     *
+     * @since 1.3.0 2017/05/18
+     */
+    public void flush() {
+        // Waits for the flush in flight, its writes may be the ones the caller must read
+        synchronized (mFlushLock) {
+            Map<Long, Pending> pending;
+
+            synchronized (this) {
+                mFlushScheduled = false;
+                if (mPending.isEmpty()) {
+                    return;
+                }
+                pending = mPending;
+                mPending = new LinkedHashMap<>();
+            }
+
+            ArrayList<ContentProviderOperation> operations = new ArrayList<>(pending.size());
+            for (Pending write : pending.values()) {
+                operations.add(write.mFavourite
+                        ? FavouritesQueries.newInsert(write.mMovie)
+                        : FavouritesQueries.newDelete(write.mMovie.id()));
+            }
+
+            try {
+                mContentResolver.applyBatch(DatabaseContract.CONTENT_AUTHORITY, operations);
+            } catch (RemoteException | OperationApplicationException | RuntimeException e) {
+                Timber.e(e, "Could not write %d favourite changes", pending.size());
+                rollback(pending);
+            }
+        }
+    }
+
+    /**
+     * Restores the stored state on the index of the movies not changed again since the
+     * failed flush.
+     *
+     * @param failed the writes of the failed flush
+     * @since 1.3.0 2017/05/18
+     */
+    private void rollback(Map<Long, Pending> failed) {
+        for (Pending write : failed.values()) {
+            synchronized (this) {
+                if (mPending.containsKey(write.mMovie.id())) {
+                    continue;
+                }
+            }
+
+            if (write.mStoredFavourite) {
+                mFavouritesIndex.add(write.mMovie.id());
+            } else {
+                mFavouritesIndex.remove(write.mMovie.id());
+            }
+        }
+    }
+
+    /**
+     * A pending favourite write
+     */
+    private static class Pending {
+        private final Movie mMovie;
+        private final boolean mFavourite;
+        private final boolean mStoredFavourite;
+
+        Pending(Movie movie, boolean favourite, boolean storedFavourite) {
+            this.mMovie = movie;
+            this.mFavourite = favourite;
+            this.mStoredFavourite = storedFavourite;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Cancellable;
+import io.reactivex.functions.Function;
+
+/**
+ * Queries that follow the content provider. The query runs once on subscription and again
+ * every time the observed URI, or any of its rows, is notified, until disposed.
+ * <p>
+ * The notifications are debounced, a burst of writes runs a single query once it settles,
+ * and a result equal to the previous one is not emitted again.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/26
+ * @see MoviesProvider
+ * @since 1.3.0 2017/05/26
+ */
+public final class LiveQuery {
+    /**
+     * Marks the first query, it doesn't wait for a notification
+     */
+    private static final Uri INITIAL_QUERY = Uri.EMPTY;
+
+    private LiveQuery() {
+        // Utility class
+    }
+
+    /**
+     * Creates a live query.
+     *
+     * @param contentResolver the content resolver to observe
+     * @param uri             the observed URI, its row URIs are observed too
+     * @param query           reads the result, runs on the scheduler
+     * @param debounceMillis  how long the notifications must settle before querying again
+     * @param scheduler       the scheduler running the queries, usually the io one
+     * @param <T>             the result type, must implement equals
+     * @return the results stream, it never completes
+     * @since 1.3.0 2017/05/26
+     */
+    public static <T> Observable<T> create(ContentResolver contentResolver, Uri uri, Callable<T> query,
+                                           long debounceMillis, Scheduler scheduler) {
+        return create(contentResolver, new Uri[]{uri}, query, debounceMillis, scheduler);
+    }
+
+    /**
+     * Creates a live query over several URIs, a query reading joined tables observes each of
+     * them. The notifications of every URI are debounced together.
+     *
+     * @param contentResolver the content resolver to observe
+     * @param uris            the observed URIs, their row URIs are observed too
+     * @param query           reads the result, runs on the scheduler
+     * @param debounceMillis  how long the notifications must settle before querying again
+     * @param scheduler       the scheduler running the queries, usually the io one
+     * @param <T>             the result type, must implement equals
+     * @return the results stream, it never completes
+     * @since 1.3.0 2017/05/26
+     */
+    public static <T> Observable<T> create(ContentResolver contentResolver, Uri[] uris, final Callable<T> query,
+                                           long debounceMillis, Scheduler scheduler) {
+        List<Observable<Uri>> notifications = new ArrayList<>(uris.length);
+        for (Uri uri : uris) {
+            notifications.add(notifications(contentResolver, uri));
+        }
+
+        return Observable.merge(notifications)
+                .debounce(debounceMillis, TimeUnit.MILLISECONDS, scheduler)
+                .startWith(INITIAL_QUERY)
+                .observeOn(scheduler)
+                .map(new Function<Uri, T>() {
+                    @Override
+                    public T apply(Uri uri) throws Exception {
+                        return query.call();
+                    }
+                })
+                .distinctUntilChanged();
+    }
+
+    /**
+     * The change notifications of a URI and its rows, the content observer is registered
+     * while subscribed.
+     *
+     * @param contentResolver the content resolver to observe
+     * @param uri             the observed URI
+     * @return the notified URIs, emitted serially on the threads delivering them, it never
+     * completes
+     * @since 1.3.0 2017/05/26
+     */
+    public static Observable<Uri> notifications(final ContentResolver contentResolver, final Uri uri) {
+        return Observable.create(new ObservableOnSubscribe<Uri>() {
+            @Override
+            public void subscribe(final ObservableEmitter<Uri> emitter) throws Exception {
+                // No handler, the notifications are delivered on the binder threads, several
+                // at once, the serialized emitter emits them one at a time
+                final ObservableEmitter<Uri> serialized = emitter.serialize();
+                final ContentObserver observer = new ContentObserver(null) {
+                    @Override
+                    public void onChange(boolean selfChange, @Nullable Uri changed) {
+                        serialized.onNext(changed != null ? changed : uri);
+                    }
+                };
+
+                contentResolver.registerContentObserver(uri, true, observer);
+
+                emitter.setCancellable(new Cancellable() {
+                    @Override
+                    public void cancel() throws Exception {
+                        contentResolver.unregisterContentObserver(observer);
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.Context;
+import android.net.Uri;
+
+import com.example.android.popularmovies.injection.context.ApplicationContext;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import io.reactivex.Observable;
+import io.reactivex.functions.Function;
+
+/**
+ * The changes the content provider notifies on the stored movies and the favourites, with the
+ * id of the changed movie when the provider notified a single row.
+ * <p>
+ * The content observers are registered while there are subscribers, shared by all of them.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/28
+ * @see MoviesProvider
+ * @since 1.3.0 2017/05/25
+ */
+@Singleton
+public class MovieChanges {
+    /**
+     * The changes stream
+     */
+    private final Observable<Change> mChanges;
+
+    /**
+     * Constructor
+     *
+     * @param context the application context
+     * @since 1.3.0 2017/05/25
+     */
+    @Inject
+    public MovieChanges(@ApplicationContext Context context) {
+        final ContentResolver contentResolver = context.getContentResolver();
+
+        mChanges = Observable.merge(
+                LiveQuery.notifications(contentResolver, DatabaseContract.MovieEntry.CONTENT_URI),
+                LiveQuery.notifications(contentResolver, DatabaseContract.FavouriteEntry.CONTENT_URI))
+                .map(new Function<Uri, Change>() {
+                    @Override
+                    public Change apply(Uri uri) throws Exception {
+                        return Change.from(uri);
+                    }
+                })
+                .share();
+    }
+
+    /**
+     * The changes of the stored movies and the favourites, emitted on the thread delivering
+     * the content provider notifications.
+     *
+     * @return the changes stream, it never completes
+     * @since 1.3.0 2017/05/25
+     */
+    public Observable<Change> changes() {
+        return mChanges;
+    }
+
+    /**
+     * A change on the stored movies or the favourites
+     *
+     * @since 1.3.0 2017/05/25
+     */
+    public static class Change {
+        /**
+         * The id of a change not limited to a single movie
+         */
+        public static final long ANY_MOVIE = -1;
+
+        private final boolean mFavourites;
+        private final long mMovieId;
+
+        Change(boolean favourites, long movieId) {
+            this.mFavourites = favourites;
+            this.mMovieId = movieId;
+        }
+
+        /**
+         * @param uri the notified URI
+         * @return the change
+         */
+        static Change from(Uri uri) {
+            boolean favourites = uri.getPathSegments().size() > 0 &&
+                    DatabaseContract.PATH_FAVOURITES.equals(uri.getPathSegments().get(0));
+            boolean row = uri.getPathSegments().size() > 1;
+
+            return new Change(favourites, row ? ContentUris.parseId(uri) : ANY_MOVIE);
+        }
+
+        /**
+         * @return {@literal true} if the favourites changed, {@literal false} if it was a
+         * stored movie
+         * @since 1.3.0 2017/05/25
+         */
+        public boolean isFavourites() {
+            return mFavourites;
+        }
+
+        /**
+         * @return the changed movie id, or {@link #ANY_MOVIE} if the change may affect any of them
+         * @since 1.3.0 2017/05/25
+         */
+        public long getMovieId() {
+            return mMovieId;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.database.Cursor;
+
+import com.example.android.popularmovies.data.model.Movie;
+
+/**
+ * Reads the {@link DatabaseContract.MovieEntry} columns into movies.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/21
+ * @see CursorMapper
+ * @since 1.3.0 2017/05/21
+ */
+public class MovieCursorMapper extends CursorMapper<Movie> {
+    private final int mId;
+    private final int mTitle;
+    private final int mOriginalTitle;
+    private final int mOriginalLanguage;
+    private final int mOverview;
+    private final int mReleaseDate;
+    private final int mPosterPath;
+    private final int mPopularity;
+    private final int mAverageVote;
+    private final int mBackdropPath;
+    private final int mVoteCount;
+
+    /**
+     * Constructor
+     *
+     * @param cursor the cursor to map, must include the movie id
+     * @throws IllegalArgumentException if the cursor has no movie id column
+     * @since 1.3.0 2017/05/21
+     */
+    public MovieCursorMapper(Cursor cursor) {
+        super(cursor);
+        mId = cursor.getColumnIndexOrThrow(DatabaseContract.MovieEntry._ID);
+        mTitle = index(DatabaseContract.MovieEntry.COLUMN_TITLE);
+        mOriginalTitle = index(DatabaseContract.MovieEntry.COLUMN_ORIGINAL_TITLE);
+        mOriginalLanguage = index(DatabaseContract.MovieEntry.COLUMN_ORIGINAL_LANGUAGE);
+        mOverview = index(DatabaseContract.MovieEntry.COLUMN_OVERVIEW);
+        mReleaseDate = index(DatabaseContract.MovieEntry.COLUMN_RELEASE_DATE);
+        mPosterPath = index(DatabaseContract.MovieEntry.COLUMN_POSTER_PATH);
+        mPopularity = index(DatabaseContract.MovieEntry.COLUMN_POPULARITY);
+        mAverageVote = index(DatabaseContract.MovieEntry.COLUMN_AVERAGE_VOTE);
+        mBackdropPath = index(DatabaseContract.MovieEntry.COLUMN_BACKDROP_PATH);
+        mVoteCount = index(DatabaseContract.MovieEntry.COLUMN_VOTE_COUNT);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Movie read() {
+        return Movie.builder()
+                .setId(mCursor.getLong(mId))
+                .setTitle(getString(mTitle))
+                .setOriginal_title(getString(mOriginalTitle))
+                .setOriginal_language(getString(mOriginalLanguage))
+                .setOverview(getString(mOverview))
+                .setRelease_date(getString(mReleaseDate))
+                .setPoster_path(getString(mPosterPath))
+                .setPopularity(getFloat(mPopularity))
+                .setVote_average(getFloat(mAverageVote))
+                .setBackdrop_path(getString(mBackdropPath))
+                .setVote_count(getInt(mVoteCount))
+                .build();
+    }
+}
@@ -0,0 +1,584 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.RemoteException;
+import android.support.annotation.Nullable;
+
+import com.example.android.popularmovies.data.model.Genre;
+import com.example.android.popularmovies.data.model.Movie;
+import com.example.android.popularmovies.data.model.ProductionCompany;
+import com.example.android.popularmovies.data.model.ProductionCountry;
+import com.example.android.popularmovies.data.model.Review;
+import com.example.android.popularmovies.data.model.ReviewCollection;
+import com.example.android.popularmovies.data.model.SpokenLanguage;
+import com.example.android.popularmovies.data.model.TrailersCollection;
+import com.example.android.popularmovies.data.model.Video;
+import com.example.android.popularmovies.injection.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import timber.log.Timber;
+
+/**
+ * Reads and writes the stored details, reviews and videos of the opened movies, each row
+ * keeps the time it was fetched so the callers decide when to refresh them. The reviews and
+ * videos fetches are recorded apart too, so a movie without any is served from storage.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/28
+ * @see MoviesProvider
+ * @since 1.3.0 2017/05/16
+ */
+@Singleton
+public class MovieDetailCacheHelper {
+    /**
+     * The rows fetched before this are removed on the next write, so the movies never opened
+     * again don't keep their rows forever
+     */
+    private static final long RETENTION_MILLIS = TimeUnit.DAYS.toMillis(30);
+
+    /**
+     * Selection of the rows of a single movie, the reviews, videos and movie details tables
+     * share the column name
+     */
+    private static final String MOVIE_SELECTION = DatabaseContract.ReviewEntry.COLUMN_MOVIE_ID + " = ?";
+
+    /**
+     * Selection of the expired rows, the reviews, videos and movie details share the column
+     * name
+     */
+    private static final String EXPIRED_SELECTION = DatabaseContract.ReviewEntry.COLUMN_FETCHED_AT + " < ?";
+
+    /**
+     * Selection of the fetch of a single movie reviews or videos
+     */
+    private static final String FETCH_SELECTION = DatabaseContract.FetchEntry.COLUMN_MOVIE_ID + " = ? AND " +
+            DatabaseContract.FetchEntry.COLUMN_KIND + " = ?";
+
+    /**
+     * The junction tables of the movie details, their rows are replaced with the details
+     */
+    private static final Uri[] JUNCTION_URIS = {
+            DatabaseContract.MovieGenreEntry.CONTENT_URI,
+            DatabaseContract.MovieCompanyEntry.CONTENT_URI,
+            DatabaseContract.MovieCountryEntry.CONTENT_URI,
+            DatabaseContract.MovieLanguageEntry.CONTENT_URI
+    };
+
+    /**
+     * The application content resolver
+     */
+    private final ContentResolver mContentResolver;
+
+    /**
+     * Constructor
+     *
+     * @param context the application context
+     * @since 1.3.0 2017/05/16
+     */
+    @Inject
+    public MovieDetailCacheHelper(@ApplicationContext Context context) {
+        this.mContentResolver = context.getContentResolver();
+    }
+
+    /**
+     * Gets a stored movie.
+     *
+     * @param movieId the movie id
+     * @return the stored movie, or {@literal null} if it's not stored
+     * @since 1.3.0 2017/05/16
+     */
+    @Nullable
+    public Movie getMovie(long movieId) {
+        Cursor cursor = mContentResolver.query(DatabaseContract.MovieEntry.CONTENT_URI,
+                DatabaseContract.MovieEntry.ALL_COLUMNS, DatabaseContract.MovieEntry._ID + " = ?",
+                new String[]{String.valueOf(movieId)}, null);
+
+        if (cursor == null) {
+            return null;
+        }
+
+        try {
+            return cursor.moveToFirst() ? new MovieCursorMapper(cursor).read() : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Gets the stored details of a movie in a single query, with their stored trailers and
+     * reviews.
+     *
+     * @param movieId the movie id
+     * @return the full stored movie and the time the oldest of its parts was fetched, or
+     * {@literal null} if the details are not stored
+     * @since 1.3.0 2017/05/27
+     */
+    @Nullable
+    public Stored<Movie> getMovieDetail(long movieId) {
+        Cursor cursor = mContentResolver.query(DatabaseContract.MovieDetailEntry.buildMovieDetailUri(movieId),
+                null, null, null, null);
+
+        if (cursor == null) {
+            return null;
+        }
+
+        Movie movie;
+        long fetchedAt;
+
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+
+            MovieDetailCursorMapper mapper = new MovieDetailCursorMapper(cursor);
+            movie = mapper.read();
+            fetchedAt = mapper.getFetchedAt();
+        } finally {
+            cursor.close();
+        }
+
+        // The trailers and reviews come with the details, a movie may have none of them
+        Stored<TrailersCollection> videos = getVideos(movieId);
+        Stored<ReviewCollection> reviews = getReviews(movieId);
+
+        if (videos != null) {
+            fetchedAt = Math.min(fetchedAt, videos.mFetchedAt);
+        }
+
+        if (reviews != null) {
+            fetchedAt = Math.min(fetchedAt, reviews.mFetchedAt);
+        }
+
+        movie = movie.toBuilder()
+                .setVideos(videos != null ? videos.getValue() : null)
+                .setReviews(reviews != null ? reviews.getValue() : null)
+                .build();
+
+        return new Stored<>(movie, fetchedAt);
+    }
+
+    /**
+     * Gets the stored reviews of a movie.
+     *
+     * @param movieId the movie id
+     * @return the stored reviews, empty if the movie has none, or {@literal null} if they
+     * were never fetched
+     * @since 1.3.0 2017/05/16
+     */
+    @Nullable
+    public Stored<ReviewCollection> getReviews(long movieId) {
+        Cursor cursor = query(DatabaseContract.ReviewEntry.CONTENT_URI, DatabaseContract.ReviewEntry.ALL_COLUMNS,
+                movieId, DatabaseContract.ReviewEntry.COLUMN_POSITION);
+
+        if (cursor == null) {
+            return null;
+        }
+
+        List<Review> results = new ArrayList<>();
+        long fetchedAt = Long.MAX_VALUE;
+
+        try {
+            ReviewCursorMapper mapper = new ReviewCursorMapper(cursor);
+            while (cursor.moveToNext()) {
+                results.add(mapper.read());
+                fetchedAt = Math.min(fetchedAt, mapper.getFetchedAt());
+            }
+        } finally {
+            cursor.close();
+        }
+
+        if (results.isEmpty()) {
+            // A movie without reviews stores no rows, only its fetch
+            Long fetched = getFetchedAt(movieId, DatabaseContract.FetchEntry.KIND_REVIEWS);
+            if (fetched == null) {
+                return null;
+            }
+            fetchedAt = fetched;
+        }
+
+        ReviewCollection reviews = ReviewCollection.builder()
+                .setPage(1)
+                .setResults(results)
+                .setTotal_pages(1)
+                .setTotal_results(results.size())
+                .build();
+
+        return new Stored<>(reviews, fetchedAt);
+    }
+
+    /**
+     * Gets the stored videos of a movie.
+     *
+     * @param movieId the movie id
+     * @return the stored videos, empty if the movie has none, or {@literal null} if they
+     * were never fetched
+     * @since 1.3.0 2017/05/16
+     */
+    @Nullable
+    public Stored<TrailersCollection> getVideos(long movieId) {
+        Cursor cursor = query(DatabaseContract.VideoEntry.CONTENT_URI, DatabaseContract.VideoEntry.ALL_COLUMNS,
+                movieId, DatabaseContract.VideoEntry.COLUMN_POSITION);
+
+        if (cursor == null) {
+            return null;
+        }
+
+        List<Video> results = new ArrayList<>();
+        long fetchedAt = Long.MAX_VALUE;
+
+        try {
+            VideoCursorMapper mapper = new VideoCursorMapper(cursor);
+            while (cursor.moveToNext()) {
+                results.add(mapper.read());
+                fetchedAt = Math.min(fetchedAt, mapper.getFetchedAt());
+            }
+        } finally {
+            cursor.close();
+        }
+
+        if (results.isEmpty()) {
+            // A movie without videos stores no rows, only its fetch
+            Long fetched = getFetchedAt(movieId, DatabaseContract.FetchEntry.KIND_VIDEOS);
+            if (fetched == null) {
+                return null;
+            }
+            fetchedAt = fetched;
+        }
+
+        TrailersCollection videos = TrailersCollection.builder()
+                .setId((int) movieId)
+                .setResults(results)
+                .build();
+
+        return new Stored<>(videos, fetchedAt);
+    }
+
+    /**
+     * Stores the reviews of a movie, replacing the previous ones, in a single transaction.
+     *
+     * @param movieId the movie id
+     * @param reviews the reviews to store
+     * @since 1.3.0 2017/05/16
+     */
+    public void putReviews(long movieId, ReviewCollection reviews) {
+        long now = System.currentTimeMillis();
+        ArrayList<ContentProviderOperation> operations = replaceOperations(
+                DatabaseContract.ReviewEntry.CONTENT_URI, movieId, now);
+
+        List<Review> results = reviews.results();
+        for (int position = 0; position < results.size(); position++) {
+            Review review = results.get(position);
+
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.ReviewEntry.CONTENT_URI)
+                    .withValue(DatabaseContract.ReviewEntry.COLUMN_MOVIE_ID, movieId)
+                    .withValue(DatabaseContract.ReviewEntry.COLUMN_POSITION, position)
+                    .withValue(DatabaseContract.ReviewEntry.COLUMN_REVIEW_ID, review.id())
+                    .withValue(DatabaseContract.ReviewEntry.COLUMN_AUTHOR, review.author())
+                    .withValue(DatabaseContract.ReviewEntry.COLUMN_CONTENT, review.content())
+                    .withValue(DatabaseContract.ReviewEntry.COLUMN_URL, review.url())
+                    .withValue(DatabaseContract.ReviewEntry.COLUMN_FETCHED_AT, now)
+                    .build());
+        }
+
+        operations.addAll(fetchOperations(DatabaseContract.FetchEntry.KIND_REVIEWS, movieId, now));
+        apply(operations, movieId);
+    }
+
+    /**
+     * Stores the videos of a movie, replacing the previous ones, in a single transaction.
+     *
+     * @param movieId the movie id
+     * @param videos  the videos to store
+     * @since 1.3.0 2017/05/16
+     */
+    public void putVideos(long movieId, TrailersCollection videos) {
+        long now = System.currentTimeMillis();
+        ArrayList<ContentProviderOperation> operations = replaceOperations(
+                DatabaseContract.VideoEntry.CONTENT_URI, movieId, now);
+
+        List<Video> results = videos.results();
+        for (int position = 0; position < results.size(); position++) {
+            Video video = results.get(position);
+
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.VideoEntry.CONTENT_URI)
+                    .withValue(DatabaseContract.VideoEntry.COLUMN_MOVIE_ID, movieId)
+                    .withValue(DatabaseContract.VideoEntry.COLUMN_POSITION, position)
+                    .withValue(DatabaseContract.VideoEntry.COLUMN_VIDEO_ID, video.id())
+                    .withValue(DatabaseContract.VideoEntry.COLUMN_ISO_639_1, video.iso_639_1())
+                    .withValue(DatabaseContract.VideoEntry.COLUMN_ISO_3166_1, video.iso_3166_1())
+                    .withValue(DatabaseContract.VideoEntry.COLUMN_KEY, video.key())
+                    .withValue(DatabaseContract.VideoEntry.COLUMN_NAME, video.name())
+                    .withValue(DatabaseContract.VideoEntry.COLUMN_SITE, video.site())
+                    .withValue(DatabaseContract.VideoEntry.COLUMN_SIZE, video.size())
+                    .withValue(DatabaseContract.VideoEntry.COLUMN_TYPE, video.type())
+                    .withValue(DatabaseContract.VideoEntry.COLUMN_FETCHED_AT, now)
+                    .build());
+        }
+
+        operations.addAll(fetchOperations(DatabaseContract.FetchEntry.KIND_VIDEOS, movieId, now));
+        apply(operations, movieId);
+    }
+
+    /**
+     * Stores the details of a movie, replacing the previous ones, in a single transaction.
+     * The movie row is stored too, and the genres, companies, countries and languages are
+     * stored once and referenced by position. The trailers and reviews are stored apart.
+     *
+     * @param movie the movie details to store
+     * @since 1.3.0 2017/05/27
+     */
+    public void putMovieDetail(Movie movie) {
+        long movieId = movie.id();
+        long now = System.currentTimeMillis();
+        String[] movieArgs = new String[]{String.valueOf(movieId)};
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+
+        // The expired details take their junction rows along, see the table trigger
+        operations.add(ContentProviderOperation.newDelete(DatabaseContract.MovieDetailEntry.CONTENT_URI)
+                .withSelection(EXPIRED_SELECTION, new String[]{String.valueOf(now - RETENTION_MILLIS)})
+                .build());
+
+        operations.add(ContentProviderOperation.newInsert(DatabaseContract.MovieEntry.CONTENT_URI)
+                .withValues(Movie.toContentValues(movie))
+                .build());
+        operations.add(ContentProviderOperation.newInsert(DatabaseContract.MovieDetailEntry.CONTENT_URI)
+                .withValues(Movie.toDetailContentValues(movie))
+                .withValue(DatabaseContract.MovieDetailEntry.COLUMN_FETCHED_AT, now)
+                .build());
+
+        // The lists may be shorter than the stored ones
+        for (Uri junction : JUNCTION_URIS) {
+            operations.add(ContentProviderOperation.newDelete(junction)
+                    .withSelection(MOVIE_SELECTION, movieArgs)
+                    .build());
+        }
+
+        List<Genre> genres = movie.genres();
+        for (int position = 0; genres != null && position < genres.size(); position++) {
+            Genre genre = genres.get(position);
+
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.GenreEntry.CONTENT_URI)
+                    .withValue(DatabaseContract.GenreEntry._ID, genre.id())
+                    .withValue(DatabaseContract.GenreEntry.COLUMN_NAME, genre.name())
+                    .build());
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.MovieGenreEntry.CONTENT_URI)
+                    .withValue(DatabaseContract.MovieGenreEntry.COLUMN_MOVIE_ID, movieId)
+                    .withValue(DatabaseContract.MovieGenreEntry.COLUMN_POSITION, position)
+                    .withValue(DatabaseContract.MovieGenreEntry.COLUMN_GENRE_ID, genre.id())
+                    .build());
+        }
+
+        List<ProductionCompany> companies = movie.production_companies();
+        for (int position = 0; companies != null && position < companies.size(); position++) {
+            ProductionCompany company = companies.get(position);
+
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.CompanyEntry.CONTENT_URI)
+                    .withValue(DatabaseContract.CompanyEntry._ID, company.id())
+                    .withValue(DatabaseContract.CompanyEntry.COLUMN_NAME, company.name())
+                    .build());
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.MovieCompanyEntry.CONTENT_URI)
+                    .withValue(DatabaseContract.MovieCompanyEntry.COLUMN_MOVIE_ID, movieId)
+                    .withValue(DatabaseContract.MovieCompanyEntry.COLUMN_POSITION, position)
+                    .withValue(DatabaseContract.MovieCompanyEntry.COLUMN_COMPANY_ID, company.id())
+                    .build());
+        }
+
+        List<ProductionCountry> countries = movie.production_countries();
+        for (int position = 0; countries != null && position < countries.size(); position++) {
+            ProductionCountry country = countries.get(position);
+
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.CountryEntry.CONTENT_URI)
+                    .withValue(DatabaseContract.CountryEntry.COLUMN_ISO_3166_1, country.iso_3166_1())
+                    .withValue(DatabaseContract.CountryEntry.COLUMN_NAME, country.name())
+                    .build());
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.MovieCountryEntry.CONTENT_URI)
+                    .withValue(DatabaseContract.MovieCountryEntry.COLUMN_MOVIE_ID, movieId)
+                    .withValue(DatabaseContract.MovieCountryEntry.COLUMN_POSITION, position)
+                    .withValue(DatabaseContract.MovieCountryEntry.COLUMN_ISO_3166_1, country.iso_3166_1())
+                    .build());
+        }
+
+        List<SpokenLanguage> languages = movie.spoken_languages();
+        for (int position = 0; languages != null && position < languages.size(); position++) {
+            SpokenLanguage language = languages.get(position);
+
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.LanguageEntry.CONTENT_URI)
+                    .withValue(DatabaseContract.LanguageEntry.COLUMN_ISO_639_1, language.iso_639_1())
+                    .withValue(DatabaseContract.LanguageEntry.COLUMN_NAME, language.name())
+                    .build());
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.MovieLanguageEntry.CONTENT_URI)
+                    .withValue(DatabaseContract.MovieLanguageEntry.COLUMN_MOVIE_ID, movieId)
+                    .withValue(DatabaseContract.MovieLanguageEntry.COLUMN_POSITION, position)
+                    .withValue(DatabaseContract.MovieLanguageEntry.COLUMN_ISO_639_1, language.iso_639_1())
+                    .build());
+        }
+
+        apply(operations, movieId);
+    }
+
+    /**
+     * Queries the rows of a movie.
+     *
+     * @param uri        the table URI
+     * @param projection the columns to fetch
+     * @param movieId    the movie id
+     * @param sortOrder  sort order
+     * @return a cursor over the rows
+     * @since 1.3.0 2017/05/16
+     */
+    @Nullable
+    private Cursor query(Uri uri, String[] projection, long movieId, String sortOrder) {
+        return mContentResolver.query(uri, projection, MOVIE_SELECTION,
+                new String[]{String.valueOf(movieId)}, sortOrder);
+    }
+
+    /**
+     * Gets when the reviews or videos of a movie were last fetched.
+     *
+     * @param movieId the movie id
+     * @param kind    the fetch kind, see {@link DatabaseContract.FetchEntry#KIND_REVIEWS}
+     * @return the fetch time, in milliseconds, or {@literal null} if they were never fetched
+     * @since 1.3.0 2017/05/28
+     */
+    @Nullable
+    private Long getFetchedAt(long movieId, String kind) {
+        Cursor cursor = mContentResolver.query(DatabaseContract.FetchEntry.CONTENT_URI,
+                new String[]{DatabaseContract.FetchEntry.COLUMN_FETCHED_AT}, FETCH_SELECTION,
+                new String[]{String.valueOf(movieId), kind}, null);
+
+        if (cursor == null) {
+            return null;
+        }
+
+        try {
+            return cursor.moveToFirst() ? cursor.getLong(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Creates the operations recording a fetch of a movie and removing the expired fetches.
+     *
+     * @param kind    the fetch kind, see {@link DatabaseContract.FetchEntry#KIND_REVIEWS}
+     * @param movieId the movie id
+     * @param now     the current time, in milliseconds
+     * @return the operations
+     * @since 1.3.0 2017/05/28
+     */
+    private static List<ContentProviderOperation> fetchOperations(String kind, long movieId, long now) {
+        List<ContentProviderOperation> operations = new ArrayList<>(2);
+
+        operations.add(ContentProviderOperation.newDelete(DatabaseContract.FetchEntry.CONTENT_URI)
+                .withSelection(EXPIRED_SELECTION, new String[]{String.valueOf(now - RETENTION_MILLIS)})
+                .build());
+        // Replaces the previous fetch, see the table primary key
+        operations.add(ContentProviderOperation.newInsert(DatabaseContract.FetchEntry.CONTENT_URI)
+                .withValue(DatabaseContract.FetchEntry.COLUMN_MOVIE_ID, movieId)
+                .withValue(DatabaseContract.FetchEntry.COLUMN_KIND, kind)
+                .withValue(DatabaseContract.FetchEntry.COLUMN_FETCHED_AT, now)
+                .build());
+
+        return operations;
+    }
+
+    /**
+     * Creates the operations removing the previous rows of a movie and the expired ones.
+     *
+     * @param uri     the table URI
+     * @param movieId the movie id
+     * @param now     the current time, in milliseconds
+     * @return the operations, the new rows are added to it
+     * @since 1.3.0 2017/05/16
+     */
+    private static ArrayList<ContentProviderOperation> replaceOperations(Uri uri, long movieId, long now) {
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+
+        operations.add(ContentProviderOperation.newDelete(uri)
+                .withSelection(MOVIE_SELECTION, new String[]{String.valueOf(movieId)})
+                .build());
+        operations.add(ContentProviderOperation.newDelete(uri)
+                .withSelection(EXPIRED_SELECTION, new String[]{String.valueOf(now - RETENTION_MILLIS)})
+                .build());
+
+        return operations;
+    }
+
+    /**
+     * Applies the operations as a single batch.
+     *
+     * @param operations the operations
+     * @param movieId    the movie id, for logging
+     * @since 1.3.0 2017/05/16
+     */
+    private void apply(ArrayList<ContentProviderOperation> operations, long movieId) {
+        try {
+            mContentResolver.applyBatch(DatabaseContract.CONTENT_AUTHORITY, operations);
+        } catch (RemoteException | OperationApplicationException e) {
+            // The detail is still shown, it just won't be available offline
+            Timber.e(e, "Could not store the details of the movie %d", movieId);
+        }
+    }
+
+    /**
+     * Stored rows and the time the oldest of them was fetched
+     *
+     * @param <T> the stored collection type
+     * @since 1.3.0 2017/05/16
+     */
+    public static class Stored<T> {
+        private final T mValue;
+        private final long mFetchedAt;
+
+        Stored(T value, long fetchedAt) {
+            this.mValue = value;
+            this.mFetchedAt = fetchedAt;
+        }
+
+        /**
+         * @return the stored collection
+         * @since 1.3.0 2017/05/16
+         */
+        public T getValue() {
+            return mValue;
+        }
+
+        /**
+         * Checks if the rows are recent enough to skip the network.
+         *
+         * @param maxAgeMillis the max rows age
+         * @return {@literal true} if the rows were fetched within the max age
+         * @since 1.3.0 2017/05/16
+         */
+        public boolean isFresh(long maxAgeMillis) {
+            return System.currentTimeMillis() - mFetchedAt < maxAgeMillis;
+        }
+    }
+}
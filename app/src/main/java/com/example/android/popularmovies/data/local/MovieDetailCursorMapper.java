@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.database.Cursor;
+import android.text.TextUtils;
+
+import com.example.android.popularmovies.data.model.Genre;
+import com.example.android.popularmovies.data.model.Movie;
+import com.example.android.popularmovies.data.model.ProductionCompany;
+import com.example.android.popularmovies.data.model.ProductionCountry;
+import com.example.android.popularmovies.data.model.SpokenLanguage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the detail query of the {@link DatabaseContract.MovieDetailEntry} URI into full
+ * movies, with their genres, production companies, production countries and spoken languages.
+ * The trailers and reviews are stored apart, see {@link MovieDetailCacheHelper}.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/27
+ * @see DatabaseContract.MovieDetailEntry#DETAIL_COLUMNS
+ * @since 1.3.0 2017/05/27
+ */
+public class MovieDetailCursorMapper extends CursorMapper<Movie> {
+    private static final Pattern RECORDS = Pattern.compile(DatabaseContract.MovieDetailEntry.RECORD_SEPARATOR);
+    private static final Pattern FIELDS = Pattern.compile(DatabaseContract.MovieDetailEntry.FIELD_SEPARATOR);
+
+    /**
+     * Sorts the concatenated rows by their position
+     */
+    private static final Comparator<String[]> BY_POSITION = new Comparator<String[]>() {
+        @Override
+        public int compare(String[] lhs, String[] rhs) {
+            int lhsPosition = Integer.parseInt(lhs[0]);
+            int rhsPosition = Integer.parseInt(rhs[0]);
+            return lhsPosition < rhsPosition ? -1 : (lhsPosition == rhsPosition ? 0 : 1);
+        }
+    };
+
+    private final MovieCursorMapper mMovieMapper;
+    private final int mAdult;
+    private final int mVideo;
+    private final int mBudget;
+    private final int mHomepage;
+    private final int mImdbId;
+    private final int mRevenue;
+    private final int mRuntime;
+    private final int mStatus;
+    private final int mTagline;
+    private final int mFetchedAt;
+    private final int mGenres;
+    private final int mCompanies;
+    private final int mCountries;
+    private final int mLanguages;
+
+    /**
+     * Constructor
+     *
+     * @param cursor the cursor to map, must include the movie id
+     * @throws IllegalArgumentException if the cursor has no movie id column
+     * @since 1.3.0 2017/05/27
+     */
+    public MovieDetailCursorMapper(Cursor cursor) {
+        super(cursor);
+        mMovieMapper = new MovieCursorMapper(cursor);
+        mAdult = index(DatabaseContract.MovieDetailEntry.COLUMN_ADULT);
+        mVideo = index(DatabaseContract.MovieDetailEntry.COLUMN_VIDEO);
+        mBudget = index(DatabaseContract.MovieDetailEntry.COLUMN_BUDGET);
+        mHomepage = index(DatabaseContract.MovieDetailEntry.COLUMN_HOMEPAGE);
+        mImdbId = index(DatabaseContract.MovieDetailEntry.COLUMN_IMDB_ID);
+        mRevenue = index(DatabaseContract.MovieDetailEntry.COLUMN_REVENUE);
+        mRuntime = index(DatabaseContract.MovieDetailEntry.COLUMN_RUNTIME);
+        mStatus = index(DatabaseContract.MovieDetailEntry.COLUMN_STATUS);
+        mTagline = index(DatabaseContract.MovieDetailEntry.COLUMN_TAGLINE);
+        mFetchedAt = index(DatabaseContract.MovieDetailEntry.COLUMN_FETCHED_AT);
+        mGenres = index(DatabaseContract.MovieDetailEntry.COLUMN_GENRES);
+        mCompanies = index(DatabaseContract.MovieDetailEntry.COLUMN_PRODUCTION_COMPANIES);
+        mCountries = index(DatabaseContract.MovieDetailEntry.COLUMN_PRODUCTION_COUNTRIES);
+        mLanguages = index(DatabaseContract.MovieDetailEntry.COLUMN_SPOKEN_LANGUAGES);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Movie read() {
+        return mMovieMapper.read().toBuilder()
+                .setAdult(isNull(mAdult) ? null : getInt(mAdult) != 0)
+                .setVideo(isNull(mVideo) ? null : getInt(mVideo) != 0)
+                .setBudget(isNull(mBudget) ? null : getInt(mBudget))
+                .setHomepage(isNull(mHomepage) ? null : getString(mHomepage))
+                .setImdb_id(isNull(mImdbId) ? null : getString(mImdbId))
+                .setRevenue(isNull(mRevenue) ? null : getLong(mRevenue))
+                .setRuntime(isNull(mRuntime) ? null : getInt(mRuntime))
+                .setStatus(isNull(mStatus) ? null : getString(mStatus))
+                .setTagline(isNull(mTagline) ? null : getString(mTagline))
+                .setGenres(readGenres())
+                .setProduction_companies(readCompanies())
+                .setProduction_countries(readCountries())
+                .setSpoken_languages(readLanguages())
+                .build();
+    }
+
+    /**
+     * @return when the details of the current row were fetched, in milliseconds
+     * @since 1.3.0 2017/05/27
+     */
+    public long getFetchedAt() {
+        return getLong(mFetchedAt);
+    }
+
+    /**
+     * @param index the column index
+     * @return {@literal true} if the column is missing or null
+     */
+    private boolean isNull(int index) {
+        return index == MISSING || mCursor.isNull(index);
+    }
+
+    private List<Genre> readGenres() {
+        List<String[]> rows = split(mGenres);
+        List<Genre> genres = new ArrayList<>(rows.size());
+        for (String[] row : rows) {
+            genres.add(Genre.builder().setId(Integer.valueOf(row[1])).setName(row[2]).build());
+        }
+        return genres;
+    }
+
+    private List<ProductionCompany> readCompanies() {
+        List<String[]> rows = split(mCompanies);
+        List<ProductionCompany> companies = new ArrayList<>(rows.size());
+        for (String[] row : rows) {
+            companies.add(ProductionCompany.builder().setId(Integer.valueOf(row[1])).setName(row[2]).build());
+        }
+        return companies;
+    }
+
+    private List<ProductionCountry> readCountries() {
+        List<String[]> rows = split(mCountries);
+        List<ProductionCountry> countries = new ArrayList<>(rows.size());
+        for (String[] row : rows) {
+            countries.add(ProductionCountry.builder().setIso_3166_1(row[1]).setName(row[2]).build());
+        }
+        return countries;
+    }
+
+    private List<SpokenLanguage> readLanguages() {
+        List<String[]> rows = split(mLanguages);
+        List<SpokenLanguage> languages = new ArrayList<>(rows.size());
+        for (String[] row : rows) {
+            languages.add(SpokenLanguage.builder().setIso_639_1(row[1]).setName(row[2]).build());
+        }
+        return languages;
+    }
+
+    /**
+     * Splits a concatenated column into its rows.
+     *
+     * @param index the column index
+     * @return the position, key and name of each row, by position
+     */
+    private List<String[]> split(int index) {
+        String concatenated = getString(index);
+
+        if (TextUtils.isEmpty(concatenated)) {
+            return new ArrayList<>(0);
+        }
+
+        String[] records = RECORDS.split(concatenated);
+        List<String[]> rows = new ArrayList<>(records.length);
+        for (String record : records) {
+            // The name is last, an empty one is kept
+            rows.add(FIELDS.split(record, 3));
+        }
+
+        Collections.sort(rows, BY_POSITION);
+
+        return rows;
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.os.RemoteException;
+import android.support.annotation.Nullable;
+
+import com.example.android.popularmovies.data.model.Movie;
+import com.example.android.popularmovies.data.model.MovieCollection;
+import com.example.android.popularmovies.injection.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import timber.log.Timber;
+
+/**
+ * Reads and writes the offline copy of the remote movie lists, each page is stored with its
+ * ordered movie ids and the time it was fetched.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/27
+ * @see MoviesProvider
+ * @since 1.3.0 2017/05/15
+ */
+@Singleton
+public class MovieListCacheHelper {
+    /**
+     * Selection of a single list page
+     */
+    private static final String PAGE_SELECTION =
+            DatabaseContract.ListPageEntry.COLUMN_LIST + " = ? AND " +
+                    DatabaseContract.ListPageEntry.COLUMN_PAGE + " = ? AND " +
+                    DatabaseContract.ListPageEntry.COLUMN_LANGUAGE + " = ?";
+
+    /**
+     * Selection of the movies nothing references anymore, the stored details keep their movie
+     * until they expire
+     */
+    private static final String ORPHAN_MOVIES_SELECTION =
+            DatabaseContract.MovieEntry._ID + " NOT IN (SELECT " +
+                    DatabaseContract.FavouriteEntry.COLUMN_MOVIE_ID + " FROM " +
+                    DatabaseContract.FavouriteEntry.TABLE_NAME + ") AND " +
+                    DatabaseContract.MovieEntry._ID + " NOT IN (SELECT " +
+                    DatabaseContract.ListMovieEntry.COLUMN_MOVIE_ID + " FROM " +
+                    DatabaseContract.ListMovieEntry.TABLE_NAME + ") AND " +
+                    DatabaseContract.MovieEntry._ID + " NOT IN (SELECT " +
+                    DatabaseContract.MovieDetailEntry.COLUMN_MOVIE_ID + " FROM " +
+                    DatabaseContract.MovieDetailEntry.TABLE_NAME + ")";
+
+    /**
+     * The application content resolver
+     */
+    private final ContentResolver mContentResolver;
+
+    /**
+     * Constructor
+     *
+     * @param context the application context
+     * @since 1.3.0 2017/05/15
+     */
+    @Inject
+    public MovieListCacheHelper(@ApplicationContext Context context) {
+        this.mContentResolver = context.getContentResolver();
+    }
+
+    /**
+     * Gets a stored list page.
+     *
+     * @param list     the list name, see {@link DatabaseContract.ListPageEntry#LIST_POPULAR}
+     * @param page     the page number
+     * @param language the list language, {@literal null} for the API default
+     * @return the stored page, or {@literal null} if the page was never stored
+     * @since 1.3.0 2017/05/15
+     */
+    @Nullable
+    public CachedPage getPage(String list, int page, @Nullable String language) {
+        String[] selectionArgs = {list, String.valueOf(page), language(language)};
+        int totalPages;
+        int totalResults;
+        long fetchedAt;
+
+        Cursor cursor = mContentResolver.query(DatabaseContract.ListPageEntry.CONTENT_URI,
+                DatabaseContract.ListPageEntry.ALL_COLUMNS, PAGE_SELECTION, selectionArgs, null);
+
+        if (cursor == null) {
+            return null;
+        }
+
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+
+            totalPages = cursor.getInt(cursor.getColumnIndex(DatabaseContract.ListPageEntry.COLUMN_TOTAL_PAGES));
+            totalResults = cursor.getInt(cursor.getColumnIndex(DatabaseContract.ListPageEntry.COLUMN_TOTAL_RESULTS));
+            fetchedAt = cursor.getLong(cursor.getColumnIndex(DatabaseContract.ListPageEntry.COLUMN_FETCHED_AT));
+        } finally {
+            cursor.close();
+        }
+
+        List<Movie> results = new ArrayList<>();
+        cursor = mContentResolver.query(DatabaseContract.ListMovieEntry.CONTENT_URI,
+                DatabaseContract.MovieEntry.ALL_COLUMNS, PAGE_SELECTION, selectionArgs,
+                DatabaseContract.ListMovieEntry.COLUMN_POSITION);
+
+        if (cursor != null) {
+            try {
+                results = new MovieCursorMapper(cursor).readAll();
+            } finally {
+                cursor.close();
+            }
+        }
+
+        MovieCollection collection = MovieCollection.builder()
+                .setPage(page)
+                .setResults(results)
+                .setTotal_pages(totalPages)
+                .setTotal_results(totalResults)
+                .build();
+
+        return new CachedPage(collection, fetchedAt);
+    }
+
+    /**
+     * Stores a list page, replacing the previous copy, in a single transaction. The movies
+     * no longer referenced by any list nor the favourites are removed.
+     *
+     * @param list       the list name, see {@link DatabaseContract.ListPageEntry#LIST_POPULAR}
+     * @param language   the list language, {@literal null} for the API default
+     * @param collection the page to store
+     * @since 1.3.0 2017/05/15
+     */
+    public void putPage(String list, @Nullable String language, MovieCollection collection) {
+        String[] selectionArgs = {list, String.valueOf(collection.page()), language(language)};
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+
+        operations.add(ContentProviderOperation.newDelete(DatabaseContract.ListMovieEntry.CONTENT_URI)
+                .withSelection(PAGE_SELECTION, selectionArgs)
+                .build());
+
+        List<Movie> results = collection.results();
+        for (int position = 0; position < results.size(); position++) {
+            Movie movie = results.get(position);
+
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.MovieEntry.CONTENT_URI)
+                    .withValues(Movie.toContentValues(movie))
+                    .build());
+            operations.add(ContentProviderOperation.newInsert(DatabaseContract.ListMovieEntry.CONTENT_URI)
+                    .withValue(DatabaseContract.ListMovieEntry.COLUMN_LIST, list)
+                    .withValue(DatabaseContract.ListMovieEntry.COLUMN_PAGE, collection.page())
+                    .withValue(DatabaseContract.ListMovieEntry.COLUMN_LANGUAGE, language(language))
+                    .withValue(DatabaseContract.ListMovieEntry.COLUMN_POSITION, position)
+                    .withValue(DatabaseContract.ListMovieEntry.COLUMN_MOVIE_ID, movie.id())
+                    .build());
+        }
+
+        operations.add(ContentProviderOperation.newInsert(DatabaseContract.ListPageEntry.CONTENT_URI)
+                .withValue(DatabaseContract.ListPageEntry.COLUMN_LIST, list)
+                .withValue(DatabaseContract.ListPageEntry.COLUMN_PAGE, collection.page())
+                .withValue(DatabaseContract.ListPageEntry.COLUMN_LANGUAGE, language(language))
+                .withValue(DatabaseContract.ListPageEntry.COLUMN_TOTAL_PAGES, collection.total_pages())
+                .withValue(DatabaseContract.ListPageEntry.COLUMN_TOTAL_RESULTS, collection.total_results())
+                .withValue(DatabaseContract.ListPageEntry.COLUMN_FETCHED_AT, System.currentTimeMillis())
+                .build());
+
+        operations.add(ContentProviderOperation.newDelete(DatabaseContract.MovieEntry.CONTENT_URI)
+                .withSelection(ORPHAN_MOVIES_SELECTION, null)
+                .build());
+
+        try {
+            mContentResolver.applyBatch(DatabaseContract.CONTENT_AUTHORITY, operations);
+        } catch (RemoteException | OperationApplicationException e) {
+            // The page is still shown, it just won't be available offline
+            Timber.e(e, "Could not store the %s list page %d", list, collection.page());
+        }
+    }
+
+    /**
+     * The stored language value, the API default is stored as an empty string so it's part
+     * of the page key.
+     *
+     * @param language the list language
+     * @return the stored value
+     * @since 1.3.0 2017/05/15
+     */
+    private static String language(@Nullable String language) {
+        return language != null ? language : "";
+    }
+
+    /**
+     * A stored list page and the time it was fetched
+     *
+     * @since 1.3.0 2017/05/15
+     */
+    public static class CachedPage {
+        private final MovieCollection mCollection;
+        private final long mFetchedAt;
+
+        CachedPage(MovieCollection collection, long fetchedAt) {
+            this.mCollection = collection;
+            this.mFetchedAt = fetchedAt;
+        }
+
+        /**
+         * @return the stored page
+         * @since 1.3.0 2017/05/15
+         */
+        public MovieCollection getCollection() {
+            return mCollection;
+        }
+
+        /**
+         * Checks if the page is recent enough to skip the network.
+         *
+         * @param maxAgeMillis the max page age
+         * @return {@literal true} if the page was fetched within the max age
+         * @since 1.3.0 2017/05/15
+         */
+        public boolean isFresh(long maxAgeMillis) {
+            return System.currentTimeMillis() - mFetchedAt < maxAgeMillis;
+        }
+    }
+}
@@ -17,21 +17,51 @@
 package com.example.android.popularmovies.data.local;
 
 import android.content.ContentProvider;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentUris;
 import android.content.ContentValues;
+import android.content.OperationApplicationException;
 import android.content.UriMatcher;
 import android.database.Cursor;
+import android.database.MatrixCursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteQueryBuilder;
 import android.net.Uri;
+import android.os.Bundle;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 /**
  * Application local storage ContentProvider implementation.
+ * <p>
+ * Stores the favourite movies and an offline copy of the remote movie lists, every movie is
+ * stored once on the movies table and referenced by the favourites and the list pages. The
+ * reviews and videos of the opened movies are stored too.
+ * <p>
+ * The hot favourite operations run precompiled statements, see {@link FavouriteStatements}:
+ * the single favourite URIs delete and mark by id, and {@link #call(String, String, Bundle)}
+ * checks and counts the favourites without opening a cursor.
+ * <p>
+ * The stored movies are searched through a full-text index, see
+ * {@link DatabaseContract.MovieSearchEntry}.
+ * <p>
+ * The writes of single movies and favourites notify the URI of the row, see
+ * {@link DatabaseContract.MovieEntry#buildMovieUri(long)}, so the observers know which movies
+ * changed. The collection observers still get them, a cursor observes the descendants of its
+ * URI too. A batch changing many rows notifies their collections instead.
+ * <p>
+ * The details of the opened movies are stored normalized, the genres, companies, countries
+ * and languages once and referenced from junction tables. The single movie details URI reads
+ * them back in one query, see {@link DatabaseContract.MovieDetailEntry#DETAIL_COLUMNS}.
  *
  * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
- * @version 1.0.2 2017/04/04
+ * @version 1.3.0 2017/05/28
  * @see ContentProvider
  * @since 1.0.2 2017/04/04
  */
@@ -42,6 +72,101 @@ public class MoviesProvider extends ContentProvider {
      */
     public static final int FAVOURITES = 1983;
 
+    /**
+     * The code for every stored movie
+     */
+    public static final int MOVIES = 1984;
+
+    /**
+     * The code for the cached list pages
+     */
+    public static final int LIST_PAGES = 1985;
+
+    /**
+     * The code for the movies of the cached list pages
+     */
+    public static final int LIST_MOVIES = 1986;
+
+    /**
+     * The code for the stored movie reviews
+     */
+    public static final int REVIEWS = 1987;
+
+    /**
+     * The code for the stored movie videos
+     */
+    public static final int VIDEOS = 1988;
+
+    /**
+     * The code for a single favourite movie
+     */
+    public static final int FAVOURITE_ID = 1989;
+
+    /**
+     * The code for the stored movies search
+     */
+    public static final int SEARCH = 1990;
+
+    /**
+     * The code for a single stored movie
+     */
+    public static final int MOVIE_ID = 1991;
+
+    /**
+     * The code for the stored movie details
+     */
+    public static final int MOVIE_DETAILS = 1992;
+
+    /**
+     * The code for the stored details of a single movie
+     */
+    public static final int MOVIE_DETAIL_ID = 1993;
+
+    /**
+     * The code for the stored genres
+     */
+    public static final int GENRES = 1994;
+
+    /**
+     * The code for the stored production companies
+     */
+    public static final int COMPANIES = 1995;
+
+    /**
+     * The code for the stored production countries
+     */
+    public static final int COUNTRIES = 1996;
+
+    /**
+     * The code for the stored spoken languages
+     */
+    public static final int LANGUAGES = 1997;
+
+    /**
+     * The code for the genres of the stored movie details
+     */
+    public static final int MOVIE_GENRES = 1998;
+
+    /**
+     * The code for the production companies of the stored movie details
+     */
+    public static final int MOVIE_COMPANIES = 1999;
+
+    /**
+     * The code for the production countries of the stored movie details
+     */
+    public static final int MOVIE_COUNTRIES = 2000;
+
+    /**
+     * The code for the spoken languages of the stored movie details
+     */
+    public static final int MOVIE_LANGUAGES = 2001;
+
+    /**
+     * The code for the fetches of the stored reviews and videos
+     */
+    public static final int FETCHES = 2002;
+
     /**
      * The UriMatcher
      */
@@ -52,11 +177,44 @@ public class MoviesProvider extends ContentProvider {
      */
     private static final String FAILED_TO_INSERT_ROW_INTO = "Failed to insert row into ";
 
+    /**
+     * Rows written before giving other threads a chance to use the database on long batches
+     */
+    private static final int YIELD_BATCH_SIZE = 50;
+
+    /**
+     * Rows notified one by one on a batch, above this their collections are notified instead,
+     * the observers would requery anyway
+     */
+    private static final int MAX_ROW_NOTIFICATIONS = 32;
+
+    /**
+     * Selection of a single movie
+     */
+    private static final String MOVIE_ID_SELECTION = DatabaseContract.MovieEntry._ID + " = ?";
+
+    /**
+     * Selection of the details of a single movie
+     */
+    private static final String MOVIE_DETAIL_SELECTION = DatabaseContract.MovieDetailEntry.TABLE_NAME + "." +
+            DatabaseContract.MovieDetailEntry.COLUMN_MOVIE_ID + " = ?";
+
     /**
      * The SQLite database helper
      */
     private SQLiteHelper mSqLiteHelper;
 
+    /**
+     * The precompiled favourite statements, created on first use
+     */
+    private volatile FavouriteStatements mFavouriteStatements;
+
+    /**
+     * The URIs changed by the batch running on the current thread, {@literal null} when no
+     * batch is running, they are notified once the batch commits
+     */
+    private final ThreadLocal<Set<Uri>> mBatchChanges = new ThreadLocal<>();
+
     /**
      * @return the UriMatcher
      * @see UriMatcher
@@ -66,7 +224,26 @@ public class MoviesProvider extends ContentProvider {
         final UriMatcher uriMatcher = new UriMatcher(UriMatcher.NO_MATCH);
         final String authority = DatabaseContract.CONTENT_AUTHORITY;
 
-        uriMatcher.addURI(authority, DatabaseContract.PATH_MOVIES + "/", FAVOURITES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_FAVOURITES + "/", FAVOURITES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_FAVOURITES + "/#", FAVOURITE_ID);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_MOVIES + "/", MOVIES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_MOVIES + "/#", MOVIE_ID);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_LIST_PAGES + "/", LIST_PAGES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_LIST_MOVIES + "/", LIST_MOVIES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_REVIEWS + "/", REVIEWS);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_VIDEOS + "/", VIDEOS);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_SEARCH + "/", SEARCH);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_MOVIE_DETAILS + "/", MOVIE_DETAILS);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_MOVIE_DETAILS + "/#", MOVIE_DETAIL_ID);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_GENRES + "/", GENRES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_COMPANIES + "/", COMPANIES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_COUNTRIES + "/", COUNTRIES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_LANGUAGES + "/", LANGUAGES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_MOVIE_GENRES + "/", MOVIE_GENRES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_MOVIE_COMPANIES + "/", MOVIE_COMPANIES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_MOVIE_COUNTRIES + "/", MOVIE_COUNTRIES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_MOVIE_LANGUAGES + "/", MOVIE_LANGUAGES);
+        uriMatcher.addURI(authority, DatabaseContract.PATH_FETCHES + "/", FETCHES);
 
         return uriMatcher;
     }
@@ -81,6 +258,25 @@ public class MoviesProvider extends ContentProvider {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The database stays open for the provider lifetime, the writes don't close it anymore so
+     * SQLite keeps its page cache and compiled statements. It's only closed here, which the
+     * framework only calls from tests.
+     */
+    @Override
+    public void shutdown() {
+        synchronized (this) {
+            if (mFavouriteStatements != null) {
+                mFavouriteStatements.close();
+                mFavouriteStatements = null;
+            }
+        }
+        mSqLiteHelper.close();
+        super.shutdown();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -88,19 +284,72 @@ public class MoviesProvider extends ContentProvider {
     @Override
     public Cursor query(@NonNull Uri uri, @Nullable String[] projection, @Nullable String selection,
                         @Nullable String[] selectionArgs, @Nullable String sortOrder) {
-        // Normally we would have a lot of queries here, but the app only implements one (for now)
-        // since the application only stores the favourite movies and does not perform any sync
-        // with other network resources (like storing the most popular movies or the highest rated)
         int match = URI_MATCHER.match(uri);
+        String limit = uri.getQueryParameter(DatabaseContract.QUERY_PARAMETER_LIMIT);
 
         // The output cursor
         Cursor cursor;
 
         switch (match) {
             case FAVOURITES:
-                cursor = getFavouriteMovies(DatabaseContract.MovieEntry.ALL_COLUMNS, selection,
+                cursor = getFavouriteMovies(projection != null ? projection : DatabaseContract.MovieEntry.ALL_COLUMNS,
+                        selection, selectionArgs, sortOrder, limit);
+                break;
+            case FAVOURITE_ID:
+                cursor = getFavouriteMovies(projection != null ? projection : DatabaseContract.MovieEntry.ALL_COLUMNS,
+                        DatabaseContract.FavouriteEntry.TABLE_NAME + "." +
+                                DatabaseContract.FavouriteEntry.COLUMN_MOVIE_ID + " = ?",
+                        new String[]{String.valueOf(ContentUris.parseId(uri))}, null, null);
+                break;
+            case MOVIES:
+                cursor = queryTable(DatabaseContract.MovieEntry.TABLE_NAME, projection, selection,
                         selectionArgs, sortOrder);
                 break;
+            case MOVIE_ID:
+                cursor = queryTable(DatabaseContract.MovieEntry.TABLE_NAME, projection, MOVIE_ID_SELECTION,
+                        new String[]{String.valueOf(ContentUris.parseId(uri))}, null);
+                break;
+            case LIST_PAGES:
+                cursor = queryTable(DatabaseContract.ListPageEntry.TABLE_NAME, projection, selection,
+                        selectionArgs, sortOrder);
+                break;
+            case LIST_MOVIES:
+                cursor = queryTable(DatabaseContract.ListMovieEntry.JOIN_MOVIES, projection, selection,
+                        selectionArgs, sortOrder);
+                break;
+            case REVIEWS:
+                cursor = queryTable(DatabaseContract.ReviewEntry.TABLE_NAME, projection, selection,
+                        selectionArgs, sortOrder);
+                break;
+            case VIDEOS:
+                cursor = queryTable(DatabaseContract.VideoEntry.TABLE_NAME, projection, selection,
+                        selectionArgs, sortOrder);
+                break;
+            case FETCHES:
+                cursor = queryTable(DatabaseContract.FetchEntry.TABLE_NAME, projection, selection,
+                        selectionArgs, sortOrder);
+                break;
+            case SEARCH:
+                cursor = searchMovies(projection != null ? projection : DatabaseContract.MovieEntry.ALL_COLUMNS,
+                        uri.getQueryParameter(DatabaseContract.MovieSearchEntry.QUERY_PARAMETER_QUERY), limit);
+                break;
+            case MOVIE_DETAIL_ID:
+                // The full movie in one query, the projection is fixed
+                cursor = queryTable(DatabaseContract.MovieDetailEntry.JOIN_MOVIES,
+                        DatabaseContract.MovieDetailEntry.DETAIL_COLUMNS, MOVIE_DETAIL_SELECTION,
+                        new String[]{String.valueOf(ContentUris.parseId(uri))}, null);
+                break;
+            case MOVIE_DETAILS:
+            case GENRES:
+            case COMPANIES:
+            case COUNTRIES:
+            case LANGUAGES:
+            case MOVIE_GENRES:
+            case MOVIE_COMPANIES:
+            case MOVIE_COUNTRIES:
+            case MOVIE_LANGUAGES:
+                cursor = queryTable(detailTable(match), projection, selection, selectionArgs, sortOrder);
+                break;
             default:
                 return null;
         }
@@ -116,13 +365,48 @@ public class MoviesProvider extends ContentProvider {
     @Nullable
     @Override
     public String getType(@NonNull Uri uri) {
-        // Normally we would have a lot of URis here, but the app only implements one (for now)
-        // since the application only stores the favourite movies and does not perform any sync
-        // with other network resources (like storing the most popular movies or the highest rated)
         final int match = URI_MATCHER.match(uri);
         switch (match) {
             case FAVOURITES:
+                return DatabaseContract.FavouriteEntry.CONTENT_DIR_TYPE;
+            case FAVOURITE_ID:
+                return DatabaseContract.FavouriteEntry.CONTENT_ITEM_TYPE;
+            case MOVIES:
                 return DatabaseContract.MovieEntry.CONTENT_DIR_TYPE;
+            case MOVIE_ID:
+                return DatabaseContract.MovieEntry.CONTENT_ITEM_TYPE;
+            case LIST_PAGES:
+                return DatabaseContract.ListPageEntry.CONTENT_DIR_TYPE;
+            case LIST_MOVIES:
+                return DatabaseContract.ListMovieEntry.CONTENT_DIR_TYPE;
+            case REVIEWS:
+                return DatabaseContract.ReviewEntry.CONTENT_DIR_TYPE;
+            case VIDEOS:
+                return DatabaseContract.VideoEntry.CONTENT_DIR_TYPE;
+            case FETCHES:
+                return DatabaseContract.FetchEntry.CONTENT_DIR_TYPE;
+            case SEARCH:
+                return DatabaseContract.MovieSearchEntry.CONTENT_DIR_TYPE;
+            case MOVIE_DETAILS:
+                return DatabaseContract.MovieDetailEntry.CONTENT_DIR_TYPE;
+            case MOVIE_DETAIL_ID:
+                return DatabaseContract.MovieDetailEntry.CONTENT_ITEM_TYPE;
+            case GENRES:
+                return DatabaseContract.GenreEntry.CONTENT_DIR_TYPE;
+            case COMPANIES:
+                return DatabaseContract.CompanyEntry.CONTENT_DIR_TYPE;
+            case COUNTRIES:
+                return DatabaseContract.CountryEntry.CONTENT_DIR_TYPE;
+            case LANGUAGES:
+                return DatabaseContract.LanguageEntry.CONTENT_DIR_TYPE;
+            case MOVIE_GENRES:
+                return DatabaseContract.MovieGenreEntry.CONTENT_DIR_TYPE;
+            case MOVIE_COMPANIES:
+                return DatabaseContract.MovieCompanyEntry.CONTENT_DIR_TYPE;
+            case MOVIE_COUNTRIES:
+                return DatabaseContract.MovieCountryEntry.CONTENT_DIR_TYPE;
+            case MOVIE_LANGUAGES:
+                return DatabaseContract.MovieLanguageEntry.CONTENT_DIR_TYPE;
             default:
                 return null;
         }
@@ -130,25 +414,100 @@ public class MoviesProvider extends ContentProvider {
 
     /**
      * {@inheritDoc}
+     *
+     * @return the URI of the inserted row for the movies and the favourites, the given URI for
+     * the other tables
      */
     @Nullable
     @Override
     public Uri insert(@NonNull Uri uri, @Nullable ContentValues values) {
+        final int match = URI_MATCHER.match(uri);
+        SQLiteDatabase db = mSqLiteHelper.getWritableDatabase();
+
+        long id = insertRow(db, match, uri, values);
+        if (id <= 0) {
+            throw new SQLException(FAILED_TO_INSERT_ROW_INTO + uri);
+        }
 
+        Uri rowUri = rowUri(match, uri, id);
+        notifyChange(rowUri);
+
+        return rowUri;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Inserts every row in a single transaction and notifies the changes once it commits, a
+     * row already stored gets replaced.
+     */
+    @Override
+    public int bulkInsert(@NonNull Uri uri, @NonNull ContentValues[] values) {
         final int match = URI_MATCHER.match(uri);
-        Uri returnUri;
+        SQLiteDatabase db = mSqLiteHelper.getWritableDatabase();
+        Set<Uri> changes = new LinkedHashSet<>();
+        int inserted = 0;
 
-        switch (match) {
-            case FAVOURITES:
-                returnUri = insertFavourite(uri, values);
-                break;
-            default:
-                throw new UnsupportedOperationException("Unsupported URI: " + uri);
+        mBatchChanges.set(changes);
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < values.length; i++) {
+                long id = insertRow(db, match, uri, values[i]);
+                if (id > 0) {
+                    inserted++;
+                    notifyChange(rowUri(match, uri, id));
+                }
+
+                if (i > 0 && i % YIELD_BATCH_SIZE == 0) {
+                    db.yieldIfContendedSafely();
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            mBatchChanges.remove();
+        }
+
+        notifyChanges(changes);
+
+        return inserted;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Applies every operation in a single transaction, if any operation fails the whole
+     * batch is rolled back. The changed URIs are notified once, after the commit.
+     */
+    @NonNull
+    @Override
+    public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations)
+            throws OperationApplicationException {
+        SQLiteDatabase db = mSqLiteHelper.getWritableDatabase();
+        Set<Uri> changes = new LinkedHashSet<>();
+        ContentProviderResult[] results = new ContentProviderResult[operations.size()];
+
+        mBatchChanges.set(changes);
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < operations.size(); i++) {
+                ContentProviderOperation operation = operations.get(i);
+
+                if (i > 0 && (operation.isYieldAllowed() || i % YIELD_BATCH_SIZE == 0)) {
+                    db.yieldIfContendedSafely();
+                }
+
+                results[i] = operation.apply(this, results, i);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            mBatchChanges.remove();
         }
 
-        getContext().getContentResolver().notifyChange(uri, null);
+        notifyChanges(changes);
 
-        return returnUri;
+        return results;
     }
 
     /**
@@ -157,19 +516,56 @@ public class MoviesProvider extends ContentProvider {
     @Override
     public int delete(@NonNull Uri uri, @Nullable String selection, @Nullable String[] selectionArgs) {
         final int match = URI_MATCHER.match(uri);
+        SQLiteDatabase db = mSqLiteHelper.getWritableDatabase();
 
         int rowsDeleted;
 
         switch (match) {
             case FAVOURITES:
-                rowsDeleted = deleteFavourite(selection, selectionArgs);
+                rowsDeleted = db.delete(DatabaseContract.FavouriteEntry.TABLE_NAME, selection, selectionArgs);
+                break;
+            case FAVOURITE_ID:
+                rowsDeleted = getFavouriteStatements().delete(ContentUris.parseId(uri));
+                break;
+            case MOVIES:
+                rowsDeleted = db.delete(DatabaseContract.MovieEntry.TABLE_NAME, selection, selectionArgs);
+                break;
+            case MOVIE_ID:
+                rowsDeleted = db.delete(DatabaseContract.MovieEntry.TABLE_NAME, MOVIE_ID_SELECTION,
+                        new String[]{String.valueOf(ContentUris.parseId(uri))});
+                break;
+            case LIST_PAGES:
+                rowsDeleted = db.delete(DatabaseContract.ListPageEntry.TABLE_NAME, selection, selectionArgs);
+                break;
+            case LIST_MOVIES:
+                rowsDeleted = db.delete(DatabaseContract.ListMovieEntry.TABLE_NAME, selection, selectionArgs);
+                break;
+            case REVIEWS:
+                rowsDeleted = db.delete(DatabaseContract.ReviewEntry.TABLE_NAME, selection, selectionArgs);
+                break;
+            case VIDEOS:
+                rowsDeleted = db.delete(DatabaseContract.VideoEntry.TABLE_NAME, selection, selectionArgs);
+                break;
+            case FETCHES:
+                rowsDeleted = db.delete(DatabaseContract.FetchEntry.TABLE_NAME, selection, selectionArgs);
+                break;
+            case MOVIE_DETAILS:
+            case GENRES:
+            case COMPANIES:
+            case COUNTRIES:
+            case LANGUAGES:
+            case MOVIE_GENRES:
+            case MOVIE_COMPANIES:
+            case MOVIE_COUNTRIES:
+            case MOVIE_LANGUAGES:
+                rowsDeleted = db.delete(detailTable(match), selection, selectionArgs);
                 break;
             default:
                 throw new UnsupportedOperationException("Could not delete the record, Unsupported URI: " + uri);
         }
 
         if (rowsDeleted > 0) {
-            getContext().getContentResolver().notifyChange(uri, null);
+            notifyChange(uri);
         }
 
         return rowsDeleted;
@@ -182,106 +578,376 @@ public class MoviesProvider extends ContentProvider {
     public int update(@NonNull Uri uri, @Nullable ContentValues values, @Nullable String selection,
                       @Nullable String[] selectionArgs) {
         final int match = URI_MATCHER.match(uri);
+        SQLiteDatabase db = mSqLiteHelper.getWritableDatabase();
 
         int rowsUpdated;
         switch (match) {
             case FAVOURITES:
-                rowsUpdated = updateFavourite(values, selection, selectionArgs);
+            case MOVIES:
+                // The favourites only hold the ids, the movie data lives on the movies table
+                rowsUpdated = db.update(DatabaseContract.MovieEntry.TABLE_NAME, values, selection, selectionArgs);
+                break;
+            case MOVIE_ID:
+                rowsUpdated = db.update(DatabaseContract.MovieEntry.TABLE_NAME, values, MOVIE_ID_SELECTION,
+                        new String[]{String.valueOf(ContentUris.parseId(uri))});
+                break;
+            case LIST_PAGES:
+                rowsUpdated = db.update(DatabaseContract.ListPageEntry.TABLE_NAME, values, selection, selectionArgs);
                 break;
             default:
                 throw new UnsupportedOperationException("Could not update the record, Unsupported update URI: " + uri);
         }
         if (rowsUpdated != 0) {
-            getContext().getContentResolver().notifyChange(uri, null);
+            notifyChange(uri);
         }
 
         return rowsUpdated;
     }
 
     /**
-     * Gets all the user favourite movies.
+     * {@inheritDoc}
+     * <p>
+     * Runs the favourite lookups, see {@link DatabaseContract.FavouriteEntry#METHOD_EXISTS} and
+     * {@link DatabaseContract.FavouriteEntry#METHOD_COUNT}. They read a single value from a
+     * precompiled statement instead of materialising rows on a cursor.
+     */
+    @Nullable
+    @Override
+    public Bundle call(@NonNull String method, @Nullable String arg, @Nullable Bundle extras) {
+        Bundle result = new Bundle();
+
+        switch (method) {
+            case DatabaseContract.FavouriteEntry.METHOD_EXISTS:
+                if (arg == null) {
+                    throw new IllegalArgumentException("The movie id is required");
+                }
+                result.putBoolean(DatabaseContract.CALL_RESULT, getFavouriteStatements().exists(Long.parseLong(arg)));
+                break;
+            case DatabaseContract.FavouriteEntry.METHOD_COUNT:
+                result.putInt(DatabaseContract.CALL_RESULT, getFavouriteStatements().count());
+                break;
+            default:
+                return super.call(method, arg, extras);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the precompiled favourite statements
+     * @since 1.3.0 2017/05/22
+     */
+    private FavouriteStatements getFavouriteStatements() {
+        FavouriteStatements statements = mFavouriteStatements;
+        if (statements != null) {
+            return statements;
+        }
+
+        // Compiling needs the database connection, it must not wait for it holding the lock a
+        // thread in a transaction may be waiting for
+        statements = new FavouriteStatements(mSqLiteHelper.getWritableDatabase());
+        synchronized (this) {
+            if (mFavouriteStatements == null) {
+                mFavouriteStatements = statements;
+                return statements;
+            }
+        }
+
+        statements.close();
+        return mFavouriteStatements;
+    }
+
+    /**
+     * Notifies the changes of a batch, the rows one by one unless there are too many of them.
+     *
+     * @param changes the changed URIs
+     * @since 1.3.0 2017/05/25
+     */
+    private void notifyChanges(Set<Uri> changes) {
+        Set<Uri> notified = changes;
+
+        if (changes.size() > MAX_ROW_NOTIFICATIONS) {
+            notified = new LinkedHashSet<>();
+            for (Uri uri : changes) {
+                notified.add(collectionUri(uri));
+            }
+        }
+
+        for (Uri uri : notified) {
+            getContext().getContentResolver().notifyChange(uri, null);
+        }
+    }
+
+    /**
+     * @param match the URI match
+     * @param uri   the collection URI
+     * @param id    the row id
+     * @return the URI of the row for the movies and the favourites, the collection URI for the
+     * other tables
+     * @since 1.3.0 2017/05/25
+     */
+    private static Uri rowUri(int match, Uri uri, long id) {
+        switch (match) {
+            case MOVIES:
+                return DatabaseContract.MovieEntry.buildMovieUri(id);
+            case FAVOURITES:
+                return DatabaseContract.FavouriteEntry.buildFavouriteUri(id);
+            default:
+                return uri;
+        }
+    }
+
+    /**
+     * @param uri a changed URI
+     * @return the collection URI of a row URI, the URI itself otherwise
+     * @since 1.3.0 2017/05/25
+     */
+    private static Uri collectionUri(Uri uri) {
+        switch (URI_MATCHER.match(uri)) {
+            case MOVIE_ID:
+                return DatabaseContract.MovieEntry.CONTENT_URI;
+            case FAVOURITE_ID:
+                return DatabaseContract.FavouriteEntry.CONTENT_URI;
+            default:
+                return uri;
+        }
+    }
+
+    /**
+     * Notifies a change, or defers it to the end of the batch running on this thread.
+     *
+     * @param uri the changed URI
+     * @since 1.3.0 2017/05/14
+     */
+    private void notifyChange(Uri uri) {
+        Set<Uri> batchChanges = mBatchChanges.get();
+
+        if (batchChanges != null) {
+            batchChanges.add(uri);
+        } else {
+            getContext().getContentResolver().notifyChange(uri, null);
+        }
+    }
+
+    /**
+     * Gets the user favourite movies.
      *
      * @param projection    the columns to fetch
      * @param selection     the where clause
      * @param selectionArgs the where arguments
-     * @param sortOrder     sort order
+     * @param sortOrder     sort order, see {@link FavouritesOrder}
+     * @param limit         the max rows to return, {@literal null} for all of them
      * @return a cursor over the result set
      * @since 1.0.2 2017/04/04
      */
     private Cursor getFavouriteMovies(String[] projection, String selection,
-                                      String[] selectionArgs, String sortOrder) {
+                                      String[] selectionArgs, String sortOrder, String limit) {
+        return queryTable(DatabaseContract.FavouriteEntry.JOIN_MOVIES, projection, selection,
+                selectionArgs, sortOrder, limit);
+    }
+
+    /**
+     * Searches the stored movies on the full-text index. The movies with every word on the
+     * title go first, then the ones matching on the overview, each group by popularity.
+     *
+     * @param projection the movie columns to fetch
+     * @param text       the text to search, as the user typed it
+     * @param limit      the max rows to return, {@literal null} for all of them
+     * @return a cursor over the matching movies, empty if the text has no words
+     * @see SearchQuery
+     * @since 1.3.0 2017/05/23
+     */
+    private Cursor searchMovies(String[] projection, @Nullable String text, @Nullable String limit) {
+        SearchQuery query = SearchQuery.parse(text);
+
+        if (query == null) {
+            return new MatrixCursor(projection, 0);
+        }
+
+        // The FTS table has title and overview columns too, the projection reads the movie ones
+        String[] columns = new String[projection.length];
+        for (int i = 0; i < projection.length; i++) {
+            columns[i] = DatabaseContract.MovieEntry.TABLE_NAME + "." + projection[i];
+        }
+
+        // The title matches subquery doesn't depend on the row, SQLite runs it once
+        String docid = DatabaseContract.MovieSearchEntry.TABLE_NAME + "." +
+                DatabaseContract.MovieSearchEntry.COLUMN_DOCID;
+        String sortOrder = docid + " IN (SELECT " + DatabaseContract.MovieSearchEntry.COLUMN_DOCID +
+                " FROM " + DatabaseContract.MovieSearchEntry.TABLE_NAME + " WHERE " +
+                DatabaseContract.MovieSearchEntry.TABLE_NAME + " MATCH ?) DESC, " +
+                DatabaseContract.MovieEntry.TABLE_NAME + "." + DatabaseContract.MovieEntry.COLUMN_POPULARITY + " DESC";
+
+        String sql = SQLiteQueryBuilder.buildQueryString(false, DatabaseContract.MovieSearchEntry.JOIN_MOVIES,
+                columns, DatabaseContract.MovieSearchEntry.TABLE_NAME + " MATCH ?", null, null,
+                sortOrder, limit);
+
+        return mSqLiteHelper.getReadableDatabase().rawQuery(sql,
+                new String[]{query.getMatch(), query.getTitleMatch()});
+    }
+
+    /**
+     * Queries a table or a join.
+     *
+     * @param tables        the table or join to query
+     * @param projection    the columns to fetch
+     * @param selection     the where clause
+     * @param selectionArgs the where arguments
+     * @param sortOrder     sort order
+     * @return a cursor over the result set
+     * @since 1.3.0 2017/05/15
+     */
+    private Cursor queryTable(String tables, String[] projection, String selection,
+                              String[] selectionArgs, String sortOrder) {
+        return queryTable(tables, projection, selection, selectionArgs, sortOrder, null);
+    }
+
+    /**
+     * Queries a table or a join.
+     *
+     * @param tables        the table or join to query
+     * @param projection    the columns to fetch
+     * @param selection     the where clause
+     * @param selectionArgs the where arguments
+     * @param sortOrder     sort order
+     * @param limit         the max rows to return, {@literal null} for all of them
+     * @return a cursor over the result set
+     * @since 1.3.0 2017/05/19
+     */
+    private Cursor queryTable(String tables, String[] projection, String selection,
+                              String[] selectionArgs, String sortOrder, String limit) {
         SQLiteQueryBuilder sqLiteQueryBuilder = new SQLiteQueryBuilder();
 
-        sqLiteQueryBuilder.setTables(DatabaseContract.MovieEntry.TABLE_NAME);
+        sqLiteQueryBuilder.setTables(tables);
 
         return sqLiteQueryBuilder.query(mSqLiteHelper.getReadableDatabase(),
-                projection, selection, selectionArgs, null, null, sortOrder);
+                projection, selection, selectionArgs, null, null, sortOrder, limit);
     }
 
     /**
-     * Inserts a favourite movie.
+     * Inserts a row on the table of the given URI.
      *
-     * @param uri    The URI
-     * @param values The content values to insert
-     * @return the URI to notify
-     * @throws SQLException if the record could not be inserted
-     * @since 1.0.2 2017/04/04
+     * @param db     the writable database
+     * @param match  the URI match
+     * @param uri    the URI
+     * @param values the content values to insert
+     * @return the row id, -1 on error
+     * @throws UnsupportedOperationException if the URI can't be inserted into
+     * @since 1.3.0 2017/05/15
      */
-    @SuppressWarnings("TryFinallyCanBeTryWithResources")
-    private Uri insertFavourite(Uri uri, ContentValues values) throws SQLException {
-        SQLiteDatabase db = mSqLiteHelper.getWritableDatabase();
-
-        try {
-            long inserted = db.insert(DatabaseContract.MovieEntry.TABLE_NAME, null, values);
+    private long insertRow(SQLiteDatabase db, int match, Uri uri, ContentValues values) {
+        switch (match) {
+            case FAVOURITES:
+                long movieId = insertFavourite(db, values);
+                if (movieId > 0) {
+                    // The movie row is upserted with the favourite, its observers are told too
+                    notifyChange(DatabaseContract.MovieEntry.buildMovieUri(movieId));
+                }
+                return movieId;
+            case MOVIES:
+                return upsertMovie(db, values);
+            case LIST_PAGES:
+                // Replaces the stored page, see the table unique constraint
+                return db.insert(DatabaseContract.ListPageEntry.TABLE_NAME, null, values);
+            case LIST_MOVIES:
+                return db.insert(DatabaseContract.ListMovieEntry.TABLE_NAME, null, values);
+            case REVIEWS:
+                return db.insert(DatabaseContract.ReviewEntry.TABLE_NAME, null, values);
+            case VIDEOS:
+                return db.insert(DatabaseContract.VideoEntry.TABLE_NAME, null, values);
+            case FETCHES:
+                // Replaces the previous fetch, see the table primary key
+                return db.insert(DatabaseContract.FetchEntry.TABLE_NAME, null, values);
+            case MOVIE_DETAILS:
+            case GENRES:
+            case COMPANIES:
+            case COUNTRIES:
+            case LANGUAGES:
+            case MOVIE_GENRES:
+            case MOVIE_COMPANIES:
+            case MOVIE_COUNTRIES:
+            case MOVIE_LANGUAGES:
+                // Replaces the stored row, see the tables primary keys
+                return db.insert(detailTable(match), null, values);
+            default:
+                throw new UnsupportedOperationException("Unsupported URI: " + uri);
+        }
+    }
 
-            if (inserted > 0) {
-                return DatabaseContract.MovieEntry.CONTENT_URI;
-            } else {
-                throw new SQLException(FAILED_TO_INSERT_ROW_INTO + uri);
-            }
-        } finally {
-            db.close();
+    /**
+     * @param match the URI match of a movie details table
+     * @return the table name
+     * @throws IllegalArgumentException if the match is not a movie details table
+     * @since 1.3.0 2017/05/27
+     */
+    private static String detailTable(int match) {
+        switch (match) {
+            case MOVIE_DETAILS:
+                return DatabaseContract.MovieDetailEntry.TABLE_NAME;
+            case GENRES:
+                return DatabaseContract.GenreEntry.TABLE_NAME;
+            case COMPANIES:
+                return DatabaseContract.CompanyEntry.TABLE_NAME;
+            case COUNTRIES:
+                return DatabaseContract.CountryEntry.TABLE_NAME;
+            case LANGUAGES:
+                return DatabaseContract.LanguageEntry.TABLE_NAME;
+            case MOVIE_GENRES:
+                return DatabaseContract.MovieGenreEntry.TABLE_NAME;
+            case MOVIE_COMPANIES:
+                return DatabaseContract.MovieCompanyEntry.TABLE_NAME;
+            case MOVIE_COUNTRIES:
+                return DatabaseContract.MovieCountryEntry.TABLE_NAME;
+            case MOVIE_LANGUAGES:
+                return DatabaseContract.MovieLanguageEntry.TABLE_NAME;
+            default:
+                throw new IllegalArgumentException("Not a movie details table: " + match);
         }
     }
 
     /**
-     * Deletes a favourite movie.
+     * Stores a movie and marks it as favourite, keeping the date it was first added.
      *
-     * @param selection     the where clause
-     * @param selectionArgs the where arguments
-     * @return the deleted row count
-     * @throws SQLException if there is an error while deleting the record
+     * @param db     the writable database
+     * @param values the movie content values
+     * @return the movie id, -1 on error
+     * @throws SQLException if the record could not be inserted
      * @since 1.0.2 2017/04/04
      */
-    @SuppressWarnings("TryFinallyCanBeTryWithResources")
-    private int deleteFavourite(String selection, String[] selectionArgs) throws SQLException {
-        SQLiteDatabase db = mSqLiteHelper.getWritableDatabase();
-
+    private long insertFavourite(SQLiteDatabase db, ContentValues values) throws SQLException {
+        db.beginTransaction();
         try {
-            return db.delete(DatabaseContract.MovieEntry.TABLE_NAME, selection, selectionArgs);
+            long id = upsertMovie(db, values);
+
+            if (id > 0) {
+                getFavouriteStatements().insert(id, System.currentTimeMillis());
+                db.setTransactionSuccessful();
+            }
+
+            return id;
         } finally {
-            db.close();
+            db.endTransaction();
         }
     }
 
     /**
-     * Updates a favourite movie.
+     * Inserts a movie or updates the stored one, the columns not given keep their value.
      *
-     * @param values      the content values to update
-     * @param whereClause the where clause
-     * @param whereArgs   the where arguments
-     * @return the updated row count
-     * @throws SQLException if there is an error while updating the record
-     * @since 1.0.2 2017/04/04
+     * @param db     the writable database
+     * @param values the movie content values, must include the id
+     * @return the movie id, -1 on error
+     * @since 1.3.0 2017/05/15
      */
-    @SuppressWarnings("TryFinallyCanBeTryWithResources")
-    private int updateFavourite(ContentValues values, String whereClause, String[] whereArgs) throws SQLException {
-        SQLiteDatabase db = mSqLiteHelper.getWritableDatabase();
+    private long upsertMovie(SQLiteDatabase db, ContentValues values) {
+        Long id = values.getAsLong(DatabaseContract.MovieEntry._ID);
 
-        try {
-            return db.update(DatabaseContract.MovieEntry.TABLE_NAME, values, whereClause, whereArgs);
-        } finally {
-            db.close();
+        if (id == null) {
+            return -1;
         }
+
+        int updated = db.update(DatabaseContract.MovieEntry.TABLE_NAME, values,
+                MOVIE_ID_SELECTION, new String[]{String.valueOf(id)});
+
+        return updated > 0 ? id : db.insert(DatabaseContract.MovieEntry.TABLE_NAME, null, values);
     }
 }
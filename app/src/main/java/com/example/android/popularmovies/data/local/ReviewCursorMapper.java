@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.database.Cursor;
+
+import com.example.android.popularmovies.data.model.Review;
+
+/**
+ * Reads the {@link DatabaseContract.ReviewEntry} columns into reviews.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/21
+ * @see CursorMapper
+ * @since 1.3.0 2017/05/21
+ */
+public class ReviewCursorMapper extends CursorMapper<Review> {
+    private final int mReviewId;
+    private final int mAuthor;
+    private final int mContent;
+    private final int mUrl;
+    private final int mFetchedAt;
+
+    /**
+     * Constructor
+     *
+     * @param cursor the cursor to map
+     * @since 1.3.0 2017/05/21
+     */
+    public ReviewCursorMapper(Cursor cursor) {
+        super(cursor);
+        mReviewId = index(DatabaseContract.ReviewEntry.COLUMN_REVIEW_ID);
+        mAuthor = index(DatabaseContract.ReviewEntry.COLUMN_AUTHOR);
+        mContent = index(DatabaseContract.ReviewEntry.COLUMN_CONTENT);
+        mUrl = index(DatabaseContract.ReviewEntry.COLUMN_URL);
+        mFetchedAt = index(DatabaseContract.ReviewEntry.COLUMN_FETCHED_AT);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Review read() {
+        return Review.builder()
+                .setId(getString(mReviewId))
+                .setAuthor(getString(mAuthor))
+                .setContent(getString(mContent))
+                .setUrl(getString(mUrl))
+                .build();
+    }
+
+    /**
+     * @return when the current row was fetched, in milliseconds
+     * @since 1.3.0 2017/05/21
+     */
+    public long getFetchedAt() {
+        return getLong(mFetchedAt);
+    }
+}
@@ -20,11 +20,16 @@ import android.content.Context;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
+import com.example.android.popularmovies.data.local.migration.Migrations;
+
 /**
  * SQLiteOpenHelper implementation.
+ * <p>
+ * The fresh databases are created straight on the current version, the older ones are
+ * upgraded through the {@link Migrations} steps.
  *
  * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
- * @version 1.0.2 2017/04/04
+ * @version 1.3.0 2017/05/27
  * @see SQLiteOpenHelper
  * @since 1.0.2 2017/04/04
  */
@@ -36,7 +41,22 @@ public class SQLiteHelper extends SQLiteOpenHelper {
      * @since 5.0.0
      */
     public SQLiteHelper(Context context) {
-        super(context, DatabaseContract.DATABASE_NAME, null, DatabaseContract.DATABASE_VERSION);
+        this(context, DatabaseContract.DATABASE_NAME);
+    }
+
+    /**
+     * Constructor
+     * <p>
+     * Enables write-ahead logging, the readers work on their own connection and don't block
+     * behind the writes (nor the writes behind them).
+     *
+     * @param context the application context
+     * @param name    the database file name
+     * @since 1.3.0 2017/05/13
+     */
+    public SQLiteHelper(Context context, String name) {
+        super(context, name, null, DatabaseContract.DATABASE_VERSION);
+        setWriteAheadLoggingEnabled(true);
     }
 
     /**
@@ -45,15 +65,97 @@ public class SQLiteHelper extends SQLiteOpenHelper {
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL(DatabaseContract.MovieEntry.SQL_CREATE_TABLE);
+        createListTables(db);
+        createDetailTables(db);
+        createSortIndexes(db);
+        createSearchIndex(db);
+        createMovieDetailTables(db);
+        db.execSQL(DatabaseContract.FetchEntry.SQL_CREATE_TABLE);
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Runs the schema steps from the old version, the stored data is kept.
+     *
+     * @see Migrations
      */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Re create the database
-        db.execSQL("DROP TABLE IF EXISTS " + DatabaseContract.MovieEntry.TABLE_NAME);
-        onCreate(db);
+        Migrations.migrate(db, oldVersion, newVersion);
+    }
+
+    /**
+     * Creates the favourites and the cached lists tables, added on version 2.
+     *
+     * @param db the database
+     * @since 1.3.0 2017/05/15
+     */
+    private static void createListTables(SQLiteDatabase db) {
+        db.execSQL(DatabaseContract.FavouriteEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.ListPageEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.ListMovieEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.ListMovieEntry.SQL_CREATE_INDEX_MOVIE_ID);
+    }
+
+    /**
+     * Creates the stored reviews and videos tables, added on version 3.
+     *
+     * @param db the database
+     * @since 1.3.0 2017/05/16
+     */
+    private static void createDetailTables(SQLiteDatabase db) {
+        db.execSQL(DatabaseContract.ReviewEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.VideoEntry.SQL_CREATE_TABLE);
+    }
+
+    /**
+     * Creates the indexes of the favourites sort orders, added on version 4.
+     *
+     * @param db the database
+     * @see FavouritesOrder
+     * @since 1.3.0 2017/05/19
+     */
+    private static void createSortIndexes(SQLiteDatabase db) {
+        db.execSQL(DatabaseContract.MovieEntry.SQL_CREATE_INDEX_TITLE);
+        db.execSQL(DatabaseContract.MovieEntry.SQL_CREATE_INDEX_POPULARITY);
+        db.execSQL(DatabaseContract.MovieEntry.SQL_CREATE_INDEX_AVERAGE_VOTE);
+        db.execSQL(DatabaseContract.FavouriteEntry.SQL_CREATE_INDEX_ADDED_AT);
+    }
+
+    /**
+     * Creates the full-text index of the movies and the triggers keeping it in sync, added on
+     * version 5.
+     *
+     * @param db the database
+     * @see SearchQuery
+     * @since 1.3.0 2017/05/23
+     */
+    private static void createSearchIndex(SQLiteDatabase db) {
+        db.execSQL(DatabaseContract.MovieSearchEntry.SQL_CREATE_TABLE);
+        for (String trigger : DatabaseContract.MovieSearchEntry.SQL_CREATE_TRIGGERS) {
+            db.execSQL(trigger);
+        }
+    }
+
+    /**
+     * Creates the normalized tables of the movie details and the trigger removing their
+     * junction rows, added on version 6.
+     *
+     * @param db the database
+     * @see MovieDetailCursorMapper
+     * @since 1.3.0 2017/05/27
+     */
+    private static void createMovieDetailTables(SQLiteDatabase db) {
+        db.execSQL(DatabaseContract.MovieDetailEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.GenreEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.CompanyEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.CountryEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.LanguageEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.MovieGenreEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.MovieCompanyEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.MovieCountryEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.MovieLanguageEntry.SQL_CREATE_TABLE);
+        db.execSQL(DatabaseContract.MovieDetailEntry.SQL_CREATE_TRIGGER_DELETE);
     }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the text the user types into FTS match expressions over
+ * {@link DatabaseContract.MovieSearchEntry}.
+ * <p>
+ * The words are split like the FTS simple tokenizer splits the indexed text, on every ASCII
+ * character but the letters and digits, so the user text never reaches the FTS query syntax.
+ * The non ASCII characters are part of the words, as they are on the index. Every word is a
+ * prefix query since the last one is usually half typed, and the ASCII letters are lowercased
+ * like the tokenizer does.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/28
+ * @since 1.3.0 2017/05/23
+ */
+public final class SearchQuery {
+    /**
+     * The words after these are ignored, every word is another index lookup
+     */
+    private static final int MAX_TERMS = 8;
+
+    private final List<String> mTerms;
+
+    private SearchQuery(List<String> terms) {
+        this.mTerms = terms;
+    }
+
+    /**
+     * Parses the text to search.
+     *
+     * @param text the text, as the user typed it
+     * @return the query, or {@literal null} if the text has no words
+     * @since 1.3.0 2017/05/23
+     */
+    @Nullable
+    public static SearchQuery parse(@Nullable String text) {
+        if (text == null) {
+            return null;
+        }
+
+        List<String> terms = new ArrayList<>();
+        StringBuilder term = new StringBuilder();
+
+        for (int i = 0; i <= text.length() && terms.size() < MAX_TERMS; i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+
+            if (isTokenChar(c)) {
+                term.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+            } else if (term.length() > 0) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+
+        return terms.isEmpty() ? null : new SearchQuery(terms);
+    }
+
+    /**
+     * @param c the character
+     * @return {@literal true} if the FTS simple tokenizer keeps the character on a word, it
+     * separates the words on the rest
+     * @since 1.3.0 2017/05/28
+     */
+    private static boolean isTokenChar(char c) {
+        return c >= 0x80 || (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * @return the expression matching the movies with every word on the title or the overview
+     * @since 1.3.0 2017/05/23
+     */
+    public String getMatch() {
+        return build(null);
+    }
+
+    /**
+     * @return the expression matching the movies with every word on the title
+     * @since 1.3.0 2017/05/23
+     */
+    public String getTitleMatch() {
+        return build(DatabaseContract.MovieSearchEntry.COLUMN_TITLE);
+    }
+
+    private String build(@Nullable String column) {
+        StringBuilder match = new StringBuilder();
+
+        for (String term : mTerms) {
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            if (column != null) {
+                match.append(column).append(':');
+            }
+            match.append(term).append('*');
+        }
+
+        return match.toString();
+    }
+}
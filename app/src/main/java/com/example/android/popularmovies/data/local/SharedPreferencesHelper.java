@@ -150,6 +150,29 @@ public class SharedPreferencesHelper {
         prefs.remove(key).apply();
     }
 
+    /**
+     * Registers a callback to be invoked when a preference is changed.
+     * </p>
+     * The SharedPreferences keeps a weak reference to the listener, the caller
+     * must keep a strong reference to it.
+     *
+     * @param listener the callback to register
+     * @since 1.3.0 2017/05/04
+     */
+    public void registerOnChangeListener(SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        mSharedPreferences.registerOnSharedPreferenceChangeListener(listener);
+    }
+
+    /**
+     * Unregisters a previous callback.
+     *
+     * @param listener the callback to unregister
+     * @since 1.3.0 2017/05/04
+     */
+    public void unregisterOnChangeListener(SharedPreferences.OnSharedPreferenceChangeListener listener) {
+        mSharedPreferences.unregisterOnSharedPreferenceChangeListener(listener);
+    }
+
     /**
      * Clears the SharedPreferences file
      *
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.database.Cursor;
+
+import com.example.android.popularmovies.data.model.Video;
+
+/**
+ * Reads the {@link DatabaseContract.VideoEntry} columns into videos.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/21
+ * @see CursorMapper
+ * @since 1.3.0 2017/05/21
+ */
+public class VideoCursorMapper extends CursorMapper<Video> {
+    private final int mVideoId;
+    private final int mIso6391;
+    private final int mIso31661;
+    private final int mKey;
+    private final int mName;
+    private final int mSite;
+    private final int mSize;
+    private final int mType;
+    private final int mFetchedAt;
+
+    /**
+     * Constructor
+     *
+     * @param cursor the cursor to map
+     * @since 1.3.0 2017/05/21
+     */
+    public VideoCursorMapper(Cursor cursor) {
+        super(cursor);
+        mVideoId = index(DatabaseContract.VideoEntry.COLUMN_VIDEO_ID);
+        mIso6391 = index(DatabaseContract.VideoEntry.COLUMN_ISO_639_1);
+        mIso31661 = index(DatabaseContract.VideoEntry.COLUMN_ISO_3166_1);
+        mKey = index(DatabaseContract.VideoEntry.COLUMN_KEY);
+        mName = index(DatabaseContract.VideoEntry.COLUMN_NAME);
+        mSite = index(DatabaseContract.VideoEntry.COLUMN_SITE);
+        mSize = index(DatabaseContract.VideoEntry.COLUMN_SIZE);
+        mType = index(DatabaseContract.VideoEntry.COLUMN_TYPE);
+        mFetchedAt = index(DatabaseContract.VideoEntry.COLUMN_FETCHED_AT);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Video read() {
+        return Video.builder()
+                .setId(getString(mVideoId))
+                .setIso_639_1(getString(mIso6391))
+                .setIso_3166_1(getString(mIso31661))
+                .setKey(getString(mKey))
+                .setName(getString(mName))
+                .setSite(getString(mSite))
+                .setSize(getInt(mSize))
+                .setType(getString(mType))
+                .build();
+    }
+
+    /**
+     * @return when the current row was fetched, in milliseconds
+     * @since 1.3.0 2017/05/21
+     */
+    public long getFetchedAt() {
+        return getLong(mFetchedAt);
+    }
+}
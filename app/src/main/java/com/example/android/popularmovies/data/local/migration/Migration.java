@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local.migration;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * A step of the database schema, moves a database from a version to the next one keeping
+ * its data.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/24
+ * @see Migrations
+ * @since 1.3.0 2017/05/24
+ */
+public abstract class Migration {
+    private final int mStartVersion;
+    private final int mEndVersion;
+
+    /**
+     * Constructor
+     *
+     * @param startVersion the version the step starts from
+     * @param endVersion   the version the step leaves the database on
+     * @since 1.3.0 2017/05/24
+     */
+    protected Migration(int startVersion, int endVersion) {
+        if (endVersion <= startVersion) {
+            throw new IllegalArgumentException("A migration must move the version forward");
+        }
+
+        this.mStartVersion = startVersion;
+        this.mEndVersion = endVersion;
+    }
+
+    /**
+     * @return the version the step starts from
+     * @since 1.3.0 2017/05/24
+     */
+    public int getStartVersion() {
+        return mStartVersion;
+    }
+
+    /**
+     * @return the version the step leaves the database on
+     * @since 1.3.0 2017/05/24
+     */
+    public int getEndVersion() {
+        return mEndVersion;
+    }
+
+    /**
+     * Changes the schema and moves the data. Runs inside a transaction, it must not begin or
+     * end its own nor change the database version.
+     *
+     * @param db the database, on the start version
+     * @since 1.3.0 2017/05/24
+     */
+    public abstract void migrate(SQLiteDatabase db);
+}
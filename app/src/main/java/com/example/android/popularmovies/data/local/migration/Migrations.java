@@ -0,0 +1,237 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local.migration;
+
+import android.database.sqlite.SQLiteDatabase;
+
+import com.example.android.popularmovies.data.local.DatabaseContract;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import timber.log.Timber;
+
+/**
+ * Every step of the database schema, in order. A database on any past version is moved to
+ * the current one step by step, the data is never dropped.
+ * <p>
+ * {@link com.example.android.popularmovies.data.local.SQLiteHelper#onUpgrade(SQLiteDatabase, int, int)}
+ * runs inside the single transaction {@link android.database.sqlite.SQLiteOpenHelper} opens
+ * for the whole upgrade, the steps only nest on it. Nothing is committed until every step
+ * succeeded, so a failed step rolls back the whole upgrade and the database is left on its
+ * old version, never on one in between. It's upgraded again from there on the next open.
+ * <p>
+ * A schema change adds a step here and bumps {@link DatabaseContract#DATABASE_VERSION}, the
+ * fresh databases are created straight on the last version by
+ * {@link com.example.android.popularmovies.data.local.SQLiteHelper#onCreate(SQLiteDatabase)}.
+ * The indexes are created once the step moved the data, building an index over the existing
+ * rows is cheaper than updating it on every copied row.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/28
+ * @see Migration
+ * @since 1.3.0 2017/05/24
+ */
+public final class Migrations {
+    /**
+     * Version 1 only stored the favourites on the movies table, version 2 stores every known
+     * movie there and adds the favourites and the cached lists tables
+     */
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL(DatabaseContract.FavouriteEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.ListPageEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.ListMovieEntry.SQL_CREATE_TABLE);
+
+            // Every movie on the table is a favourite
+            db.execSQL("INSERT INTO " + DatabaseContract.FavouriteEntry.TABLE_NAME + " (" +
+                    DatabaseContract.FavouriteEntry.COLUMN_MOVIE_ID + ", " +
+                    DatabaseContract.FavouriteEntry.COLUMN_ADDED_AT + ") SELECT " +
+                    DatabaseContract.MovieEntry._ID + ", " + System.currentTimeMillis() +
+                    " FROM " + DatabaseContract.MovieEntry.TABLE_NAME);
+
+            db.execSQL(DatabaseContract.ListMovieEntry.SQL_CREATE_INDEX_MOVIE_ID);
+        }
+    };
+
+    /**
+     * Adds the stored reviews and videos tables
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL(DatabaseContract.ReviewEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.VideoEntry.SQL_CREATE_TABLE);
+        }
+    };
+
+    /**
+     * Adds the indexes of the favourites sort orders
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL(DatabaseContract.MovieEntry.SQL_CREATE_INDEX_TITLE);
+            db.execSQL(DatabaseContract.MovieEntry.SQL_CREATE_INDEX_POPULARITY);
+            db.execSQL(DatabaseContract.MovieEntry.SQL_CREATE_INDEX_AVERAGE_VOTE);
+            db.execSQL(DatabaseContract.FavouriteEntry.SQL_CREATE_INDEX_ADDED_AT);
+        }
+    };
+
+    /**
+     * Adds the full-text index of the movies and indexes the stored ones
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL(DatabaseContract.MovieSearchEntry.SQL_CREATE_TABLE);
+            for (String trigger : DatabaseContract.MovieSearchEntry.SQL_CREATE_TRIGGERS) {
+                db.execSQL(trigger);
+            }
+            db.execSQL(DatabaseContract.MovieSearchEntry.SQL_REBUILD);
+        }
+    };
+
+    /**
+     * Adds the normalized tables of the movie details
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL(DatabaseContract.MovieDetailEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.GenreEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.CompanyEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.CountryEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.LanguageEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.MovieGenreEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.MovieCompanyEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.MovieCountryEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.MovieLanguageEntry.SQL_CREATE_TABLE);
+            db.execSQL(DatabaseContract.MovieDetailEntry.SQL_CREATE_TRIGGER_DELETE);
+        }
+    };
+
+    /**
+     * Adds the fetches table, the movies with stored reviews or videos are marked as fetched
+     * when their rows were
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(SQLiteDatabase db) {
+            db.execSQL(DatabaseContract.FetchEntry.SQL_CREATE_TABLE);
+
+            db.execSQL(markFetched(DatabaseContract.ReviewEntry.TABLE_NAME, DatabaseContract.FetchEntry.KIND_REVIEWS));
+            db.execSQL(markFetched(DatabaseContract.VideoEntry.TABLE_NAME, DatabaseContract.FetchEntry.KIND_VIDEOS));
+        }
+
+        /**
+         * @param table the reviews or videos table
+         * @param kind  the fetch kind
+         * @return the statement marking the movies with rows on the table as fetched, when
+         * their oldest row was
+         */
+        private String markFetched(String table, String kind) {
+            return "INSERT INTO " + DatabaseContract.FetchEntry.TABLE_NAME + " (" +
+                    DatabaseContract.FetchEntry.COLUMN_MOVIE_ID + ", " +
+                    DatabaseContract.FetchEntry.COLUMN_KIND + ", " +
+                    DatabaseContract.FetchEntry.COLUMN_FETCHED_AT + ") SELECT " +
+                    DatabaseContract.ReviewEntry.COLUMN_MOVIE_ID + ", '" + kind + "', MIN(" +
+                    DatabaseContract.ReviewEntry.COLUMN_FETCHED_AT + ") FROM " + table +
+                    " GROUP BY " + DatabaseContract.ReviewEntry.COLUMN_MOVIE_ID;
+        }
+    };
+
+    /**
+     * Every step, in order
+     */
+    private static final List<Migration> ALL = Collections.unmodifiableList(Arrays.asList(
+            MIGRATION_1_2,
+            MIGRATION_2_3,
+            MIGRATION_3_4,
+            MIGRATION_4_5,
+            MIGRATION_5_6,
+            MIGRATION_6_7
+    ));
+
+    private Migrations() {
+        // Utility class
+    }
+
+    /**
+     * @return every step, in order
+     * @since 1.3.0 2017/05/24
+     */
+    public static List<Migration> all() {
+        return ALL;
+    }
+
+    /**
+     * Moves a database to a newer version, one step at a time. Each step runs in a nested
+     * transaction, it commits with the enclosing one, if any, see the class description.
+     *
+     * @param db          the database
+     * @param fromVersion the database current version
+     * @param toVersion   the version to move it to
+     * @throws IllegalStateException if there's no step from one of the versions on the way
+     * @since 1.3.0 2017/05/24
+     */
+    public static void migrate(SQLiteDatabase db, int fromVersion, int toVersion) {
+        int version = fromVersion;
+
+        while (version < toVersion) {
+            Migration migration = find(version, toVersion);
+            long start = System.nanoTime();
+
+            // Only commits with the upgrade transaction of SQLiteOpenHelper, the version set
+            // here is rolled back with it. Outside of it, the step commits on its own
+            db.beginTransaction();
+            try {
+                migration.migrate(db);
+                db.setVersion(migration.getEndVersion());
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            Timber.d("Migrated the database from version %d to %d in %d ms", version,
+                    migration.getEndVersion(), (System.nanoTime() - start) / 1000000);
+
+            version = migration.getEndVersion();
+        }
+    }
+
+    /**
+     * Finds the step starting on a version.
+     *
+     * @param version   the current version
+     * @param toVersion the target version, the step must not go past it
+     * @return the step
+     * @throws IllegalStateException if there's no such step
+     * @since 1.3.0 2017/05/24
+     */
+    private static Migration find(int version, int toVersion) {
+        for (Migration migration : ALL) {
+            if (migration.getStartVersion() == version && migration.getEndVersion() <= toVersion) {
+                return migration;
+            }
+        }
+
+        throw new IllegalStateException("No migration from version " + version + " to " + toVersion);
+    }
+}
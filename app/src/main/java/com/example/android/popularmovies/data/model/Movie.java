@@ -22,6 +22,7 @@ import android.os.Parcelable;
 import android.support.annotation.Nullable;
 
 import com.example.android.popularmovies.data.local.DatabaseContract;
+import com.example.android.popularmovies.data.local.MovieCursorMapper;
 import com.google.auto.value.AutoValue;
 import com.google.gson.Gson;
 import com.google.gson.TypeAdapter;
@@ -54,6 +55,14 @@ public abstract class Movie implements Parcelable {
         return new AutoValue_Movie.Builder();
     }
 
+    /**
+     * Gets a builder initialized with this movie values
+     *
+     * @return the class Builder
+     * @since 1.3.0 2017/05/16
+     */
+    public abstract Movie.Builder toBuilder();
+
     /**
      * Type adapter used by Gson and Dagger2 AutoValue
      *
@@ -88,7 +97,32 @@ public abstract class Movie implements Parcelable {
     }
 
     /**
-     * Parses a cursor and returns a new movie instance
+     * Parses the detail fields to a ContentValue, see {@link DatabaseContract.MovieDetailEntry}.
+     * The genres, companies, countries and languages are stored on their own tables.
+     *
+     * @return the parsed object, without the fetch time
+     * @since 1.3.0 2017/05/27
+     */
+    public static ContentValues toDetailContentValues(Movie movie) {
+        ContentValues values = new ContentValues();
+        values.put(DatabaseContract.MovieDetailEntry.COLUMN_MOVIE_ID, movie.id());
+        values.put(DatabaseContract.MovieDetailEntry.COLUMN_ADULT, movie.adult());
+        values.put(DatabaseContract.MovieDetailEntry.COLUMN_VIDEO, movie.video());
+        values.put(DatabaseContract.MovieDetailEntry.COLUMN_BUDGET, movie.budget());
+        values.put(DatabaseContract.MovieDetailEntry.COLUMN_HOMEPAGE, movie.homepage());
+        values.put(DatabaseContract.MovieDetailEntry.COLUMN_IMDB_ID, movie.imdb_id());
+        values.put(DatabaseContract.MovieDetailEntry.COLUMN_REVENUE, movie.revenue());
+        values.put(DatabaseContract.MovieDetailEntry.COLUMN_RUNTIME, movie.runtime());
+        values.put(DatabaseContract.MovieDetailEntry.COLUMN_STATUS, movie.status());
+        values.put(DatabaseContract.MovieDetailEntry.COLUMN_TAGLINE, movie.tagline());
+        return values;
+    }
+
+    /**
+     * Parses a cursor and returns a new movie instance.
+     * <p>
+     * The column indexes are resolved on every call, use a {@link MovieCursorMapper} to read
+     * several rows.
      *
      * @param cursor The cursor to parse.
      * @return The movie instance
@@ -96,19 +130,7 @@ public abstract class Movie implements Parcelable {
      */
     public static Movie fromCursor(Cursor cursor) {
         try {
-            return Movie.builder()
-                    .setId(cursor.getLong(cursor.getColumnIndex(DatabaseContract.MovieEntry._ID)))
-                    .setTitle(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_TITLE)))
-                    .setOriginal_title(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_ORIGINAL_TITLE)))
-                    .setOriginal_language(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_ORIGINAL_LANGUAGE)))
-                    .setOverview(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_OVERVIEW)))
-                    .setRelease_date(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_RELEASE_DATE)))
-                    .setPoster_path(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_POSTER_PATH)))
-                    .setPopularity(cursor.getFloat(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_POPULARITY)))
-                    .setVote_average(cursor.getFloat(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_AVERAGE_VOTE)))
-                    .setBackdrop_path(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_BACKDROP_PATH)))
-                    .setVote_count(cursor.getInt(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_VOTE_COUNT)))
-                    .build();
+            return new MovieCursorMapper(cursor).read();
         } catch (Exception e) {
             Timber.e(e, e.getMessage());
             return null;
@@ -172,7 +194,7 @@ public abstract class Movie implements Parcelable {
 
     public abstract
     @Nullable
-    Integer revenue();
+    Long revenue();
 
     public abstract
     @Nullable
@@ -194,6 +216,15 @@ public abstract class Movie implements Parcelable {
     @Nullable
     Boolean favourite();
 
+    // appended to the detail response, see MovieDbApiService#getMovieDetail
+    public abstract
+    @Nullable
+    TrailersCollection videos();
+
+    public abstract
+    @Nullable
+    ReviewCollection reviews();
+
     /**
      * Class Builder dagger 2 injection.
      * </p>
@@ -242,7 +273,7 @@ public abstract class Movie implements Parcelable {
 
         public abstract Movie.Builder setProduction_countries(@Nullable List<ProductionCountry> production_countries);
 
-        public abstract Movie.Builder setRevenue(@Nullable Integer revenue);
+        public abstract Movie.Builder setRevenue(@Nullable Long revenue);
 
         public abstract Movie.Builder setRuntime(@Nullable Integer runtime);
 
@@ -254,6 +285,10 @@ public abstract class Movie implements Parcelable {
 
         public abstract Movie.Builder setFavourite(@Nullable Boolean favourite);
 
+        public abstract Movie.Builder setVideos(@Nullable TrailersCollection videos);
+
+        public abstract Movie.Builder setReviews(@Nullable ReviewCollection reviews);
+
         public abstract Movie build();
     }
 }
@@ -31,8 +31,8 @@ public abstract class Review implements Parcelable {
      * @return the class Builder
      * @since 1.2.0 2017/03/18
      */
-    public static Movie.Builder builder() {
-        return new AutoValue_Movie.Builder();
+    public static Review.Builder builder() {
+        return new AutoValue_Review.Builder();
     }
 
     /**
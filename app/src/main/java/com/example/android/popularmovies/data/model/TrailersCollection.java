@@ -1,6 +1,7 @@
 package com.example.android.popularmovies.data.model;
 
 import android.os.Parcelable;
+import android.support.annotation.Nullable;
 
 import com.google.auto.value.AutoValue;
 import com.google.gson.Gson;
@@ -16,8 +17,11 @@ import java.util.List;
  * @since 1.0.1 2017/02/19
  */
 @AutoValue
-public abstract class TrailersCollection {
-    public abstract Integer id();
+public abstract class TrailersCollection implements Parcelable {
+    // The movie id, not present when appended to the movie detail response
+    public abstract
+    @Nullable
+    Integer id();
 
     public abstract List<Video> results();
 
@@ -52,7 +56,7 @@ public abstract class TrailersCollection {
      */
     @AutoValue.Builder
     public abstract static class Builder {
-        public abstract TrailersCollection.Builder setId(Integer id);
+        public abstract TrailersCollection.Builder setId(@Nullable Integer id);
 
         public abstract TrailersCollection.Builder setResults(List<Video> results);
 
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import android.content.SharedPreferences;
+
+import com.example.android.popularmovies.data.MovieDbApiService;
+import com.example.android.popularmovies.data.local.SharedPrefKeys;
+import com.example.android.popularmovies.data.local.SharedPreferencesHelper;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * OkHttp application interceptor that appends the TMDb api key to every API request.
+ * <p>
+ * The key is kept in memory and refreshed when the shared preference changes, so the
+ * request path never touches the SharedPreferences. It runs as an application interceptor
+ * so the HTTP cache keys include the key, as they did when it was a query parameter of
+ * the service methods.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/04
+ * @see Interceptor
+ * @see SharedPreferences.OnSharedPreferenceChangeListener
+ * @since 1.3.0 2017/05/04
+ */
+@Singleton
+public class ApiKeyInterceptor implements Interceptor, SharedPreferences.OnSharedPreferenceChangeListener {
+    /**
+     * The api key query parameter
+     */
+    static final String QUERY_API_KEY = "api_key";
+
+    /**
+     * The API host, only requests to this host get the key
+     */
+    private final String mApiHost;
+
+    /**
+     * The preferences helper
+     */
+    private final SharedPreferencesHelper mSharedPreferencesHelper;
+
+    /**
+     * The current api key
+     */
+    private volatile String mApiKey;
+
+    /**
+     * Constructor
+     * </p>
+     * Injects the preferences helper using dagger 2, the helper only keeps a weak reference
+     * to the listener so the interceptor must be a singleton.
+     *
+     * @param sharedPreferencesHelper the preferences helper
+     * @since 1.3.0 2017/05/04
+     */
+    @Inject
+    public ApiKeyInterceptor(SharedPreferencesHelper sharedPreferencesHelper) {
+        this.mApiHost = HttpUrl.parse(MovieDbApiService.BASE_API_HOST).host();
+        this.mSharedPreferencesHelper = sharedPreferencesHelper;
+        this.mApiKey = (String) sharedPreferencesHelper.getEntry(SharedPrefKeys.API_KEY, String.class);
+        sharedPreferencesHelper.registerOnChangeListener(this);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+
+        if (!mApiHost.equals(request.url().host())) {
+            return chain.proceed(request);
+        }
+
+        HttpUrl url = request.url().newBuilder()
+                .setQueryParameter(QUERY_API_KEY, mApiKey)
+                .build();
+
+        return chain.proceed(request.newBuilder().url(url).build());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+        if (SharedPrefKeys.API_KEY.equals(key)) {
+            mApiKey = (String) mSharedPreferencesHelper.getEntry(SharedPrefKeys.API_KEY, String.class);
+        }
+    }
+}
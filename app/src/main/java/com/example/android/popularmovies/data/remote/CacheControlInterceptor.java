@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * OkHttp network interceptor that rewrites the Cache-Control header of the TMDb responses,
+ * the API does not send caching headers so without this rewrite nothing gets stored on the
+ * disk cache.
+ * <p>
+ * Each endpoint gets its own max-age, the popular list only updates daily while the trailers
+ * of a movie rarely change at all. Responses from other hosts (like the image CDN) keep
+ * their own caching headers.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/02
+ * @see Interceptor
+ * @since 1.3.0 2017/05/02
+ */
+public class CacheControlInterceptor implements Interceptor {
+    /**
+     * Max age for the popular movies list
+     */
+    static final int MAX_AGE_POPULAR_HOURS = 12;
+
+    /**
+     * Max age for the top rated movies list
+     */
+    static final int MAX_AGE_TOP_RATED_HOURS = 24;
+
+    /**
+     * Max age for the movie reviews
+     */
+    static final int MAX_AGE_REVIEWS_HOURS = 24;
+
+    /**
+     * Max age for the movie trailers
+     */
+    static final int MAX_AGE_VIDEOS_HOURS = 24 * 7;
+
+    /**
+     * Max age for the movie details
+     */
+    static final int MAX_AGE_DETAIL_HOURS = 24;
+
+    /**
+     * Max age for any other endpoint
+     */
+    static final int MAX_AGE_DEFAULT_HOURS = 1;
+
+    /**
+     * The API host whose responses are rewritten
+     */
+    private final String mApiHost;
+
+    /**
+     * Constructor
+     *
+     * @param apiHost the API host whose responses are rewritten
+     * @since 1.3.0 2017/05/03
+     */
+    public CacheControlInterceptor(String apiHost) {
+        this.mApiHost = apiHost;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+
+        // Only successful GET requests to the API are worth rewriting, a 304 refreshes the
+        // freshness of the cached response so it gets the same max-age
+        boolean cacheable = response.isSuccessful()
+                || response.code() == HttpURLConnection.HTTP_NOT_MODIFIED;
+
+        if (!"GET".equals(request.method()) || !cacheable
+                || !mApiHost.equals(request.url().host())) {
+            return response;
+        }
+
+        CacheControl cacheControl = new CacheControl.Builder()
+                .maxAge(getMaxAgeHours(request), TimeUnit.HOURS)
+                .build();
+
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", cacheControl.toString())
+                .build();
+    }
+
+    /**
+     * Gets the max age for the requested endpoint.
+     *
+     * @param request the request to check
+     * @return the max age in hours
+     * @since 1.3.0 2017/05/02
+     */
+    static int getMaxAgeHours(Request request) {
+        List<String> segments = request.url().pathSegments();
+        String endpoint = segments.isEmpty() ? "" : segments.get(segments.size() - 1);
+
+        switch (endpoint) {
+            case "popular":
+                return MAX_AGE_POPULAR_HOURS;
+            case "top_rated":
+                return MAX_AGE_TOP_RATED_HOURS;
+            case "reviews":
+                return MAX_AGE_REVIEWS_HOURS;
+            case "videos":
+                return MAX_AGE_VIDEOS_HOURS;
+            default:
+                // The movie details endpoint ends with the movie id
+                return endpoint.matches("\\d+") ? MAX_AGE_DETAIL_HOURS : MAX_AGE_DEFAULT_HOURS;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import java.io.IOException;
+
+import timber.log.Timber;
+
+/**
+ * A circuit breaker for a single host.
+ * <p>
+ * After {@link #mFailureThreshold} consecutive failures the circuit opens and every request
+ * fails fast with a {@link CircuitOpenException} until the cool-down elapses. Then a single
+ * trial request is let through (half-open), its success closes the circuit and its failure
+ * opens it again for another cool-down.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/09
+ * @since 1.3.0 2017/05/09
+ */
+public class CircuitBreaker {
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+
+    /**
+     * The host guarded by this breaker
+     */
+    private final String mHost;
+
+    /**
+     * Consecutive failures that open the circuit
+     */
+    private final int mFailureThreshold;
+
+    /**
+     * How long the circuit stays open
+     */
+    private final long mCoolDownMillis;
+
+    private int mState = CLOSED;
+    private int mConsecutiveFailures;
+    private long mOpenedAt;
+
+    /**
+     * Constructor
+     *
+     * @param host             the host guarded by this breaker
+     * @param failureThreshold consecutive failures that open the circuit
+     * @param coolDownMillis   how long the circuit stays open
+     * @since 1.3.0 2017/05/09
+     */
+    public CircuitBreaker(String host, int failureThreshold, long coolDownMillis) {
+        this.mHost = host;
+        this.mFailureThreshold = failureThreshold;
+        this.mCoolDownMillis = coolDownMillis;
+    }
+
+    /**
+     * Checks if a request can be performed.
+     *
+     * @return {@literal true} if the request can go to the network, otherwise {@literal false}
+     * @since 1.3.0 2017/05/09
+     */
+    public synchronized boolean allowRequest() {
+        switch (mState) {
+            case OPEN:
+                if (now() - mOpenedAt >= mCoolDownMillis) {
+                    // Let a single trial request through
+                    mState = HALF_OPEN;
+                    return true;
+                }
+                return false;
+            case HALF_OPEN:
+                // The trial request is still in flight
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Records a successful request, closing the circuit.
+     *
+     * @since 1.3.0 2017/05/09
+     */
+    public synchronized void onSuccess() {
+        if (mState != CLOSED) {
+            Timber.i("Circuit closed for %s", mHost);
+        }
+        mState = CLOSED;
+        mConsecutiveFailures = 0;
+    }
+
+    /**
+     * Records a failed request, opening the circuit when the threshold is reached or
+     * when the trial request fails.
+     *
+     * @since 1.3.0 2017/05/09
+     */
+    public synchronized void onFailure() {
+        mConsecutiveFailures++;
+
+        if (mState == HALF_OPEN || mConsecutiveFailures >= mFailureThreshold) {
+            Timber.w("Circuit opened for %s after %d failures", mHost, mConsecutiveFailures);
+            mState = OPEN;
+            mOpenedAt = now();
+        }
+    }
+
+    /**
+     * Records a request that was disposed before finishing, a cancelled trial request
+     * lets the next request try again.
+     *
+     * @since 1.3.0 2017/05/09
+     */
+    public synchronized void onCancel() {
+        if (mState == HALF_OPEN) {
+            mState = OPEN;
+            mOpenedAt = now() - mCoolDownMillis;
+        }
+    }
+
+    /**
+     * Checks if the circuit is open.
+     *
+     * @return {@literal true} if the requests are failing fast, otherwise {@literal false}
+     * @since 1.3.0 2017/05/09
+     */
+    public synchronized boolean isOpen() {
+        return mState == OPEN && now() - mOpenedAt < mCoolDownMillis;
+    }
+
+    /**
+     * Gets the current time.
+     *
+     * @return the current time in milliseconds
+     * @since 1.3.0 2017/05/09
+     */
+    private long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Error emitted while the circuit is open, it's an {@link IOException} so the callers
+     * handle it like any other network error.
+     *
+     * @since 1.3.0 2017/05/09
+     */
+    public static class CircuitOpenException extends IOException {
+        /**
+         * Constructor
+         *
+         * @param host the host whose circuit is open
+         * @since 1.3.0 2017/05/09
+         */
+        public CircuitOpenException(String host) {
+            super("Circuit open for " + host);
+        }
+    }
+}
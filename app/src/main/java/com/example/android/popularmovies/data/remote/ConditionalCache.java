@@ -0,0 +1,259 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.functions.Function;
+import retrofit2.Response;
+import retrofit2.adapter.rxjava2.HttpException;
+
+/**
+ * In-memory cache of the parsed API responses and their validators.
+ * <p>
+ * A fresh entry is served without touching the network. Once it expires the request is sent
+ * with its ETag and Last-Modified validators, a 304 answer only refreshes the entry freshness
+ * and the already parsed object is reused, so the body is neither downloaded nor parsed again.
+ * When the revalidation fails on the network the expired object is served instead.
+ * <p>
+ * The OkHttp disk cache still serves the cold starts, the conditional headers sent here make
+ * OkHttp hand the 304 over instead of answering it from its own cache.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/11
+ * @since 1.3.0 2017/05/11
+ */
+public class ConditionalCache {
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+
+    /**
+     * Max number of parsed responses kept in memory
+     */
+    private final int mMaxEntries;
+
+    /**
+     * The cached responses by key, in access order
+     */
+    private final LinkedHashMap<String, Entry> mEntries;
+
+    /**
+     * Revalidations answered with a 304
+     */
+    private final AtomicLong mNotModifiedCount = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param maxEntries max number of parsed responses kept in memory
+     * @since 1.3.0 2017/05/11
+     */
+    public ConditionalCache(int maxEntries) {
+        this.mMaxEntries = maxEntries;
+        this.mEntries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > mMaxEntries;
+            }
+        };
+    }
+
+    /**
+     * Turns the error responses into {@link HttpException}s so the operators downstream
+     * handle them like the plain Retrofit Observables, a 304 is a valid answer here.
+     *
+     * @param <T> the response type
+     * @return the operator to compose with the conditional request
+     * @since 1.3.0 2017/05/11
+     */
+    public static <T> ObservableTransformer<Response<T>, Response<T>> throwOnError() {
+        return new ObservableTransformer<Response<T>, Response<T>>() {
+            @Override
+            public ObservableSource<Response<T>> apply(Observable<Response<T>> upstream) {
+                return upstream.map(new Function<Response<T>, Response<T>>() {
+                    @Override
+                    public Response<T> apply(Response<T> response) throws Exception {
+                        if (!response.isSuccessful() && response.code() != HttpURLConnection.HTTP_NOT_MODIFIED) {
+                            throw new HttpException(response);
+                        }
+                        return response;
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Gets the cached object when fresh, otherwise revalidates it.
+     *
+     * @param key     the request key
+     * @param request performs the request with the cached validators
+     * @param <T>     the response type
+     * @return an Observable that emits the cached or the downloaded object
+     * @since 1.3.0 2017/05/11
+     */
+    public <T> Observable<T> get(final String key, final ConditionalRequest<T> request) {
+        return Observable.defer(new Callable<ObservableSource<T>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public ObservableSource<T> call() throws Exception {
+                final Entry cached;
+                synchronized (mEntries) {
+                    cached = mEntries.get(key);
+                }
+
+                if (cached != null && cached.isFresh()) {
+                    return Observable.just((T) cached.mValue);
+                }
+
+                return request.execute(cached != null ? cached.mETag : null,
+                        cached != null ? cached.mLastModified : null)
+                        .map(new Function<Response<T>, T>() {
+                            @Override
+                            public T apply(Response<T> response) throws Exception {
+                                if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                                    mNotModifiedCount.incrementAndGet();
+                                    cached.mExpiresAt = expiresAt(response);
+                                    return (T) cached.mValue;
+                                }
+
+                                if (!response.isSuccessful()) {
+                                    throw new HttpException(response);
+                                }
+
+                                T value = response.body();
+                                put(key, new Entry(value,
+                                        response.headers().get(HEADER_ETAG),
+                                        response.headers().get(HEADER_LAST_MODIFIED),
+                                        expiresAt(response)));
+                                return value;
+                            }
+                        })
+                        .onErrorResumeNext(new Function<Throwable, ObservableSource<T>>() {
+                            @Override
+                            public ObservableSource<T> apply(Throwable e) throws Exception {
+                                // The revalidation couldn't reach the server, the stale object
+                                // is better than nothing
+                                if (e instanceof IOException && cached != null) {
+                                    return Observable.just((T) cached.mValue);
+                                }
+                                return Observable.error(e);
+                            }
+                        });
+            }
+        });
+    }
+
+    /**
+     * Gets how many revalidations reused the cached object.
+     *
+     * @return the 304 responses count
+     * @since 1.3.0 2017/05/11
+     */
+    public long getNotModifiedCount() {
+        return mNotModifiedCount.get();
+    }
+
+    /**
+     * Removes every cached response.
+     *
+     * @since 1.3.0 2017/05/11
+     */
+    public void clear() {
+        synchronized (mEntries) {
+            mEntries.clear();
+        }
+    }
+
+    /**
+     * Stores a response, the entries without validators are still cached while fresh.
+     *
+     * @param key   the request key
+     * @param entry the response entry
+     * @since 1.3.0 2017/05/11
+     */
+    private void put(String key, Entry entry) {
+        synchronized (mEntries) {
+            mEntries.put(key, entry);
+        }
+    }
+
+    /**
+     * Computes the expiration time of a response from its max-age, set by the
+     * {@link CacheControlInterceptor} for the API responses.
+     *
+     * @param response the response
+     * @return the expiration time in milliseconds, now when the response has no max-age
+     * @since 1.3.0 2017/05/11
+     */
+    private static long expiresAt(Response<?> response) {
+        int maxAgeSeconds = response.raw().cacheControl().maxAgeSeconds();
+        return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Math.max(0, maxAgeSeconds));
+    }
+
+    /**
+     * Performs a request, conditional when validators are given
+     *
+     * @param <T> the response type
+     * @since 1.3.0 2017/05/11
+     */
+    public interface ConditionalRequest<T> {
+        /**
+         * Performs the request
+         *
+         * @param eTag         the cached ETag, or {@literal null}
+         * @param lastModified the cached Last-Modified date, or {@literal null}
+         * @return the response Observable, see {@link #throwOnError()}
+         * @since 1.3.0 2017/05/11
+         */
+        Observable<Response<T>> execute(@Nullable String eTag, @Nullable String lastModified);
+    }
+
+    /**
+     * A parsed response and its validators
+     *
+     * @since 1.3.0 2017/05/11
+     */
+    private static class Entry {
+        private final Object mValue;
+        private final String mETag;
+        private final String mLastModified;
+        private volatile long mExpiresAt;
+
+        Entry(Object value, String eTag, String lastModified, long expiresAt) {
+            this.mValue = value;
+            this.mETag = eTag;
+            this.mLastModified = lastModified;
+            this.mExpiresAt = expiresAt;
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() < mExpiresAt;
+        }
+    }
+}
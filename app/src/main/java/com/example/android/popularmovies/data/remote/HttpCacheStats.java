@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import okhttp3.Cache;
+
+/**
+ * Hit and miss counters for the HTTP disk cache.
+ * <p>
+ * Hits are the responses served by the cache without touching the network, misses are the
+ * responses that required a network request (including conditional requests).
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/02
+ * @see Cache
+ * @since 1.3.0 2017/05/02
+ */
+@Singleton
+public class HttpCacheStats {
+    /**
+     * The HTTP disk cache
+     */
+    private final Cache mCache;
+
+    /**
+     * Stale responses served because of a network error
+     */
+    private final AtomicLong mStaleCount = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param cache the HTTP disk cache to monitor
+     * @since 1.3.0 2017/05/02
+     */
+    @Inject
+    public HttpCacheStats(Cache cache) {
+        this.mCache = cache;
+    }
+
+    /**
+     * Gets the responses served from the cache.
+     *
+     * @return the hit count
+     * @since 1.3.0 2017/05/02
+     */
+    public long getHitCount() {
+        return mCache.hitCount();
+    }
+
+    /**
+     * Gets the responses that required a network request.
+     *
+     * @return the miss count
+     * @since 1.3.0 2017/05/02
+     */
+    public long getMissCount() {
+        return mCache.networkCount();
+    }
+
+    /**
+     * Gets the stale responses served because the network was not available.
+     *
+     * @return the stale count
+     * @since 1.3.0 2017/05/02
+     */
+    public long getStaleCount() {
+        return mStaleCount.get();
+    }
+
+    /**
+     * Gets the ratio of requests served by the cache.
+     *
+     * @return the hit ratio, between 0 and 1
+     * @since 1.3.0 2017/05/02
+     */
+    public float getHitRatio() {
+        int requests = mCache.requestCount();
+        return requests == 0 ? 0f : (float) mCache.hitCount() / requests;
+    }
+
+    /**
+     * Records a stale response served by the cache.
+     *
+     * @since 1.3.0 2017/05/02
+     */
+    void onStaleResponse() {
+        mStaleCount.incrementAndGet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "HttpCacheStats{hits=%d, misses=%d, stale=%d, ratio=%.2f}",
+                getHitCount(), getMissCount(), getStaleCount(), getHitRatio());
+    }
+}
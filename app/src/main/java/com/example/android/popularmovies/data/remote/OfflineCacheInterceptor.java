@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.CacheControl;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import timber.log.Timber;
+
+/**
+ * OkHttp application interceptor that implements a stale-if-error policy, when the network
+ * request fails the same request is retried against the disk cache only, accepting responses
+ * up to {@link #MAX_STALE_DAYS} old.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/02
+ * @see Interceptor
+ * @since 1.3.0 2017/05/02
+ */
+public class OfflineCacheInterceptor implements Interceptor {
+    /**
+     * How old a cached response can be to be served when the network is down
+     */
+    static final int MAX_STALE_DAYS = 7;
+
+    /**
+     * Gateway timeout code, returned by OkHttp when the cache can't satisfy the request
+     */
+    private static final int HTTP_GATEWAY_TIMEOUT = 504;
+
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+
+    /**
+     * The cache statistics to update
+     */
+    private final HttpCacheStats mHttpCacheStats;
+
+    /**
+     * Constructor
+     *
+     * @param httpCacheStats the statistics to update when a stale response is served
+     * @since 1.3.0 2017/05/02
+     */
+    public OfflineCacheInterceptor(HttpCacheStats httpCacheStats) {
+        this.mHttpCacheStats = httpCacheStats;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+
+        try {
+            return chain.proceed(request);
+        } catch (IOException e) {
+            if (!"GET".equals(request.method())) {
+                throw e;
+            }
+
+            // OkHttp doesn't answer the conditional requests from its cache, drop the validators
+            Request cacheRequest = request.newBuilder()
+                    .removeHeader(HEADER_IF_NONE_MATCH)
+                    .removeHeader(HEADER_IF_MODIFIED_SINCE)
+                    .cacheControl(new CacheControl.Builder()
+                            .onlyIfCached()
+                            .maxStale(MAX_STALE_DAYS, TimeUnit.DAYS)
+                            .build())
+                    .build();
+
+            Response response = chain.proceed(cacheRequest);
+
+            if (response.code() == HTTP_GATEWAY_TIMEOUT) {
+                // Nothing on the cache, report the original error
+                response.close();
+                throw e;
+            }
+
+            Timber.w("Network error, serving stale response for %s", request.url());
+            mHttpCacheStats.onStaleResponse();
+
+            return response;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableEmitter;
+import io.reactivex.ObservableOnSubscribe;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Cancellable;
+import io.reactivex.functions.Consumer;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.Headers;
+import retrofit2.adapter.rxjava2.HttpException;
+import timber.log.Timber;
+
+/**
+ * Client side token bucket for the API requests.
+ * <p>
+ * The bucket holds up to {@link #mBurst} tokens and refills at {@link #mPermitsPerSecond}, each
+ * request takes a token before subscribing to the network. Requests without a token wait in a
+ * priority queue, {@link Priority#FOREGROUND} requests are served before the
+ * {@link Priority#BACKGROUND} ones and requests with the same priority are served in order.
+ * <p>
+ * A 429 response pauses the bucket for the time asked in its Retry-After header.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/10
+ * @see ObservableTransformer
+ * @since 1.3.0 2017/05/10
+ */
+public class RateLimiter {
+    /**
+     * Upper bounds of the wait time histogram buckets, the last bucket holds the longer waits
+     */
+    public static final long[] WAIT_BUCKETS_MILLIS = {10, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    /**
+     * Too many requests status code
+     */
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * The pause when a 429 response doesn't say how long to wait
+     */
+    private static final long DEFAULT_RETRY_AFTER_MILLIS = TimeUnit.SECONDS.toMillis(1);
+
+    private static final String HEADER_RETRY_AFTER = "Retry-After";
+
+    /**
+     * Tokens added per second
+     */
+    private final double mPermitsPerSecond;
+
+    /**
+     * The bucket size
+     */
+    private final int mBurst;
+
+    /**
+     * The scheduler the waiting requests are released on
+     */
+    private final Scheduler mScheduler;
+
+    /**
+     * The requests waiting for a token
+     */
+    private final PriorityQueue<Pending> mQueue = new PriorityQueue<>();
+
+    /**
+     * Wait time counts, see {@link #WAIT_BUCKETS_MILLIS}
+     */
+    private final AtomicLongArray mWaitHistogram = new AtomicLongArray(WAIT_BUCKETS_MILLIS.length + 1);
+
+    private double mTokens;
+    private long mLastRefillNanos;
+    private long mPausedUntilNanos;
+    private boolean mDrainScheduled;
+    private long mSequence;
+
+    /**
+     * Constructor
+     *
+     * @param permitsPerSecond tokens added per second
+     * @param burst            the bucket size, the requests that can go out at once
+     * @since 1.3.0 2017/05/10
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, Schedulers.computation());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param permitsPerSecond tokens added per second
+     * @param burst            the bucket size, the requests that can go out at once
+     * @param scheduler        the scheduler the waiting requests are released on
+     * @since 1.3.0 2017/05/10
+     */
+    public RateLimiter(double permitsPerSecond, int burst, Scheduler scheduler) {
+        this.mPermitsPerSecond = permitsPerSecond;
+        this.mBurst = burst;
+        this.mScheduler = scheduler;
+        this.mTokens = burst;
+        this.mLastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Creates the rate limiting operator for a request.
+     *
+     * @param priority the request priority
+     * @param <T>      the response type
+     * @return the operator to compose with the request Observable
+     * @since 1.3.0 2017/05/10
+     */
+    public <T> ObservableTransformer<T, T> limit(final Priority priority) {
+        return new ObservableTransformer<T, T>() {
+            @Override
+            public ObservableSource<T> apply(Observable<T> upstream) {
+                return upstream
+                        .delaySubscription(acquire(priority))
+                        .doOnError(new Consumer<Throwable>() {
+                            @Override
+                            public void accept(Throwable throwable) throws Exception {
+                                if (throwable instanceof HttpException
+                                        && ((HttpException) throwable).code() == HTTP_TOO_MANY_REQUESTS) {
+                                    pause(getRetryAfterMillis((HttpException) throwable));
+                                }
+                            }
+                        });
+            }
+        };
+    }
+
+    /**
+     * Gets the number of requests waiting for a token.
+     *
+     * @return the queue depth
+     * @since 1.3.0 2017/05/10
+     */
+    public synchronized int getQueueDepth() {
+        return mQueue.size();
+    }
+
+    /**
+     * Gets how many requests waited for a token, by wait time.
+     *
+     * @return the count of each {@link #WAIT_BUCKETS_MILLIS} bucket, plus the count of the
+     * waits longer than the last bucket
+     * @since 1.3.0 2017/05/10
+     */
+    public long[] getWaitHistogram() {
+        long[] histogram = new long[mWaitHistogram.length()];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = mWaitHistogram.get(i);
+        }
+        return histogram;
+    }
+
+    /**
+     * Stops handing out tokens for the given time, the tokens left are dropped so the
+     * requests don't burst when the pause ends.
+     *
+     * @param millis the pause length
+     * @since 1.3.0 2017/05/10
+     */
+    public void pause(long millis) {
+        synchronized (this) {
+            long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+
+            if (until > mPausedUntilNanos) {
+                Timber.w("Throttled by the API, pausing the requests for %d ms", millis);
+                mPausedUntilNanos = until;
+                mTokens = 0;
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Creates an Observable that emits once a token is granted to the request.
+     *
+     * @param priority the request priority
+     * @return the token Observable
+     * @since 1.3.0 2017/05/10
+     */
+    private Observable<Long> acquire(final Priority priority) {
+        return Observable.create(new ObservableOnSubscribe<Long>() {
+            @Override
+            public void subscribe(ObservableEmitter<Long> emitter) throws Exception {
+                final Pending pending;
+
+                synchronized (RateLimiter.this) {
+                    pending = new Pending(priority, mSequence++, System.nanoTime(), emitter);
+                    mQueue.add(pending);
+                }
+
+                emitter.setCancellable(new Cancellable() {
+                    @Override
+                    public void cancel() throws Exception {
+                        synchronized (RateLimiter.this) {
+                            mQueue.remove(pending);
+                        }
+                    }
+                });
+
+                drain();
+            }
+        });
+    }
+
+    /**
+     * Hands out the available tokens to the waiting requests, then schedules the next drain
+     * for when a token will be available again.
+     *
+     * @since 1.3.0 2017/05/10
+     */
+    private void drain() {
+        List<Pending> granted = new ArrayList<>();
+        long now;
+
+        synchronized (this) {
+            now = System.nanoTime();
+            refill(now);
+
+            if (now >= mPausedUntilNanos) {
+                while (!mQueue.isEmpty() && mTokens >= 1) {
+                    Pending pending = mQueue.poll();
+
+                    if (!pending.mEmitter.isDisposed()) {
+                        mTokens -= 1;
+                        granted.add(pending);
+                    }
+                }
+            }
+
+            if (!mQueue.isEmpty() && !mDrainScheduled) {
+                long delayNanos = Math.max(mPausedUntilNanos - now,
+                        (long) ((1 - mTokens) * TimeUnit.SECONDS.toNanos(1) / mPermitsPerSecond));
+
+                mDrainScheduled = true;
+                mScheduler.scheduleDirect(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (RateLimiter.this) {
+                            mDrainScheduled = false;
+                        }
+                        drain();
+                    }
+                }, Math.max(0, delayNanos), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        // Outside of the lock, granting a token subscribes to the request
+        for (Pending pending : granted) {
+            recordWait(TimeUnit.NANOSECONDS.toMillis(now - pending.mEnqueuedAtNanos));
+            pending.mEmitter.onNext(0L);
+            pending.mEmitter.onComplete();
+        }
+    }
+
+    /**
+     * Adds the tokens earned since the last refill.
+     *
+     * @param now the current time in nanoseconds
+     * @since 1.3.0 2017/05/10
+     */
+    private void refill(long now) {
+        double earned = (now - mLastRefillNanos) * mPermitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        mTokens = Math.min(mBurst, mTokens + earned);
+        mLastRefillNanos = now;
+    }
+
+    /**
+     * Adds a wait to the histogram.
+     *
+     * @param millis the wait time
+     * @since 1.3.0 2017/05/10
+     */
+    private void recordWait(long millis) {
+        int bucket = 0;
+        while (bucket < WAIT_BUCKETS_MILLIS.length && millis > WAIT_BUCKETS_MILLIS[bucket]) {
+            bucket++;
+        }
+        mWaitHistogram.incrementAndGet(bucket);
+    }
+
+    /**
+     * Reads the Retry-After header of a 429 response, either a delay in seconds or a date.
+     *
+     * @param exception the 429 error
+     * @return the time to wait in milliseconds
+     * @since 1.3.0 2017/05/10
+     */
+    static long getRetryAfterMillis(HttpException exception) {
+        if (exception.response() == null) {
+            return DEFAULT_RETRY_AFTER_MILLIS;
+        }
+
+        Headers headers = exception.response().headers();
+        String retryAfter = headers.get(HEADER_RETRY_AFTER);
+
+        if (retryAfter == null) {
+            return DEFAULT_RETRY_AFTER_MILLIS;
+        }
+
+        try {
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+        } catch (NumberFormatException e) {
+            Date date = headers.getDate(HEADER_RETRY_AFTER);
+            return date != null
+                    ? Math.max(0, date.getTime() - System.currentTimeMillis())
+                    : DEFAULT_RETRY_AFTER_MILLIS;
+        }
+    }
+
+    /**
+     * The request priorities, in serving order
+     *
+     * @since 1.3.0 2017/05/10
+     */
+    public enum Priority {
+        /**
+         * Requests for the content on screen
+         */
+        FOREGROUND,
+        /**
+         * Prefetches of content not visible yet
+         */
+        BACKGROUND
+    }
+
+    /**
+     * A request waiting for a token
+     *
+     * @since 1.3.0 2017/05/10
+     */
+    private static class Pending implements Comparable<Pending> {
+        private final Priority mPriority;
+        private final long mSequence;
+        private final long mEnqueuedAtNanos;
+        private final ObservableEmitter<Long> mEmitter;
+
+        Pending(Priority priority, long sequence, long enqueuedAtNanos, ObservableEmitter<Long> emitter) {
+            this.mPriority = priority;
+            this.mSequence = sequence;
+            this.mEnqueuedAtNanos = enqueuedAtNanos;
+            this.mEmitter = emitter;
+        }
+
+        @Override
+        public int compareTo(Pending other) {
+            int byPriority = mPriority.compareTo(other.mPriority);
+            if (byPriority != 0) {
+                return byPriority;
+            }
+            return mSequence < other.mSequence ? -1 : (mSequence == other.mSequence ? 0 : 1);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.functions.Action;
+
+/**
+ * Single-flight table for the API requests.
+ * <p>
+ * Concurrent subscribers asking for the same key share one upstream subscription, the entry
+ * is removed as soon as the upstream terminates (or every subscriber disposes) so the next
+ * request after that goes to the network again. The last value is replayed, so a subscriber
+ * arriving between the response and the completion still gets the result.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/28
+ * @since 1.3.0 2017/05/05
+ */
+public class RequestCoalescer {
+    /**
+     * The in-flight requests, by key
+     */
+    private final Map<String, Observable<?>> mInFlight = new HashMap<>();
+
+    /**
+     * Requests that joined an in-flight request instead of starting a new one
+     */
+    private final AtomicLong mSavedCount = new AtomicLong();
+
+    /**
+     * Builds a key for the given endpoint and parameters. The requests made with a different
+     * priority must include it, a caller must not wait on a lower priority request.
+     *
+     * @param endpoint the endpoint name
+     * @param params   the request parameters, can contain nulls
+     * @return the key
+     * @since 1.3.0 2017/05/05
+     */
+    public static String key(String endpoint, Object... params) {
+        StringBuilder builder = new StringBuilder(endpoint);
+        for (Object param : params) {
+            builder.append('|').append(param);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Shares the upstream between every concurrent subscriber with the same key.
+     *
+     * @param key      the request key, see {@link #key(String, Object...)}
+     * @param upstream the request to perform, only subscribed when no request with the
+     *                 same key is in flight
+     * @param <T>      the response type
+     * @return an Observable that joins or starts the request on subscription
+     * @since 1.3.0 2017/05/05
+     */
+    public <T> Observable<T> coalesce(final String key, final Observable<T> upstream) {
+        return Observable.defer(new Callable<ObservableSource<T>>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public ObservableSource<T> call() throws Exception {
+                synchronized (mInFlight) {
+                    Observable<T> inFlight = (Observable<T>) mInFlight.get(key);
+
+                    if (inFlight != null) {
+                        mSavedCount.incrementAndGet();
+                        return inFlight;
+                    }
+
+                    final Observable<T>[] shared = new Observable[1];
+                    Action remove = new Action() {
+                        @Override
+                        public void run() throws Exception {
+                            synchronized (mInFlight) {
+                                if (mInFlight.get(key) == shared[0]) {
+                                    mInFlight.remove(key);
+                                }
+                            }
+                        }
+                    };
+
+                    shared[0] = upstream
+                            .doOnTerminate(remove)
+                            .doOnDispose(remove)
+                            .replay(1)
+                            .refCount();
+
+                    mInFlight.put(key, shared[0]);
+                    return shared[0];
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets how many requests joined an in-flight request instead of hitting the network.
+     *
+     * @return the saved requests count
+     * @since 1.3.0 2017/05/05
+     */
+    public long getSavedCount() {
+        return mSavedCount.get();
+    }
+
+    /**
+     * Gets the number of requests currently in flight.
+     *
+     * @return the in-flight count
+     * @since 1.3.0 2017/05/05
+     */
+    public int getInFlightCount() {
+        synchronized (mInFlight) {
+            return mInFlight.size();
+        }
+    }
+}
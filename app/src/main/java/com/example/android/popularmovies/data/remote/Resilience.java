@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.ObservableTransformer;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import retrofit2.adapter.rxjava2.HttpException;
+
+/**
+ * Resilience operators for the API Observables.
+ * <p>
+ * Each request goes through the circuit breaker of its host, transient errors (network
+ * errors, server errors and throttling) are retried following the endpoint's
+ * {@link ResiliencePolicy}, client errors are reported right away.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/09
+ * @see ObservableTransformer
+ * @see CircuitBreaker
+ * @since 1.3.0 2017/05/09
+ */
+public class Resilience {
+    /**
+     * Too many requests status code
+     */
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * Server errors start at this status code
+     */
+    private static final int HTTP_SERVER_ERROR = 500;
+
+    /**
+     * The circuit breakers, by host
+     */
+    private final Map<String, CircuitBreaker> mCircuitBreakers = new HashMap<>();
+
+    /**
+     * Consecutive failures that open a circuit
+     */
+    private final int mFailureThreshold;
+
+    /**
+     * How long a circuit stays open
+     */
+    private final long mCoolDownMillis;
+
+    /**
+     * The scheduler to wait the backoff on
+     */
+    private final Scheduler mScheduler;
+
+    /**
+     * The backoff jitter source
+     */
+    private final Random mRandom = new Random();
+
+    /**
+     * Constructor
+     *
+     * @param failureThreshold consecutive failures that open a circuit
+     * @param coolDownMillis   how long a circuit stays open
+     * @since 1.3.0 2017/05/09
+     */
+    public Resilience(int failureThreshold, long coolDownMillis) {
+        this(failureThreshold, coolDownMillis, Schedulers.computation());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param failureThreshold consecutive failures that open a circuit
+     * @param coolDownMillis   how long a circuit stays open
+     * @param scheduler        the scheduler to wait the backoff on
+     * @since 1.3.0 2017/05/09
+     */
+    public Resilience(int failureThreshold, long coolDownMillis, Scheduler scheduler) {
+        this.mFailureThreshold = failureThreshold;
+        this.mCoolDownMillis = coolDownMillis;
+        this.mScheduler = scheduler;
+    }
+
+    /**
+     * Gets the circuit breaker for the given host, creating it if needed.
+     *
+     * @param host the host
+     * @return the host circuit breaker
+     * @since 1.3.0 2017/05/09
+     */
+    public CircuitBreaker getCircuitBreaker(String host) {
+        synchronized (mCircuitBreakers) {
+            CircuitBreaker circuitBreaker = mCircuitBreakers.get(host);
+
+            if (circuitBreaker == null) {
+                circuitBreaker = new CircuitBreaker(host, mFailureThreshold, mCoolDownMillis);
+                mCircuitBreakers.put(host, circuitBreaker);
+            }
+
+            return circuitBreaker;
+        }
+    }
+
+    /**
+     * Creates the resilience operator for a request.
+     *
+     * @param host   the request host
+     * @param policy the endpoint retry policy
+     * @param <T>    the response type
+     * @return the operator to compose with the request Observable
+     * @since 1.3.0 2017/05/09
+     */
+    public <T> ObservableTransformer<T, T> forEndpoint(final String host, final ResiliencePolicy policy) {
+        final CircuitBreaker circuitBreaker = getCircuitBreaker(host);
+
+        return new ObservableTransformer<T, T>() {
+            @Override
+            public ObservableSource<T> apply(final Observable<T> upstream) {
+                return guard(upstream, host, circuitBreaker)
+                        .retryWhen(new Function<Observable<Throwable>, ObservableSource<?>>() {
+                            @Override
+                            public ObservableSource<?> apply(Observable<Throwable> errors) throws Exception {
+                                return backoff(errors, policy);
+                            }
+                        });
+            }
+        };
+    }
+
+    /**
+     * Wraps a single attempt with the circuit breaker.
+     *
+     * @param upstream       the request
+     * @param host           the request host
+     * @param circuitBreaker the host circuit breaker
+     * @param <T>            the response type
+     * @return the guarded request
+     * @since 1.3.0 2017/05/09
+     */
+    private <T> Observable<T> guard(final Observable<T> upstream, final String host,
+                                    final CircuitBreaker circuitBreaker) {
+        return Observable.defer(new Callable<ObservableSource<T>>() {
+            @Override
+            public ObservableSource<T> call() throws Exception {
+                if (!circuitBreaker.allowRequest()) {
+                    return Observable.error(new CircuitBreaker.CircuitOpenException(host));
+                }
+
+                return upstream
+                        .doOnError(new Consumer<Throwable>() {
+                            @Override
+                            public void accept(Throwable throwable) throws Exception {
+                                if (isTransient(throwable)) {
+                                    circuitBreaker.onFailure();
+                                } else {
+                                    // The host answered, it's healthy
+                                    circuitBreaker.onSuccess();
+                                }
+                            }
+                        })
+                        .doOnComplete(new Action() {
+                            @Override
+                            public void run() throws Exception {
+                                circuitBreaker.onSuccess();
+                            }
+                        })
+                        .doOnDispose(new Action() {
+                            @Override
+                            public void run() throws Exception {
+                                circuitBreaker.onCancel();
+                            }
+                        });
+            }
+        });
+    }
+
+    /**
+     * Turns the errors of a request into the retry signals, waiting the backoff before
+     * each retry.
+     *
+     * @param errors the request errors
+     * @param policy the endpoint retry policy
+     * @return the retry signals
+     * @since 1.3.0 2017/05/09
+     */
+    private Observable<Long> backoff(Observable<Throwable> errors, final ResiliencePolicy policy) {
+        // Called once per subscription, so each subscriber counts its own attempts
+        final AtomicInteger attempts = new AtomicInteger();
+
+        return errors.flatMap(new Function<Throwable, ObservableSource<Long>>() {
+            @Override
+            public ObservableSource<Long> apply(Throwable throwable) throws Exception {
+                int attempt = attempts.getAndIncrement();
+
+                if (attempt >= policy.maxRetries() || !isTransient(throwable)) {
+                    return Observable.error(throwable);
+                }
+
+                return Observable.timer(policy.backoffMillis(attempt, mRandom),
+                        TimeUnit.MILLISECONDS, mScheduler);
+            }
+        });
+    }
+
+    /**
+     * Checks if an error is worth retrying.
+     *
+     * @param throwable the error
+     * @return {@literal true} for network errors, server errors and throttling,
+     * otherwise {@literal false}
+     * @since 1.3.0 2017/05/09
+     */
+    static boolean isTransient(Throwable throwable) {
+        if (throwable instanceof CircuitBreaker.CircuitOpenException) {
+            return false;
+        }
+
+        if (throwable instanceof HttpException) {
+            int code = ((HttpException) throwable).code();
+            return code == HTTP_TOO_MANY_REQUESTS || code >= HTTP_SERVER_ERROR;
+        }
+
+        return throwable instanceof IOException;
+    }
+}
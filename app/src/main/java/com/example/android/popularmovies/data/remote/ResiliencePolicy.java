@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import com.google.auto.value.AutoValue;
+
+import java.util.Random;
+
+/**
+ * Retry configuration for an API endpoint, see {@link Resilience}.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/09
+ * @see AutoValue
+ * @since 1.3.0 2017/05/09
+ */
+@AutoValue
+public abstract class ResiliencePolicy {
+    // Retries after the first attempt, 0 disables the retries
+    public abstract int maxRetries();
+
+    // The backoff before the first retry, doubled on each attempt
+    public abstract long initialBackoffMillis();
+
+    // The backoff upper bound
+    public abstract long maxBackoffMillis();
+
+    /**
+     * Gets the AutoValue_ResiliencePolicy.Builder()
+     *
+     * @return the class Builder
+     * @since 1.3.0 2017/05/09
+     */
+    public static ResiliencePolicy.Builder builder() {
+        return new AutoValue_ResiliencePolicy.Builder();
+    }
+
+    /**
+     * Gets the delay before the given retry, an exponential backoff with equal jitter:
+     * half of the delay is fixed and the other half is random, so the clients that
+     * failed together don't retry together.
+     *
+     * @param attempt the retry attempt, starting at 0
+     * @param random  the jitter source
+     * @return the delay in milliseconds
+     * @since 1.3.0 2017/05/09
+     */
+    public long backoffMillis(int attempt, Random random) {
+        // Cap the shift, the max backoff is reached way before it overflows
+        long exponential = initialBackoffMillis() << Math.min(attempt, 16);
+        long cap = Math.min(maxBackoffMillis(), exponential);
+        long half = cap / 2;
+
+        return half + (long) (random.nextDouble() * (cap - half));
+    }
+
+    /**
+     * Class Builder
+     * </p>
+     * Allows to create new instances of {@link ResiliencePolicy}
+     * using this factory method.
+     *
+     * @since 1.3.0 2017/05/09
+     */
+    @AutoValue.Builder
+    public abstract static class Builder {
+        public abstract ResiliencePolicy.Builder setMaxRetries(int maxRetries);
+
+        public abstract ResiliencePolicy.Builder setInitialBackoffMillis(long initialBackoffMillis);
+
+        public abstract ResiliencePolicy.Builder setMaxBackoffMillis(long maxBackoffMillis);
+
+        public abstract ResiliencePolicy build();
+    }
+}
@@ -21,13 +21,17 @@ import android.content.Context;
 
 import com.example.android.popularmovies.data.DataManager;
 import com.example.android.popularmovies.data.MovieDbApiService;
+import com.example.android.popularmovies.data.local.FavouritesIndex;
 import com.example.android.popularmovies.data.local.SharedPreferencesHelper;
+import com.example.android.popularmovies.data.remote.HttpCacheStats;
 import com.example.android.popularmovies.injection.context.ApplicationContext;
 import com.example.android.popularmovies.injection.module.ApplicationModule;
+import com.squareup.picasso.Picasso;
 
 import javax.inject.Singleton;
 
 import dagger.Component;
+import okhttp3.OkHttpClient;
 
 /**
  * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
@@ -49,4 +53,12 @@ public interface ApplicationComponent {
     SharedPreferencesHelper sharedPreferencesHelper();
 
     DataManager dataManager();
+
+    FavouritesIndex favouritesIndex();
+
+    HttpCacheStats httpCacheStats();
+
+    OkHttpClient okHttpClient();
+
+    Picasso picasso();
 }
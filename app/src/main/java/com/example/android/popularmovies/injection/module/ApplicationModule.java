@@ -20,12 +20,27 @@ import android.app.Application;
 import android.content.Context;
 
 import com.example.android.popularmovies.data.MovieDbApiService;
+import com.example.android.popularmovies.data.remote.ApiKeyInterceptor;
+import com.example.android.popularmovies.data.remote.CacheControlInterceptor;
+import com.example.android.popularmovies.data.remote.HttpCacheStats;
+import com.example.android.popularmovies.data.remote.OfflineCacheInterceptor;
 import com.example.android.popularmovies.injection.context.ApplicationContext;
+import com.jakewharton.picasso.OkHttp3Downloader;
+import com.squareup.picasso.Picasso;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Singleton;
 
 import dagger.Module;
 import dagger.Provides;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 
 /**
  * Provides application level dependency injection
@@ -37,6 +52,16 @@ import dagger.Provides;
  */
 @Module
 public class ApplicationModule {
+    /**
+     * Idle connections kept alive on the shared pool
+     */
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+
+    /**
+     * How long an idle connection is kept alive
+     */
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
     private final Application mApplication;
 
     /**
@@ -71,13 +96,79 @@ public class ApplicationModule {
         return mApplication;
     }
 
+    /**
+     * Provides the HTTP disk cache, bounded to {@link MovieDbApiService#HTTP_CACHE_SIZE}
+     *
+     * @return The HTTP disk cache
+     * @since 1.3.0 2017/05/02
+     */
+    @Provides
+    @Singleton
+    Cache provideHttpCache() {
+        File cacheDir = new File(mApplication.getCacheDir(), MovieDbApiService.HTTP_CACHE_DIR);
+        return new Cache(cacheDir, MovieDbApiService.HTTP_CACHE_SIZE);
+    }
+
+    /**
+     * Provides the application wide HTTP client, every HTTP consumer (Retrofit and Picasso)
+     * shares its connection pool and dispatcher. HTTP/2 is preferred so the poster requests
+     * to the image CDN get multiplexed over a single connection.
+     *
+     * @param cache             The HTTP disk cache
+     * @param httpCacheStats    The cache statistics
+     * @param apiKeyInterceptor Appends the api key to the API requests
+     * @return The shared HTTP client
+     * @since 1.3.0 2017/05/03
+     */
+    @Provides
+    @Singleton
+    OkHttpClient provideOkHttpClient(Cache cache, HttpCacheStats httpCacheStats,
+                                     ApiKeyInterceptor apiKeyInterceptor) {
+        String apiHost = HttpUrl.parse(MovieDbApiService.BASE_API_HOST).host();
+
+        return new OkHttpClient.Builder()
+                .cache(cache)
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .addInterceptor(apiKeyInterceptor)
+                .addInterceptor(new OfflineCacheInterceptor(httpCacheStats))
+                .addNetworkInterceptor(new CacheControlInterceptor(apiHost))
+                .build();
+    }
+
+    /**
+     * Provides the Picasso instance, backed by the shared HTTP client. Images get their own
+     * disk cache so the posters don't evict the API responses, and none of the API
+     * interceptors: the api key, the offline fallback and its cache statistics are API only.
+     *
+     * @param okHttpClient The shared HTTP client
+     * @return The Picasso instance
+     * @since 1.3.0 2017/05/03
+     */
+    @Provides
+    @Singleton
+    Picasso providePicasso(OkHttpClient okHttpClient) {
+        File cacheDir = new File(mApplication.getCacheDir(), MovieDbApiService.IMAGE_CACHE_DIR);
+
+        // newBuilder() keeps the connection pool and the dispatcher
+        OkHttpClient.Builder imageClientBuilder = okHttpClient.newBuilder()
+                .cache(new Cache(cacheDir, MovieDbApiService.IMAGE_CACHE_SIZE));
+        imageClientBuilder.interceptors().clear();
+        imageClientBuilder.networkInterceptors().clear();
+        OkHttpClient imageClient = imageClientBuilder.build();
+
+        return new Picasso.Builder(mApplication)
+                .downloader(new OkHttp3Downloader(imageClient))
+                .build();
+    }
+
     /**
      *
      * @return
      */
     @Provides
     @Singleton
-    MovieDbApiService provideMovieDbApiService() {
-        return MovieDbApiService.Creator.newMovieDbApiService();
+    MovieDbApiService provideMovieDbApiService(OkHttpClient okHttpClient) {
+        return MovieDbApiService.Creator.newMovieDbApiService(okHttpClient);
     }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.ui.base;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * RecyclerView scroll listener that asks for the next page when the last visible item
+ * gets within a given distance of the end of the adapter.
+ * <p>
+ * The listener does not keep any paging state, the {@link LoadMoreListener} decides if
+ * there is a page to load and ignores the calls while it is already loading one.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/06
+ * @see RecyclerView.OnScrollListener
+ * @since 1.3.0 2017/05/06
+ */
+public class EndlessScrollListener extends RecyclerView.OnScrollListener {
+    /**
+     * Items left before the end that trigger the next page
+     */
+    private final int mPrefetchDistance;
+
+    /**
+     * The load more callback
+     */
+    private final LoadMoreListener mListener;
+
+    /**
+     * Constructor
+     *
+     * @param prefetchDistance items left before the end that trigger the next page
+     * @param listener         the load more callback
+     * @since 1.3.0 2017/05/06
+     */
+    public EndlessScrollListener(int prefetchDistance, LoadMoreListener listener) {
+        this.mPrefetchDistance = prefetchDistance;
+        this.mListener = listener;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+        // Only when scrolling towards the end
+        if (dy <= 0) {
+            return;
+        }
+
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+
+        // GridLayoutManager extends LinearLayoutManager
+        if (!(layoutManager instanceof LinearLayoutManager)) {
+            return;
+        }
+
+        int lastVisible = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        int itemCount = layoutManager.getItemCount();
+
+        if (lastVisible != RecyclerView.NO_POSITION && lastVisible + mPrefetchDistance >= itemCount - 1) {
+            mListener.onLoadMore();
+        }
+    }
+
+    /**
+     * Callback interface to request the next page
+     *
+     * @since 1.3.0 2017/05/06
+     */
+    public interface LoadMoreListener {
+        /**
+         * Called when the next page should be loaded
+         *
+         * @since 1.3.0 2017/05/06
+         */
+        void onLoadMore();
+    }
+}
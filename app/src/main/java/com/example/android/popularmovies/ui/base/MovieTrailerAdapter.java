@@ -66,15 +66,22 @@ public class MovieTrailerAdapter extends RecyclerView.Adapter<MovieTrailerAdapte
      */
     private ItemClickListener mListener;
 
+    /**
+     * The image loader
+     */
+    private final Picasso mPicasso;
+
     /**
      * Constructor
      *
      * @param context  The application context
+     * @param picasso  The image loader
      * @param listener The RecyclerView click listener
      * @since 1.2.0 2017/03/30
      */
-    public MovieTrailerAdapter(Context context, ItemClickListener listener) {
+    public MovieTrailerAdapter(Context context, Picasso picasso, ItemClickListener listener) {
         this.mContext = context;
+        this.mPicasso = picasso;
         this.mListener = listener;
         Timber.d(TAG.concat(" Created."));
     }
@@ -118,7 +125,7 @@ public class MovieTrailerAdapter extends RecyclerView.Adapter<MovieTrailerAdapte
 
         // Load the image using picasso
         String url = YOUTUBE_IMG_URL.replace("{id}", video.key());
-        Picasso.with(mContext).load(url)
+        mPicasso.load(url)
                 .placeholder(R.drawable.vector_movie_placeholder)
                 .into(holder.ivThumbnail);
     }
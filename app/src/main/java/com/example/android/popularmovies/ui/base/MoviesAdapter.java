@@ -18,6 +18,7 @@ package com.example.android.popularmovies.ui.base;
 
 import android.content.Context;
 import android.os.Parcelable;
+import android.support.v7.util.DiffUtil;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
 import android.view.LayoutInflater;
@@ -26,6 +27,7 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 
 import com.example.android.popularmovies.R;
+import com.example.android.popularmovies.data.MovieDbApiService;
 import com.example.android.popularmovies.data.model.Movie;
 import com.squareup.picasso.Picasso;
 
@@ -59,15 +61,22 @@ public class MoviesAdapter extends RecyclerView.Adapter<MoviesAdapter.MoviesView
      */
     private Context mContext;
 
+    /**
+     * The image loader
+     */
+    private final Picasso mPicasso;
+
     /**
      * Constructor
      *
      * @param context  The context
+     * @param picasso  The image loader
      * @param listener The on click listener
      * @since 1.0.0 2017/02/13
      */
-    public MoviesAdapter(Context context, MovieItemClickListener listener) {
+    public MoviesAdapter(Context context, Picasso picasso, MovieItemClickListener listener) {
         this.mContext = context;
+        this.mPicasso = picasso;
         this.mListener = listener;
         Log.d(TAG, "Created.");
     }
@@ -111,7 +120,7 @@ public class MoviesAdapter extends RecyclerView.Adapter<MoviesAdapter.MoviesView
         Movie movie = mMovies.get(position);
 
         // Use Picasso to load the image into the view
-        Picasso.with(mContext).load("http://image.tmdb.org/t/p/w185/" + movie.poster_path())
+        mPicasso.load(MovieDbApiService.BASE_IMAGE_URL + "w185/" + movie.poster_path())
                 .fit()
                 .into(holder.moviePoster);
     }
@@ -145,10 +154,113 @@ public class MoviesAdapter extends RecyclerView.Adapter<MoviesAdapter.MoviesView
      * @since 1.0.0 2017/02/13
      */
     public void setMovies(List<Movie> movies) {
-        this.mMovies = movies;
+        this.mMovies = new ArrayList<>(movies);
         notifyDataSetChanged();
     }
 
+    /**
+     * Appends a page of movies to the data collection, only the inserted range
+     * gets bound.
+     *
+     * @param movies the movies to append
+     * @since 1.3.0 2017/05/06
+     */
+    public void addMovies(List<Movie> movies) {
+        if (mMovies == null) {
+            mMovies = new ArrayList<>(movies.size());
+        }
+
+        int start = mMovies.size();
+        mMovies.addAll(movies);
+        notifyItemRangeInserted(start, movies.size());
+    }
+
+    /**
+     * Replaces the movies from the given position to the end, used when a page shown from the
+     * offline copy gets refreshed. Only the affected range gets bound.
+     *
+     * @param start  the position of the first replaced movie
+     * @param movies the new movies
+     * @since 1.3.0 2017/05/15
+     */
+    public void replaceMovies(int start, List<Movie> movies) {
+        if (mMovies == null || start >= mMovies.size()) {
+            addMovies(movies);
+            return;
+        }
+
+        int removed = mMovies.size() - start;
+        mMovies.subList(start, mMovies.size()).clear();
+        mMovies.addAll(movies);
+
+        int changed = Math.min(removed, movies.size());
+        notifyItemRangeChanged(start, changed);
+
+        if (movies.size() > removed) {
+            notifyItemRangeInserted(start + removed, movies.size() - removed);
+        } else if (removed > movies.size()) {
+            notifyItemRangeRemoved(start + movies.size(), removed - movies.size());
+        }
+    }
+
+    /**
+     * Inserts a single movie, only the inserted item gets bound.
+     *
+     * @param position the position of the movie
+     * @param movie    the movie to insert
+     * @since 1.3.0 2017/05/25
+     */
+    public void insertMovie(int position, Movie movie) {
+        if (mMovies == null) {
+            mMovies = new ArrayList<>();
+        }
+
+        mMovies.add(position, movie);
+        notifyItemInserted(position);
+    }
+
+    /**
+     * Replaces a single movie with a new version of it, only that item gets bound again.
+     *
+     * @param position the position of the movie
+     * @param movie    the new version of the movie
+     * @since 1.3.0 2017/05/28
+     */
+    public void changeMovie(int position, Movie movie) {
+        mMovies.set(position, movie);
+        notifyItemChanged(position);
+    }
+
+    /**
+     * Removes a single movie, the other items are not bound again.
+     *
+     * @param position the position of the movie
+     * @since 1.3.0 2017/05/25
+     */
+    public void removeMovie(int position) {
+        mMovies.remove(position);
+        notifyItemRemoved(position);
+    }
+
+    /**
+     * Replaces the data collection with a new version of it, only the movies inserted, removed,
+     * moved or changed get bound. Meant for small collections, the difference is computed on
+     * the calling thread.
+     *
+     * @param movies the new movies
+     * @since 1.3.0 2017/05/26
+     */
+    public void updateMovies(List<Movie> movies) {
+        if (mMovies == null) {
+            setMovies(movies);
+            return;
+        }
+
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new MoviesDiffCallback(mMovies, movies));
+        mMovies = new ArrayList<>(movies);
+        diff.dispatchUpdatesTo(this);
+    }
+
     /**
      * @since 1.0.0 2017/02/13
      */
@@ -205,4 +317,39 @@ public class MoviesAdapter extends RecyclerView.Adapter<MoviesAdapter.MoviesView
             }
         }
     }
+
+    /**
+     * Compares two versions of the data collection, the same movie keeps its id
+     *
+     * @since 1.3.0 2017/05/26
+     */
+    private static class MoviesDiffCallback extends DiffUtil.Callback {
+        private final List<Movie> mOldMovies;
+        private final List<Movie> mNewMovies;
+
+        MoviesDiffCallback(List<Movie> oldMovies, List<Movie> newMovies) {
+            this.mOldMovies = oldMovies;
+            this.mNewMovies = newMovies;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return mOldMovies.size();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return mNewMovies.size();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+            return mOldMovies.get(oldItemPosition).id().equals(mNewMovies.get(newItemPosition).id());
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+            return mOldMovies.get(oldItemPosition).equals(mNewMovies.get(newItemPosition));
+        }
+    }
 }
@@ -37,9 +37,8 @@ import android.widget.TextView;
 
 import com.example.android.popularmovies.R;
 import com.example.android.popularmovies.data.DataManager;
+import com.example.android.popularmovies.data.MovieDbApiService;
 import com.example.android.popularmovies.data.model.Movie;
-import com.example.android.popularmovies.data.model.ReviewCollection;
-import com.example.android.popularmovies.data.model.TrailersCollection;
 import com.example.android.popularmovies.data.model.Video;
 import com.example.android.popularmovies.ui.base.BaseActivity;
 import com.example.android.popularmovies.ui.base.MovieTrailerAdapter;
@@ -102,6 +101,10 @@ public class MovieDetailActivity extends BaseActivity implements MovieTrailerAda
     @Inject
     DataManager mDataManager;
 
+    // Injects the shared image loader using dagger2
+    @Inject
+    Picasso mPicasso;
+
     // The current movie detail
     private Movie mMovie;
 
@@ -152,8 +155,7 @@ public class MovieDetailActivity extends BaseActivity implements MovieTrailerAda
      */
     private void initUI(Movie movie) {
         // Use Picasso to load the image into the view
-        Picasso.with(mIvMoviePoster.getContext())
-                .load("http://image.tmdb.org/t/p/w780/" + movie.poster_path())
+        mPicasso.load(MovieDbApiService.BASE_IMAGE_URL + "w780/" + movie.poster_path())
                 .placeholder(R.drawable.vector_movie_placeholder)
                 .error(R.drawable.vector_movie_placeholder)
                 .into(mIvMoviePoster);
@@ -162,8 +164,7 @@ public class MovieDetailActivity extends BaseActivity implements MovieTrailerAda
 
         if (mAppBarImage != null) {
             // load the parallax photo
-            Picasso.with(mIvMoviePoster.getContext())
-                    .load("http://image.tmdb.org/t/p/w500/" + movie.backdrop_path())
+            mPicasso.load(MovieDbApiService.BASE_IMAGE_URL + "w500/" + movie.backdrop_path())
                     .placeholder(R.color.colorPrimary)
                     .error(R.color.colorPrimary)
                     .fit()
@@ -178,10 +179,7 @@ public class MovieDetailActivity extends BaseActivity implements MovieTrailerAda
         mTvOverview.setText(movie.overview());
         mTvReleaseDate.setText(movie.release_date());
 
-        // Load the movie trailers
-        getMovieTrailers(movie);
-
-        mMovieTrailerAdapter = new MovieTrailerAdapter(this, this);
+        mMovieTrailerAdapter = new MovieTrailerAdapter(this, mPicasso, this);
 
         mPagerTrailers.setLayoutManager(new LinearLayoutManager(this, LinearLayoutManager.HORIZONTAL, false));
         mPagerTrailers.setHasFixedSize(true);
@@ -189,9 +187,6 @@ public class MovieDetailActivity extends BaseActivity implements MovieTrailerAda
         mPagerTrailers.setFocusable(false);
         mPagerTrailers.setAdapter(mMovieTrailerAdapter);
 
-        // Load the movie reviews
-        getMovieReviews(movie);
-
         mReviewsAdapter = new ReviewsAdapter(this);
 
         LinearLayoutManager linearLayoutManager = new LinearLayoutManager(this, LinearLayoutManager.VERTICAL, false);
@@ -201,6 +196,9 @@ public class MovieDetailActivity extends BaseActivity implements MovieTrailerAda
         mRvMovieReviews.setAdapter(mReviewsAdapter);
         mRvMovieReviews.setFocusable(false);
 
+        // Load the details, trailers and reviews
+        getMovieDetail(movie);
+
         if (mDataManager.isFavorite(mMovie)) {
             mFabMovieDetail.setImageResource(R.drawable.vector_ic_favorite);
         } else {
@@ -237,77 +235,62 @@ public class MovieDetailActivity extends BaseActivity implements MovieTrailerAda
     }
 
     /**
+     * Loads the movie details, trailers and reviews with a single request.
+     *
      * @param movie The movie
-     * @since 1.0.0 2017/02/14
+     * @since 1.3.0 2017/05/08
      */
-    private void getMovieTrailers(Movie movie) {
-        mDataManager.getTrailers(movie.id())
+    private void getMovieDetail(Movie movie) {
+        mDataManager.getMovieDetail(movie.id())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribeOn(Schedulers.io())
-                .subscribeWith(new DisposableObserver<TrailersCollection>() {
+                .subscribeWith(new DisposableObserver<Movie>() {
 
                     @Override
-                    public void onNext(TrailersCollection value) {
-                        Timber.i("Get Trailers DisposableObserver onNext.");
-                        // set the adapter data
-                        mMovieTrailerAdapter.setVideos(value.results());
-
-                        // Show the card
-                        mCvTrailers.setVisibility(View.VISIBLE);
+                    public void onNext(Movie value) {
+                        Timber.i("Get Movie Detail DisposableObserver onNext.");
+                        bindMovieDetail(value);
                     }
 
                     @Override
                     public void onError(Throwable e) {
                         Timber.e(e, e.getMessage());
-                        // Parse the error to show a user friendly message
 
-                        // Hide the card
-                        mCvTrailers.setVisibility(View.VISIBLE);
+                        // Hide the cards
+                        mCvTrailers.setVisibility(View.GONE);
+                        mCvReviews.setVisibility(View.GONE);
                     }
 
                     @Override
                     public void onComplete() {
-                        Timber.i("Get Trailers DisposableObserver completed.");
+                        Timber.i("Get Movie Detail DisposableObserver completed.");
                     }
                 });
     }
 
     /**
-     * @param movie The movie
-     * @since 1.0.0 2017/02/14
+     * Binds the fields only available on the movie details.
+     *
+     * @param detail The movie details
+     * @since 1.3.0 2017/05/08
      */
-    private void getMovieReviews(Movie movie) {
-        try {
-            mDataManager.getReviews(movie.id())
-                    .observeOn(AndroidSchedulers.mainThread())
-                    .subscribeOn(Schedulers.io())
-                    .subscribeWith(new DisposableObserver<ReviewCollection>() {
-
-                        @Override
-                        public void onNext(ReviewCollection value) {
-                            Timber.i("Get Reviews DisposableObserver onNext.");
-                            // set the adapter data
-                            mReviewsAdapter.setReviews(value.results());
-
-                            // Show the card
-                            mCvReviews.setVisibility(View.VISIBLE);
-                        }
-
-                        @Override
-                        public void onError(Throwable e) {
-                            Timber.e(e, e.getMessage());
-
-                            // hide the card
-                            mCvReviews.setVisibility(View.GONE);
-                        }
-
-                        @Override
-                        public void onComplete() {
-                            Timber.i("Get Reviews DisposableObserver completed.");
-                        }
-                    });
-        } catch (Exception e) {
-            Timber.e(e, e.getMessage());
+    private void bindMovieDetail(Movie detail) {
+        if (detail.runtime() != null) {
+            mTvDuration.setText(getString(R.string.format_runtime, detail.runtime()));
+        }
+
+        if (detail.videos() != null && !detail.videos().results().isEmpty()) {
+            mMovieTrailerAdapter.setVideos(detail.videos().results());
+            mCvTrailers.setVisibility(View.VISIBLE);
+        } else {
+            mCvTrailers.setVisibility(View.GONE);
+        }
+
+        if (detail.reviews() != null && !detail.reviews().results().isEmpty()) {
+            mReviewsAdapter.setReviews(detail.reviews().results());
+            mCvReviews.setVisibility(View.VISIBLE);
+        } else {
+            mCvReviews.setVisibility(View.GONE);
         }
     }
 
@@ -32,9 +32,8 @@ import android.widget.TextView;
 
 import com.example.android.popularmovies.R;
 import com.example.android.popularmovies.data.DataManager;
+import com.example.android.popularmovies.data.MovieDbApiService;
 import com.example.android.popularmovies.data.model.Movie;
-import com.example.android.popularmovies.data.model.ReviewCollection;
-import com.example.android.popularmovies.data.model.TrailersCollection;
 import com.example.android.popularmovies.data.model.Video;
 import com.example.android.popularmovies.ui.base.BaseActivity;
 import com.example.android.popularmovies.ui.base.BaseFragment;
@@ -105,6 +104,11 @@ public class MovieDetailFragment extends BaseFragment implements MovieTrailerAda
      */
     @Inject
     DataManager mDataManager;
+    /**
+     * Inject the shared image loader using dagger2
+     */
+    @Inject
+    Picasso mPicasso;
     /**
      * Fragment interaction listener
      */
@@ -185,10 +189,10 @@ public class MovieDetailFragment extends BaseFragment implements MovieTrailerAda
         // Re the UI
         mCvReviews.setVisibility(View.GONE);
         mCvTrailers.setVisibility(View.GONE);
+        mTvDuration.setText(null);
 
         // Use Picasso to load the image into the view
-        Picasso.with(mIvMoviePoster.getContext())
-                .load("http://image.tmdb.org/t/p/w780/" + movie.backdrop_path())
+        mPicasso.load(MovieDbApiService.BASE_IMAGE_URL + "w780/" + movie.backdrop_path())
                 .placeholder(R.drawable.vector_movie_placeholder)
                 .error(R.drawable.vector_movie_placeholder)
                 .into(mIvMoviePoster);
@@ -201,10 +205,7 @@ public class MovieDetailFragment extends BaseFragment implements MovieTrailerAda
         mTvOverview.setText(movie.overview());
         mTvReleaseDate.setText(movie.release_date());
 
-        // Load the movie trailers
-        getMovieTrailers(movie);
-
-        mMovieTrailerAdapter = new MovieTrailerAdapter(getActivity(), this);
+        mMovieTrailerAdapter = new MovieTrailerAdapter(getActivity(), mPicasso, this);
 
         mPagerTrailers.setLayoutManager(new LinearLayoutManager(getActivity(), LinearLayoutManager.HORIZONTAL, false));
         mPagerTrailers.setHasFixedSize(true);
@@ -212,9 +213,6 @@ public class MovieDetailFragment extends BaseFragment implements MovieTrailerAda
         mPagerTrailers.setFocusable(false);
         mPagerTrailers.setAdapter(mMovieTrailerAdapter);
 
-        // Load the movie reviews
-        getMovieReviews(movie);
-
         mReviewsAdapter = new ReviewsAdapter(getActivity());
 
         LinearLayoutManager linearLayoutManager = new LinearLayoutManager(getActivity(), LinearLayoutManager.VERTICAL, false);
@@ -227,6 +225,9 @@ public class MovieDetailFragment extends BaseFragment implements MovieTrailerAda
         if (mTvMovieTitle != null) {
             mTvMovieTitle.setText(movie.title());
         }
+
+        // Load the details, trailers and reviews
+        getMovieDetail(movie);
     }
 
     /**
@@ -249,73 +250,58 @@ public class MovieDetailFragment extends BaseFragment implements MovieTrailerAda
     }
 
     /**
+     * Loads the movie details, trailers and reviews with a single request.
+     *
      * @param movie The movie
-     * @since 1.0.0 2017/02/14
+     * @since 1.3.0 2017/05/08
      */
-    private void getMovieTrailers(Movie movie) {
-        mDataManager.getTrailers(movie.id())
+    private void getMovieDetail(Movie movie) {
+        mDataManager.getMovieDetail(movie.id())
                 .observeOn(AndroidSchedulers.mainThread())
                 .subscribeOn(Schedulers.io())
-                .subscribeWith(new DisposableObserver<TrailersCollection>() {
+                .subscribeWith(new DisposableObserver<Movie>() {
 
                     @Override
-                    public void onNext(TrailersCollection value) {
-                        Timber.i("Get Trailers DisposableObserver onNext.");
-                        // set the adapter data
-                        mMovieTrailerAdapter.setVideos(value.results());
-
-                        // Show the card
-                        mCvTrailers.setVisibility(View.VISIBLE);
+                    public void onNext(Movie value) {
+                        Timber.i("Get Movie Detail DisposableObserver onNext.");
+                        bindMovieDetail(value);
                     }
 
                     @Override
                     public void onError(Throwable e) {
                         Timber.e(e, e.getMessage());
-                        // hide the card
+
+                        // hide the cards
                         mCvTrailers.setVisibility(View.GONE);
+                        mCvReviews.setVisibility(View.GONE);
                     }
 
                     @Override
                     public void onComplete() {
-                        Timber.i("Get Trailers DisposableObserver completed.");
+                        Timber.i("Get Movie Detail DisposableObserver completed.");
                     }
                 });
     }
 
     /**
-     * @param movie The movie
-     * @since 1.0.0 2017/02/14
+     * Binds the fields only available on the movie details.
+     *
+     * @param detail The movie details
+     * @since 1.3.0 2017/05/08
      */
-    private void getMovieReviews(Movie movie) {
-        try {
-            mDataManager.getReviews(movie.id())
-                    .observeOn(AndroidSchedulers.mainThread())
-                    .subscribeOn(Schedulers.io())
-                    .subscribeWith(new DisposableObserver<ReviewCollection>() {
-
-                        @Override
-                        public void onNext(ReviewCollection value) {
-                            Timber.i("Get Reviews DisposableObserver onNext.");
-                            // set the adapter data
-                            mReviewsAdapter.setReviews(value.results());
-
-                            // Show the card
-                            mCvReviews.setVisibility(View.VISIBLE);
-                        }
-
-                        @Override
-                        public void onError(Throwable e) {
-                            Timber.e(e, e.getMessage());
-                            mCvTrailers.setVisibility(View.VISIBLE);
-                        }
-
-                        @Override
-                        public void onComplete() {
-                            Timber.i("Get Reviews DisposableObserver completed.");
-                        }
-                    });
-        } catch (Exception e) {
-            Timber.e(e, e.getMessage());
+    private void bindMovieDetail(Movie detail) {
+        if (detail.runtime() != null) {
+            mTvDuration.setText(getString(R.string.format_runtime, detail.runtime()));
+        }
+
+        if (detail.videos() != null && !detail.videos().results().isEmpty()) {
+            mMovieTrailerAdapter.setVideos(detail.videos().results());
+            mCvTrailers.setVisibility(View.VISIBLE);
+        }
+
+        if (detail.reviews() != null && !detail.reviews().results().isEmpty()) {
+            mReviewsAdapter.setReviews(detail.reviews().results());
+            mCvReviews.setVisibility(View.VISIBLE);
         }
     }
 
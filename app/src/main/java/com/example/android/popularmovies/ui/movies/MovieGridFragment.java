@@ -29,15 +29,21 @@ import android.widget.ProgressBar;
 
 import com.example.android.popularmovies.R;
 import com.example.android.popularmovies.data.DataManager;
+import com.example.android.popularmovies.data.local.FavouritesOrder;
+import com.example.android.popularmovies.data.local.MovieChanges;
 import com.example.android.popularmovies.data.model.Movie;
 import com.example.android.popularmovies.data.model.MovieCollection;
+import com.example.android.popularmovies.data.remote.RateLimiter;
 import com.example.android.popularmovies.ui.base.BaseActivity;
 import com.example.android.popularmovies.ui.base.BaseFragment;
+import com.example.android.popularmovies.ui.base.EndlessScrollListener;
 import com.example.android.popularmovies.ui.base.MoviesAdapter;
 import com.example.android.popularmovies.ui.core.Constants;
 import com.example.android.popularmovies.ui.core.ErrorView;
 import com.example.android.popularmovies.util.ViewUtil;
+import com.squareup.picasso.Picasso;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -48,7 +54,9 @@ import butterknife.Unbinder;
 import icepick.Bundler;
 import icepick.State;
 import io.reactivex.android.schedulers.AndroidSchedulers;
+import io.reactivex.disposables.CompositeDisposable;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
 import io.reactivex.observers.DisposableObserver;
 import io.reactivex.schedulers.Schedulers;
 import timber.log.Timber;
@@ -61,7 +69,8 @@ import timber.log.Timber;
  * Use the {@link MovieGridFragment#newInstance} factory method to
  * create an instance of this fragment.
  */
-public class MovieGridFragment extends BaseFragment implements MoviesAdapter.MovieItemClickListener {
+public class MovieGridFragment extends BaseFragment implements MoviesAdapter.MovieItemClickListener,
+        EndlessScrollListener.LoadMoreListener {
 
     public static final String TAG = MovieGridFragment.class.getSimpleName();
 
@@ -79,12 +88,17 @@ public class MovieGridFragment extends BaseFragment implements MoviesAdapter.Mov
     @Inject
     DataManager mDataManager;
     /**
-     * The current movie collection to display
+     * Inject the shared image loader using dagger2
+     */
+    @Inject
+    Picasso mPicasso;
+    /**
+     * The current movie collection to display, holds every page loaded so far
      */
     @State(CustomBundler.class)
     MovieCollection mMovieCollection;
     /**
-     * The page to fetch from the API
+     * The last page fetched from the API
      * defaults to 1
      */
     @State
@@ -99,6 +113,26 @@ public class MovieGridFragment extends BaseFragment implements MoviesAdapter.Mov
      * RxJava subscription to fetch data
      */
     private Disposable mDisposableSubscription;
+    /**
+     * RxJava subscription loading the selected movie
+     */
+    private Disposable mSelectionSubscription;
+    /**
+     * RxJava subscription to the stored changes while the grid shows the favourites
+     */
+    private Disposable mChangesSubscription;
+    /**
+     * RxJava subscription reloading the favourites after a change not limited to a movie
+     */
+    private Disposable mReloadSubscription;
+    /**
+     * RxJava subscriptions loading the added or changed favourites
+     */
+    private final CompositeDisposable mMovieSubscriptions = new CompositeDisposable();
+    /**
+     * Flag to avoid requesting the same page twice while scrolling
+     */
+    private boolean mLoadingPage;
     private OnFragmentInteractionListener mListener;
 
     /**
@@ -131,12 +165,17 @@ public class MovieGridFragment extends BaseFragment implements MoviesAdapter.Mov
         RecyclerView.LayoutManager layoutManager = ViewUtil.configGridLayout(view.getContext());
         mRvMovies.setLayoutManager(layoutManager);
 
-        mMoviesAdapter = new MoviesAdapter(view.getContext(), this);
+        mMoviesAdapter = new MoviesAdapter(view.getContext(), mPicasso, this);
         mRvMovies.setAdapter(mMoviesAdapter);
 
+        // Prefetch the next page before reaching the end of the grid
+        int prefetchDistance = getResources().getInteger(R.integer.prefetch_distance);
+        mRvMovies.addOnScrollListener(new EndlessScrollListener(prefetchDistance, this));
+
         if (savedInstanceState != null) {
             if (mMovieCollection != null) {
                 setAdapterData(mMovieCollection.results());
+                observeFavourites();
             }
         }
 
@@ -150,7 +189,7 @@ public class MovieGridFragment extends BaseFragment implements MoviesAdapter.Mov
     public void onConfigurationChanged(Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
         // Due to a bug on the grid redraw recreate the adapter
-        mMoviesAdapter = new MoviesAdapter(getContext(), this);
+        mMoviesAdapter = new MoviesAdapter(getContext(), mPicasso, this);
         mRvMovies.setAdapter(mMoviesAdapter);
 
         // Config the grid
@@ -195,79 +234,473 @@ public class MovieGridFragment extends BaseFragment implements MoviesAdapter.Mov
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        stopObservingFavourites();
         unbinder.unbind();
     }
 
+    /**
+     * Follows the stored changes while the grid shows the favourites. The changes of single
+     * movies are applied to the grid item by item, only the changes not limited to a movie
+     * reload the favourites shown.
+     *
+     * @since 1.3.0 2017/05/26
+     */
+    private void observeFavourites() {
+        stopObservingFavourites();
+
+        if (mSort != Constants.FAVOURITES || mMovieCollection == null) {
+            return;
+        }
+
+        mChangesSubscription = mDataManager.getStoredChanges()
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Consumer<MovieChanges.Change>() {
+                    @Override
+                    public void accept(MovieChanges.Change change) throws Exception {
+                        onStoredChange(change);
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable e) throws Exception {
+                        Timber.e(e, e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Stops following the stored changes and drops the pending loads.
+     *
+     * @since 1.3.0 2017/05/28
+     */
+    private void stopObservingFavourites() {
+        if (mChangesSubscription != null) {
+            mChangesSubscription.dispose();
+        }
+
+        if (mReloadSubscription != null) {
+            mReloadSubscription.dispose();
+        }
+
+        mMovieSubscriptions.clear();
+    }
+
+    /**
+     * Applies a stored change to the favourites grid. A removed favourite is removed from the
+     * grid, an added one is loaded and inserted first, the newest favourites go first, and a
+     * changed movie on the grid is loaded and replaced.
+     *
+     * @param change the stored change
+     * @since 1.3.0 2017/05/25
+     */
+    private void onStoredChange(MovieChanges.Change change) {
+        if (mSort != Constants.FAVOURITES || mMovieCollection == null) {
+            return;
+        }
+
+        if (change.getMovieId() == MovieChanges.Change.ANY_MOVIE) {
+            reloadFavourites();
+            return;
+        }
+
+        long movieId = change.getMovieId();
+        int position = indexOf(movieId);
+        boolean favourite = mDataManager.isFavorite(movieId);
+
+        if (position >= 0 && !favourite) {
+            removeShownMovie(position);
+        } else if (favourite && (position >= 0 || change.isFavourites())) {
+            loadShownMovie(movieId);
+        }
+    }
+
+    /**
+     * Loads a stored favourite and inserts or replaces it on the grid, unless it stopped
+     * being a favourite meanwhile.
+     *
+     * @param movieId the movie id
+     * @since 1.3.0 2017/05/28
+     */
+    private void loadShownMovie(final long movieId) {
+        mMovieSubscriptions.add(mDataManager.getStoredMovie(movieId)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribeOn(Schedulers.io())
+                .subscribe(new Consumer<Movie>() {
+                    @Override
+                    public void accept(Movie movie) throws Exception {
+                        if (mSort != Constants.FAVOURITES || mMovieCollection == null ||
+                                !mDataManager.isFavorite(movieId)) {
+                            return;
+                        }
+
+                        int position = indexOf(movieId);
+                        if (position >= 0) {
+                            changeShownMovie(position, movie);
+                        } else {
+                            insertShownMovie(movie);
+                        }
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable e) throws Exception {
+                        Timber.e(e, e.getMessage());
+                    }
+                }));
+    }
+
+    /**
+     * Reads the favourites shown again, after a batch changing too many movies to tell them
+     * one by one. A reload in progress is dropped.
+     *
+     * @since 1.3.0 2017/05/28
+     */
+    private void reloadFavourites() {
+        if (mReloadSubscription != null) {
+            mReloadSubscription.dispose();
+        }
+
+        int limit = Math.max(DataManager.FAVOURITES_PAGE_SIZE, mMovieCollection.results().size());
+
+        // The live query emits the current favourites on subscription
+        mReloadSubscription = mDataManager.observeFavourites(FavouritesOrder.ADDED_AT, limit)
+                .take(1)
+                .observeOn(AndroidSchedulers.mainThread())
+                .subscribe(new Consumer<MovieCollection>() {
+                    @Override
+                    public void accept(MovieCollection value) throws Exception {
+                        onFavouritesReloaded(value);
+                    }
+                }, new Consumer<Throwable>() {
+                    @Override
+                    public void accept(Throwable e) throws Exception {
+                        Timber.e(e, e.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Replaces the favourites on the grid with their current version.
+     *
+     * @param value the favourites loaded so far, as stored now
+     * @since 1.3.0 2017/05/26
+     */
+    private void onFavouritesReloaded(MovieCollection value) {
+        if (value.results().equals(mMovieCollection.results())) {
+            return;
+        }
+
+        mMovieCollection = MovieCollection.builder()
+                .setPage(mPage)
+                .setResults(value.results())
+                .setTotal_pages(value.total_pages())
+                .setTotal_results(value.total_results())
+                .build();
+
+        if (value.results().isEmpty()) {
+            // The last favourite was removed
+            if (mListener != null) {
+                mListener.onEmptyResult();
+            }
+        } else {
+            mMoviesAdapter.updateMovies(value.results());
+            showProgressIndicator(false);
+        }
+    }
+
+    /**
+     * @param movieId the movie id
+     * @return the grid position of the movie, -1 if it's not shown
+     * @since 1.3.0 2017/05/25
+     */
+    private int indexOf(long movieId) {
+        List<Movie> shown = mMovieCollection.results();
+        for (int i = 0; i < shown.size(); i++) {
+            if (shown.get(i).id() == movieId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Inserts a new favourite first on the collection and on the grid.
+     *
+     * @param movie the added movie
+     * @since 1.3.0 2017/05/25
+     */
+    private void insertShownMovie(Movie movie) {
+        List<Movie> results = new ArrayList<>(mMovieCollection.results());
+        results.add(0, movie);
+        setShownMovies(results, mMovieCollection.total_results() + 1);
+
+        mMoviesAdapter.insertMovie(0, movie);
+        mRvMovies.scrollToPosition(0);
+    }
+
+    /**
+     * Replaces a changed favourite on the collection and on the grid.
+     *
+     * @param position the grid position of the movie
+     * @param movie    the stored movie
+     * @since 1.3.0 2017/05/28
+     */
+    private void changeShownMovie(int position, Movie movie) {
+        List<Movie> results = new ArrayList<>(mMovieCollection.results());
+        results.set(position, movie);
+        setShownMovies(results, mMovieCollection.total_results());
+
+        mMoviesAdapter.changeMovie(position, movie);
+    }
+
+    /**
+     * Removes a movie from the collection and from the grid.
+     *
+     * @param position the grid position of the movie
+     * @since 1.3.0 2017/05/25
+     */
+    private void removeShownMovie(int position) {
+        List<Movie> results = new ArrayList<>(mMovieCollection.results());
+        results.remove(position);
+        setShownMovies(results, Math.max(0, mMovieCollection.total_results() - 1));
+
+        mMoviesAdapter.removeMovie(position);
+
+        if (results.isEmpty() && mListener != null) {
+            mListener.onEmptyResult();
+        }
+    }
+
+    /**
+     * Replaces the shown movies of the current collection.
+     *
+     * @param results the shown movies
+     * @param total   the total favourites
+     * @since 1.3.0 2017/05/25
+     */
+    private void setShownMovies(List<Movie> results, int total) {
+        mMovieCollection = MovieCollection.builder()
+                .setPage(mMovieCollection.page())
+                .setResults(results)
+                .setTotal_pages(mMovieCollection.total_pages())
+                .setTotal_results(total)
+                .build();
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     public void onMovieClick(Movie movie) {
-        // Forward to the activity, the parent should add the detail view or create an intent to details
+        if (mSort == Constants.FAVOURITES) {
+            // The favourites grid only reads the poster columns, load the full movie first
+            if (mSelectionSubscription != null) {
+                mSelectionSubscription.dispose();
+            }
+
+            mSelectionSubscription = mDataManager.getStoredMovie(movie.id())
+                    .defaultIfEmpty(movie)
+                    .observeOn(AndroidSchedulers.mainThread())
+                    .subscribeOn(Schedulers.io())
+                    .subscribe(new Consumer<Movie>() {
+                        @Override
+                        public void accept(Movie movie) throws Exception {
+                            selectMovie(movie);
+                        }
+                    }, new Consumer<Throwable>() {
+                        @Override
+                        public void accept(Throwable e) throws Exception {
+                            Timber.e(e, e.getMessage());
+                        }
+                    });
+        } else {
+            selectMovie(movie);
+        }
+    }
+
+    /**
+     * Forwards the selected movie to the activity, the parent should add the detail view or
+     * create an intent to details.
+     *
+     * @param movie the selected movie
+     * @since 1.3.0 2017/05/20
+     */
+    private void selectMovie(Movie movie) {
         if (mListener != null) {
             mListener.onMovieSelected(movie);
         }
     }
 
     /**
-     * @param sort
+     * {@inheritDoc}
+     */
+    @Override
+    public void onLoadMore() {
+        if (mLoadingPage || mMovieCollection == null || mPage >= mMovieCollection.total_pages()) {
+            return;
+        }
+
+        loadPage(mSort, mPage + 1);
+    }
+
+    /**
+     * Loads the first page of the given sort, replacing the grid contents.
+     *
+     * @param sort the sort option, see {@link Constants}
      */
     public void loadMovies(short sort) {
+        mSort = sort;
+        mMovieCollection = null;
+        loadPage(sort, 1);
+    }
+
+    /**
+     * Loads a page of the given sort, the first page replaces the grid contents while
+     * the next ones are appended.
+     *
+     * @param sort the sort option, see {@link Constants}
+     * @param page the page to load
+     * @since 1.3.0 2017/05/06
+     */
+    private void loadPage(short sort, int page) {
         if (mDisposableSubscription != null) {
             mDisposableSubscription.dispose();
         }
 
+        // The loaded page would be changed by the favourites followed before it
+        stopObservingFavourites();
+
+        mLoadingPage = true;
+
+        // The first page is on screen, the next ones are prefetches
+        RateLimiter.Priority priority = page == 1
+                ? RateLimiter.Priority.FOREGROUND
+                : RateLimiter.Priority.BACKGROUND;
+
         switch (sort) {
             case Constants.SORT_MOST_POPULAR:
-                mDisposableSubscription = mDataManager.getPopularMovies(mPage, null)
+                mDisposableSubscription = mDataManager.getPopularMovies(page, null, priority)
                         .observeOn(AndroidSchedulers.mainThread())
                         .subscribeOn(Schedulers.io())
-                        .subscribeWith(newDisposableObserver());
+                        .subscribeWith(newDisposableObserver(page));
                 break;
             case Constants.SORT_TOP_RATED:
-                mDisposableSubscription = mDataManager.getTopRatedMovies(mPage, null)
+                mDisposableSubscription = mDataManager.getTopRatedMovies(page, null, priority)
                         .observeOn(AndroidSchedulers.mainThread())
                         .subscribeOn(Schedulers.io())
-                        .subscribeWith(newDisposableObserver());
+                        .subscribeWith(newDisposableObserver(page));
                 break;
             default:
-                mDisposableSubscription = mDataManager.getFavourites(mPage)
+                // The next favourites page starts after the last movie on the grid
+                List<Movie> shown = mMovieCollection != null ? mMovieCollection.results() : null;
+                Long afterMovieId = page > 1 && shown != null && !shown.isEmpty()
+                        ? shown.get(shown.size() - 1).id()
+                        : null;
+
+                mDisposableSubscription = mDataManager.getFavourites(FavouritesOrder.ADDED_AT, page, afterMovieId)
                         .observeOn(AndroidSchedulers.mainThread())
                         .subscribeOn(Schedulers.io())
-                        .subscribeWith(newDisposableObserver());
+                        .subscribeWith(newDisposableObserver(page));
                 break;
         }
     }
 
     /**
-     * @return
+     * @param page the page being loaded
+     * @return a new observer for the page
      */
-    private DisposableObserver<MovieCollection> newDisposableObserver() {
-        showProgressIndicator(true);
+    private DisposableObserver<MovieCollection> newDisposableObserver(final int page) {
+        final boolean firstPage = page == 1;
+
+        if (firstPage) {
+            showProgressIndicator(true);
+        }
+
         return new DisposableObserver<MovieCollection>() {
+            /**
+             * Grid position of the page, a page shown from the offline copy is emitted again
+             * once refreshed and replaces itself
+             */
+            private int mStart = -1;
+
             @Override
             public void onNext(MovieCollection value) {
-                Timber.i("Get Movies DisposableObserver onNext.");
-                setAdapterData(value.results());
+                Timber.i("Get Movies DisposableObserver onNext, page %d.", page);
+                mPage = page;
+
+                if (firstPage) {
+                    mMovieCollection = value;
+                    setAdapterData(value.results());
+                } else if (mStart < 0) {
+                    mStart = mMovieCollection.results().size();
+                    appendPage(value);
+                } else {
+                    replacePage(mStart, value);
+                }
             }
 
             @Override
             public void onError(Throwable e) {
                 Timber.e(e, e.getMessage());
-
-                showProgressIndicator(false);
-                if (mListener != null) {
-                    mListener.onMoviesLoadError(R.string.error_no_network);
+                mLoadingPage = false;
+
+                // A failed prefetch keeps the pages already on screen
+                if (firstPage) {
+                    showProgressIndicator(false);
+                    if (mListener != null) {
+                        mListener.onMoviesLoadError(R.string.error_no_network);
+                    }
                 }
             }
 
             @Override
             public void onComplete() {
-                Timber.i("Get Popular Movies DisposableObserver completed.");
+                Timber.i("Get Movies DisposableObserver completed.");
+                mLoadingPage = false;
+                observeFavourites();
             }
         };
     }
 
+    /**
+     * Appends a page to the current collection and to the grid.
+     *
+     * @param value the page to append
+     * @since 1.3.0 2017/05/06
+     */
+    private void appendPage(MovieCollection value) {
+        List<Movie> results = new ArrayList<>(mMovieCollection.results());
+        results.addAll(value.results());
+
+        mMovieCollection = MovieCollection.builder()
+                .setPage(value.page())
+                .setResults(results)
+                .setTotal_pages(value.total_pages())
+                .setTotal_results(value.total_results())
+                .build();
+
+        mMoviesAdapter.addMovies(value.results());
+    }
+
+    /**
+     * Replaces a page already on the grid with its refreshed copy.
+     *
+     * @param start the grid position of the page
+     * @param value the refreshed page
+     * @since 1.3.0 2017/05/15
+     */
+    private void replacePage(int start, MovieCollection value) {
+        List<Movie> results = new ArrayList<>(mMovieCollection.results().subList(0, start));
+        results.addAll(value.results());
+
+        mMovieCollection = MovieCollection.builder()
+                .setPage(value.page())
+                .setResults(results)
+                .setTotal_pages(value.total_pages())
+                .setTotal_results(value.total_results())
+                .build();
+
+        mMoviesAdapter.replaceMovies(start, value.results());
+    }
+
     /**
      * @param movies
      */
@@ -289,8 +289,10 @@ public class MoviesActivity extends BaseActivity implements MovieGridFragment.On
                 Snackbar.make(mConstraintLayout, getString(R.string.message_movie_removed), Snackbar.LENGTH_LONG).show();
             }
 
-            // refresh data grid
-            mMovieGridFragment.loadMovies(Constants.FAVOURITES);
+            // Show the favourites, the favourites grid applies the change itself once stored
+            if (mSort != Constants.FAVOURITES) {
+                mMovieGridFragment.loadMovies(Constants.FAVOURITES);
+            }
 
             // Change the fab icon
             configFab();
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.util;
+
+import java.util.Arrays;
+
+/**
+ * A set of primitive longs, open addressing with linear probing over a power of two table.
+ * Avoids boxing every id as a {@link Long} like a {@code HashSet<Long>} would.
+ * <p>
+ * Not thread safe.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/17
+ * @since 1.3.0 2017/05/17
+ */
+public final class LongHashSet {
+    /**
+     * Marks the empty slots, 0 is stored apart since it's the free marker
+     */
+    private static final long FREE = 0L;
+
+    /**
+     * The table grows once it's this full
+     */
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] mKeys;
+    private boolean mContainsZero;
+    private int mSize;
+    private int mResizeAt;
+
+    /**
+     * Constructor
+     *
+     * @since 1.3.0 2017/05/17
+     */
+    public LongHashSet() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param expectedSize the number of values expected, avoids growing the table while
+     *                     adding them
+     * @since 1.3.0 2017/05/17
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * @param value the value to look for
+     * @return {@literal true} if the set contains the value
+     * @since 1.3.0 2017/05/17
+     */
+    public boolean contains(long value) {
+        if (value == FREE) {
+            return mContainsZero;
+        }
+
+        int mask = mKeys.length - 1;
+        for (int i = hash(value) & mask; ; i = (i + 1) & mask) {
+            long key = mKeys[i];
+            if (key == value) {
+                return true;
+            }
+            if (key == FREE) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @param value the value to add
+     * @return {@literal true} if the value was not on the set
+     * @since 1.3.0 2017/05/17
+     */
+    public boolean add(long value) {
+        if (value == FREE) {
+            if (mContainsZero) {
+                return false;
+            }
+            mContainsZero = true;
+            mSize++;
+            return true;
+        }
+
+        int mask = mKeys.length - 1;
+        int i = hash(value) & mask;
+        while (mKeys[i] != FREE) {
+            if (mKeys[i] == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        mKeys[i] = value;
+        if (++mSize >= mResizeAt) {
+            rehash(mKeys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * @param value the value to remove
+     * @return {@literal true} if the value was on the set
+     * @since 1.3.0 2017/05/17
+     */
+    public boolean remove(long value) {
+        if (value == FREE) {
+            if (!mContainsZero) {
+                return false;
+            }
+            mContainsZero = false;
+            mSize--;
+            return true;
+        }
+
+        int mask = mKeys.length - 1;
+        int i = hash(value) & mask;
+        while (mKeys[i] != value) {
+            if (mKeys[i] == FREE) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+
+        // Shift back the next keys of the run so the lookups don't stop at the hole
+        int hole = i;
+        for (int j = (hole + 1) & mask; mKeys[j] != FREE; j = (j + 1) & mask) {
+            int home = hash(mKeys[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                mKeys[hole] = mKeys[j];
+                hole = j;
+            }
+        }
+        mKeys[hole] = FREE;
+        mSize--;
+        return true;
+    }
+
+    /**
+     * @return the number of values on the set
+     * @since 1.3.0 2017/05/17
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Removes every value
+     *
+     * @since 1.3.0 2017/05/17
+     */
+    public void clear() {
+        Arrays.fill(mKeys, FREE);
+        mContainsZero = false;
+        mSize = 0;
+    }
+
+    private void allocate(int capacity) {
+        mKeys = new long[capacity];
+        mResizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] keys = mKeys;
+        allocate(capacity);
+
+        int mask = capacity - 1;
+        for (long key : keys) {
+            if (key != FREE) {
+                int i = hash(key) & mask;
+                while (mKeys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                mKeys[i] = key;
+            }
+        }
+    }
+
+    /**
+     * Spreads the sequential ids over the table, package private so the tests can build
+     * colliding values
+     */
+    static int hash(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
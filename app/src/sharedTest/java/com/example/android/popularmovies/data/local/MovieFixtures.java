@@ -0,0 +1,97 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import android.content.ContentValues;
+
+/**
+ * Synthetic movies table rows for the database and cursor tests, each id always gets the same
+ * values.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/28
+ * @since 1.3.0 2017/05/28
+ */
+public final class MovieFixtures {
+    /**
+     * The columns of {@link #row(long)}, in order. The contract arrays can't be used on the
+     * unit tests, the contract URIs need the framework
+     */
+    public static final String[] COLUMNS = {
+            DatabaseContract.MovieEntry._ID,
+            DatabaseContract.MovieEntry.COLUMN_ORIGINAL_TITLE,
+            DatabaseContract.MovieEntry.COLUMN_ORIGINAL_LANGUAGE,
+            DatabaseContract.MovieEntry.COLUMN_OVERVIEW,
+            DatabaseContract.MovieEntry.COLUMN_RELEASE_DATE,
+            DatabaseContract.MovieEntry.COLUMN_POSTER_PATH,
+            DatabaseContract.MovieEntry.COLUMN_POPULARITY,
+            DatabaseContract.MovieEntry.COLUMN_TITLE,
+            DatabaseContract.MovieEntry.COLUMN_AVERAGE_VOTE,
+            DatabaseContract.MovieEntry.COLUMN_VOTE_COUNT,
+            DatabaseContract.MovieEntry.COLUMN_BACKDROP_PATH
+    };
+
+    private MovieFixtures() {
+        // Utility class
+    }
+
+    /**
+     * @param id the movie id
+     * @return the movie row values, on the {@link #COLUMNS} order
+     * @since 1.3.0 2017/05/28
+     */
+    public static Object[] row(long id) {
+        return new Object[]{
+                id,
+                "Original title " + id,
+                "en",
+                "Overview of the movie " + id,
+                "2017-05-13",
+                "/poster" + id + ".jpg",
+                (double) (id % 100),
+                "Movie " + id,
+                (id % 100) / 10d,
+                id,
+                "/backdrop" + id + ".jpg"
+        };
+    }
+
+    /**
+     * Only on the instrumented tests, {@link ContentValues} needs the framework.
+     *
+     * @param id the movie id
+     * @return the movie row values, to insert on the movies table
+     * @since 1.3.0 2017/05/28
+     */
+    public static ContentValues movie(long id) {
+        Object[] row = row(id);
+        ContentValues values = new ContentValues(COLUMNS.length);
+
+        for (int i = 0; i < COLUMNS.length; i++) {
+            Object value = row[i];
+            if (value instanceof Long) {
+                values.put(COLUMNS[i], (Long) value);
+            } else if (value instanceof Double) {
+                values.put(COLUMNS[i], (Double) value);
+            } else {
+                values.put(COLUMNS[i], (String) value);
+            }
+        }
+
+        return values;
+    }
+}
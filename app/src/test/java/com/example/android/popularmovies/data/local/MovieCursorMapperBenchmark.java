@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.local;
+
+import com.example.android.popularmovies.data.model.Movie;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Reads 10k row cursors into movies, looking the columns up on every row (how
+ * {@code Movie.fromCursor} used to work) versus a {@link MovieCursorMapper} resolving them
+ * once per cursor.
+ * <p>
+ * The assertions only check both read the same movies. The timings are printed side by side
+ * and never fail the test: wall-clock numbers depend on the machine and on its load.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/28
+ * @since 1.3.0 2017/05/21
+ */
+public class MovieCursorMapperBenchmark {
+    private static final int ROWS = 10000;
+    private static final int WARM_UP_ROUNDS = 5;
+    private static final int ROUNDS = 20;
+
+    private static final String[] GRID_COLUMNS = {
+            DatabaseContract.MovieEntry._ID,
+            DatabaseContract.MovieEntry.COLUMN_POSTER_PATH,
+            DatabaseContract.MovieEntry.COLUMN_TITLE
+    };
+
+    private Object[][] mRows;
+
+    @Before
+    public void setUp() throws Exception {
+        mRows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            mRows[i] = MovieFixtures.row(i + 1);
+        }
+    }
+
+    @Test
+    public void mapper_readsTheSameMoviesAsPerRowLookups() throws Exception {
+        List<Movie> lookups = null;
+        List<Movie> mapped = null;
+
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            readWithLookups(new ArrayCursor(MovieFixtures.COLUMNS, mRows));
+            new MovieCursorMapper(new ArrayCursor(MovieFixtures.COLUMNS, mRows)).readAll();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            lookups = readWithLookups(new ArrayCursor(MovieFixtures.COLUMNS, mRows));
+        }
+        long lookupsNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            mapped = new MovieCursorMapper(new ArrayCursor(MovieFixtures.COLUMNS, mRows)).readAll();
+        }
+        long mapperNanos = System.nanoTime() - start;
+
+        assertEquals(ROWS, mapped.size());
+        assertEquals(lookups, mapped);
+        report("cursor mapper", mapperNanos, "per row lookups", lookupsNanos);
+    }
+
+    @Test
+    public void mapper_fillsTheColumnsMissingFromSlimProjections() throws Exception {
+        Object[][] rows = new Object[ROWS][];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Object[]{mRows[i][0], mRows[i][5], mRows[i][7]};
+        }
+
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            new MovieCursorMapper(new ArrayCursor(GRID_COLUMNS, rows)).readAll();
+            new MovieCursorMapper(new ArrayCursor(MovieFixtures.COLUMNS, mRows)).readAll();
+        }
+
+        long start = System.nanoTime();
+        List<Movie> movies = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            movies = new MovieCursorMapper(new ArrayCursor(GRID_COLUMNS, rows)).readAll();
+        }
+        long gridNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            new MovieCursorMapper(new ArrayCursor(MovieFixtures.COLUMNS, mRows)).readAll();
+        }
+        long allColumnsNanos = System.nanoTime() - start;
+
+        assertEquals(ROWS, movies.size());
+        Movie first = movies.get(0);
+        assertEquals(Long.valueOf(1), first.id());
+        assertEquals("Movie 1", first.title());
+        assertEquals("/poster1.jpg", first.poster_path());
+        assertEquals("", first.overview());
+        assertEquals(Integer.valueOf(0), first.vote_count());
+
+        // Filling the missing columns compared with reading them
+        report("grid columns", gridNanos, "every column", allColumnsNanos);
+    }
+
+    /**
+     * Reads the rows looking every column up on each row, like {@code Movie.fromCursor} did
+     */
+    private static List<Movie> readWithLookups(ArrayCursor cursor) {
+        List<Movie> movies = new ArrayList<>(cursor.getCount());
+        while (cursor.moveToNext()) {
+            movies.add(Movie.builder()
+                    .setId(cursor.getLong(cursor.getColumnIndex(DatabaseContract.MovieEntry._ID)))
+                    .setTitle(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_TITLE)))
+                    .setOriginal_title(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_ORIGINAL_TITLE)))
+                    .setOriginal_language(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_ORIGINAL_LANGUAGE)))
+                    .setOverview(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_OVERVIEW)))
+                    .setRelease_date(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_RELEASE_DATE)))
+                    .setPoster_path(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_POSTER_PATH)))
+                    .setPopularity(cursor.getFloat(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_POPULARITY)))
+                    .setVote_average(cursor.getFloat(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_AVERAGE_VOTE)))
+                    .setBackdrop_path(cursor.getString(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_BACKDROP_PATH)))
+                    .setVote_count(cursor.getInt(cursor.getColumnIndex(DatabaseContract.MovieEntry.COLUMN_VOTE_COUNT)))
+                    .build());
+        }
+        return movies;
+    }
+
+    /**
+     * Prints a read next to the compared one
+     */
+    private static void report(String name, long elapsedNanos, String comparedName,
+                               long comparedNanos) {
+        long rows = (long) ROWS * ROUNDS;
+        System.out.println(String.format(Locale.US, "%s: %.0f ns/row, %s: %.0f ns/row (%.2fx)",
+                name, elapsedNanos / (double) rows, comparedName, comparedNanos / (double) rows,
+                elapsedNanos / (double) comparedNanos));
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates TMDb shaped JSON bodies.
+ * <p>
+ * Nothing is stored, every body is derived from the fixtures seed and the requested page or
+ * movie id, so the same request always gets the same body and the fixtures scale to any
+ * number of pages.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/12
+ * @since 1.3.0 2017/05/12
+ */
+class MovieDbFixtures {
+    /**
+     * Results per page, like TMDb
+     */
+    static final int PAGE_SIZE = 20;
+
+    private final long mSeed;
+    private final int mTotalPages;
+
+    /**
+     * Constructor
+     *
+     * @param seed       the fixtures seed
+     * @param totalPages the pages of each movie list
+     * @since 1.3.0 2017/05/12
+     */
+    MovieDbFixtures(long seed, int totalPages) {
+        this.mSeed = seed;
+        this.mTotalPages = totalPages;
+    }
+
+    /**
+     * Gets the number of pages of each movie list.
+     *
+     * @return the total pages
+     * @since 1.3.0 2017/05/12
+     */
+    int getTotalPages() {
+        return mTotalPages;
+    }
+
+    /**
+     * Gets the id of a movie on a list page, unique across the lists.
+     *
+     * @param list     the list index, 0 for popular and 1 for top rated
+     * @param page     the page, starting at 1
+     * @param position the position on the page
+     * @return the movie id
+     * @since 1.3.0 2017/05/12
+     */
+    static long movieId(int list, int page, int position) {
+        return ((long) list * Integer.MAX_VALUE) + ((long) page - 1) * PAGE_SIZE + position + 1;
+    }
+
+    /**
+     * Generates a movie list page.
+     *
+     * @param list the list index, 0 for popular and 1 for top rated
+     * @param page the page, starting at 1
+     * @return the page body
+     * @since 1.3.0 2017/05/12
+     */
+    String moviePage(int list, int page) {
+        JsonArray results = new JsonArray();
+        for (int position = 0; position < PAGE_SIZE; position++) {
+            results.add(movie(movieId(list, page, position)));
+        }
+
+        JsonObject body = new JsonObject();
+        body.addProperty("page", page);
+        body.add("results", results);
+        body.addProperty("total_results", mTotalPages * PAGE_SIZE);
+        body.addProperty("total_pages", mTotalPages);
+        return body.toString();
+    }
+
+    /**
+     * Generates the reviews of a movie, between 0 and 5.
+     *
+     * @param movieId the movie id
+     * @return the reviews body
+     * @since 1.3.0 2017/05/12
+     */
+    String reviews(long movieId) {
+        Random random = random(movieId);
+        int count = random.nextInt(6);
+
+        JsonArray results = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            String id = String.format(Locale.US, "%d-review-%d", movieId, i);
+
+            JsonObject review = new JsonObject();
+            review.addProperty("id", id);
+            review.addProperty("author", "Author " + random.nextInt(1000));
+            review.addProperty("content", paragraph(random, 40 + random.nextInt(200)));
+            review.addProperty("url", "https://www.themoviedb.org/review/" + id);
+            results.add(review);
+        }
+
+        JsonObject body = new JsonObject();
+        body.addProperty("id", movieId);
+        body.addProperty("page", 1);
+        body.add("results", results);
+        body.addProperty("total_pages", 1);
+        body.addProperty("total_results", count);
+        return body.toString();
+    }
+
+    /**
+     * Generates the videos of a movie, between 1 and 4.
+     *
+     * @param movieId the movie id
+     * @return the videos body
+     * @since 1.3.0 2017/05/12
+     */
+    String videos(long movieId) {
+        Random random = random(movieId);
+        int count = 1 + random.nextInt(4);
+
+        JsonArray results = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            JsonObject video = new JsonObject();
+            video.addProperty("id", String.format(Locale.US, "%d-video-%d", movieId, i));
+            video.addProperty("iso_639_1", "en");
+            video.addProperty("iso_3166_1", "US");
+            video.addProperty("key", Long.toHexString(random.nextLong()));
+            video.addProperty("name", "Trailer " + (i + 1));
+            video.addProperty("site", "YouTube");
+            video.addProperty("size", 1080);
+            video.addProperty("type", "Trailer");
+            results.add(video);
+        }
+
+        JsonObject body = new JsonObject();
+        body.addProperty("id", movieId);
+        body.add("results", results);
+        return body.toString();
+    }
+
+    /**
+     * Generates the list fields of a movie.
+     *
+     * @param movieId the movie id
+     * @return the movie
+     * @since 1.3.0 2017/05/12
+     */
+    private JsonObject movie(long movieId) {
+        Random random = random(movieId);
+        String title = "Movie " + movieId;
+
+        JsonObject movie = new JsonObject();
+        movie.addProperty("id", movieId);
+        movie.addProperty("title", title);
+        movie.addProperty("original_title", title);
+        movie.addProperty("original_language", "en");
+        movie.addProperty("overview", paragraph(random, 20 + random.nextInt(60)));
+        movie.addProperty("release_date", String.format(Locale.US, "%d-%02d-%02d",
+                1950 + random.nextInt(67), 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        movie.addProperty("poster_path", "/" + Long.toHexString(random.nextLong()) + ".jpg");
+        movie.addProperty("backdrop_path", "/" + Long.toHexString(random.nextLong()) + ".jpg");
+        movie.addProperty("popularity", random.nextFloat() * 100);
+        movie.addProperty("vote_count", random.nextInt(20000));
+        movie.addProperty("vote_average", Math.round(random.nextFloat() * 100) / 10f);
+        return movie;
+    }
+
+    /**
+     * Generates filler text.
+     *
+     * @param random the random source
+     * @param words  the number of words
+     * @return the text
+     * @since 1.3.0 2017/05/12
+     */
+    private static String paragraph(Random random, int words) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            int length = 2 + random.nextInt(8);
+            for (int c = 0; c < length; c++) {
+                builder.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Gets the random source of a movie, so its fields are the same on every list.
+     *
+     * @param movieId the movie id
+     * @return the random source
+     * @since 1.3.0 2017/05/12
+     */
+    private Random random(long movieId) {
+        return new Random(mSeed * 31 + movieId);
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import android.support.annotation.Nullable;
+
+import com.example.android.popularmovies.data.MovieDbApiService;
+import com.example.android.popularmovies.data.model.MovieCollection;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import okhttp3.Cache;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.RecordedRequest;
+import retrofit2.Response;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Exercises the network path against the {@link MovieDbStandInServer}: throughput and tail
+ * latency, the disk cache, the retries and the conditional revalidation.
+ * <p>
+ * The measurements are only checked against the bounds the stand-in sets, its latency and
+ * bandwidth, so the test doesn't depend on the speed of the machine.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/28
+ * @since 1.3.0 2017/05/12
+ */
+public class MovieDbLoadTest {
+    private static final long SEED = 42;
+    private static final int CONCURRENCY = 16;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private MovieDbStandInServer mServer;
+
+    @Before
+    public void setUp() throws Exception {
+        mServer = new MovieDbStandInServer(SEED);
+        mServer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mServer.close();
+    }
+
+    @Test
+    public void popularPages_throughputAndTailLatency() throws Exception {
+        final int pages = 2000;
+        final long latencyMillis = 5;
+        mServer.totalPages(pages).latency(latencyMillis, 20);
+
+        final MovieDbApiService service = newService(newClient(null));
+
+        long start = System.nanoTime();
+        List<Long> latencies = Observable.range(1, pages)
+                .flatMap(new Function<Integer, ObservableSource<Long>>() {
+                    @Override
+                    public ObservableSource<Long> apply(Integer page) throws Exception {
+                        return timed(service.getPopularMovies(page, null, null, null))
+                                .subscribeOn(Schedulers.io());
+                    }
+                }, CONCURRENCY)
+                .toList()
+                .blockingGet();
+        long elapsedNanos = System.nanoTime() - start;
+
+        assertEquals(pages, latencies.size());
+        assertEquals(pages, mServer.getServedCount());
+        assertLatencies(latencies, elapsedNanos, latencyMillis);
+    }
+
+    @Test
+    public void repeatedPages_areServedFromTheDiskCache() throws Exception {
+        final int pages = 50;
+        Cache cache = new Cache(mTemporaryFolder.newFolder("http"), 10 * 1024 * 1024);
+        MovieDbApiService service = newService(newClient(cache));
+
+        for (int round = 0; round < 2; round++) {
+            for (int page = 1; page <= pages; page++) {
+                Response<MovieCollection> response =
+                        service.getTopRatedMovies(page, null, null, null).blockingFirst();
+                assertTrue(response.isSuccessful());
+                assertEquals(page, (int) response.body().page());
+            }
+        }
+
+        assertEquals(pages, mServer.getRequestCount());
+        assertEquals(pages, cache.hitCount());
+    }
+
+    @Test
+    public void transientErrors_areRetried() throws Exception {
+        final int pages = 100;
+        mServer.totalPages(pages).errors(0.3, HttpURLConnection.HTTP_UNAVAILABLE);
+
+        final MovieDbApiService service = newService(newClient(null));
+        final Resilience resilience = new Resilience(Integer.MAX_VALUE, 0, Schedulers.io());
+        final ResiliencePolicy policy = ResiliencePolicy.builder()
+                .setMaxRetries(10)
+                .setInitialBackoffMillis(1)
+                .setMaxBackoffMillis(10)
+                .build();
+
+        List<Response<MovieCollection>> responses = Observable.range(1, pages)
+                .concatMap(new Function<Integer, ObservableSource<Response<MovieCollection>>>() {
+                    @Override
+                    public ObservableSource<Response<MovieCollection>> apply(Integer page) throws Exception {
+                        return service.getPopularMovies(page, null, null, null)
+                                .compose(ConditionalCache.<MovieCollection>throwOnError())
+                                .compose(resilience.<Response<MovieCollection>>forEndpoint(mServer.host(), policy));
+                    }
+                })
+                .toList()
+                .blockingGet();
+
+        assertEquals(pages, responses.size());
+        assertTrue(mServer.getErrorCount() > 0);
+        assertEquals(pages + mServer.getErrorCount(), mServer.getRequestCount());
+        // Every attempt fails with the same odds, retries included
+        double errorRate = mServer.getErrorCount() / (double) mServer.getRequestCount();
+        assertTrue("error rate " + errorRate, errorRate > 0.15 && errorRate < 0.45);
+    }
+
+    @Test
+    public void notModified_reusesTheParsedObject() throws Exception {
+        final MovieDbApiService service = newService(newClient(null));
+        ConditionalCache conditionalCache = new ConditionalCache(16);
+        ConditionalCache.ConditionalRequest<MovieCollection> request =
+                new ConditionalCache.ConditionalRequest<MovieCollection>() {
+                    @Override
+                    public Observable<Response<MovieCollection>> execute(@Nullable String eTag,
+                                                                         @Nullable String lastModified) {
+                        return service.getPopularMovies(1, null, eTag, lastModified);
+                    }
+                };
+
+        // The stand-in sends no max-age, so every get revalidates
+        MovieCollection first = conditionalCache.get("popular", request).blockingFirst();
+        MovieCollection second = conditionalCache.get("popular", request).blockingFirst();
+
+        assertSame(first, second);
+        assertEquals(1, conditionalCache.getNotModifiedCount());
+        assertEquals(1, mServer.getNotModifiedCount());
+
+        RecordedRequest plain = mServer.takeRequest();
+        RecordedRequest conditional = mServer.takeRequest();
+        assertNull(plain.getHeader(MovieDbApiService.HEADER_IF_NONE_MATCH));
+        assertNotNull(conditional.getHeader(MovieDbApiService.HEADER_IF_NONE_MATCH));
+    }
+
+    @Test
+    public void bandwidthLimit_slowsTheTransfer() throws Exception {
+        final long bytesPerSecond = 32 * 1024;
+        mServer.bandwidth(bytesPerSecond);
+
+        MovieDbApiService service = newService(newClient(null));
+
+        long start = System.nanoTime();
+        Response<MovieCollection> response = service.getPopularMovies(1, null, null, null).blockingFirst();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(response.isSuccessful());
+
+        // The stand-in sends a tenth of the bandwidth every 100 ms, the first chunk right away
+        long contentLength = Long.parseLong(response.headers().get("Content-Length"));
+        long chunkBytes = bytesPerSecond / 10;
+        long minMillis = (contentLength - 1) / chunkBytes * 100;
+        // A page is a few KB, at 32 KB/s it can't arrive in the first 100 ms chunk
+        assertTrue(minMillis >= 100);
+        assertTrue(elapsedMillis + " ms, expected at least " + minMillis, elapsedMillis >= minMillis);
+    }
+
+    /**
+     * Creates a client without the application interceptors.
+     *
+     * @param cache the disk cache, or {@literal null}
+     * @return the client
+     */
+    private OkHttpClient newClient(@Nullable Cache cache) {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(CONCURRENCY);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .readTimeout(30, TimeUnit.SECONDS);
+
+        if (cache != null) {
+            builder.cache(cache).addNetworkInterceptor(new CacheControlInterceptor(mServer.host()));
+        }
+
+        return builder.build();
+    }
+
+    private MovieDbApiService newService(OkHttpClient client) {
+        return MovieDbApiService.Creator.newMovieDbApiService(client, mServer.baseUrl());
+    }
+
+    /**
+     * Measures the time between the subscription and the response.
+     *
+     * @param request the request
+     * @return an Observable that emits the request latency in nanoseconds
+     */
+    private static <T> Observable<Long> timed(final Observable<Response<T>> request) {
+        return Observable.defer(new Callable<ObservableSource<Long>>() {
+            @Override
+            public ObservableSource<Long> call() throws Exception {
+                final long start = System.nanoTime();
+                return request.map(new Function<Response<T>, Long>() {
+                    @Override
+                    public Long apply(Response<T> response) throws Exception {
+                        if (!response.isSuccessful()) {
+                            throw new IllegalStateException("Unexpected status " + response.code());
+                        }
+                        return System.nanoTime() - start;
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Checks the latencies and the throughput against the stand-in latency, no request can be
+     * faster than it and no more than {@link #CONCURRENCY} run at once.
+     *
+     * @param latencies     the request latencies, in nanoseconds
+     * @param elapsedNanos  the time to run every request
+     * @param latencyMillis the stand-in fixed latency
+     */
+    private static void assertLatencies(List<Long> latencies, long elapsedNanos, long latencyMillis) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+
+        long minNanos = TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        long p50 = percentile(sorted, 0.50);
+        long p99 = percentile(sorted, 0.99);
+        long max = sorted.get(sorted.size() - 1);
+
+        assertTrue("min " + sorted.get(0) + " ns", sorted.get(0) >= minNanos);
+        assertTrue("p50 " + p50 + " ns, p99 " + p99 + " ns", p50 <= p99);
+        assertTrue("p99 " + p99 + " ns, max " + max + " ns", p99 <= max);
+        assertTrue("max " + max + " ns, elapsed " + elapsedNanos + " ns", max <= elapsedNanos);
+
+        long minElapsedNanos = sorted.size() * minNanos / CONCURRENCY;
+        assertTrue(String.format(Locale.US, "%d requests in %d ns, expected at least %d ns",
+                sorted.size(), elapsedNanos, minElapsedNanos), elapsedNanos >= minElapsedNanos);
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.data.remote;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Local stand-in for the TMDb movie API.
+ * <p>
+ * Serves the {@code popular}, {@code top_rated}, {@code {id}/videos} and {@code {id}/reviews}
+ * routes under {@code /3/movie/} from {@link MovieDbFixtures}, answers the conditional requests
+ * with a 304 and can inject latency, errors and a bandwidth limit. Every random decision comes
+ * from the seed, so a sequential run is reproducible.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/12
+ * @since 1.3.0 2017/05/12
+ */
+class MovieDbStandInServer implements Closeable {
+    /**
+     * The API path, like the TMDb one
+     */
+    static final String BASE_PATH = "/3/movie/";
+
+    private final MockWebServer mServer = new MockWebServer();
+    private final AtomicInteger mServedCount = new AtomicInteger();
+    private final AtomicInteger mErrorCount = new AtomicInteger();
+    private final AtomicInteger mNotModifiedCount = new AtomicInteger();
+
+    private MovieDbFixtures mFixtures;
+    private Random mRandom;
+    private long mLatencyMillis;
+    private long mLatencyJitterMillis;
+    private double mErrorRate;
+    private int mErrorCode = HttpURLConnection.HTTP_UNAVAILABLE;
+    private long mBytesPerSecond;
+
+    /**
+     * Constructor, 1000 pages per list and no faults
+     *
+     * @param seed the fixtures and faults seed
+     * @since 1.3.0 2017/05/12
+     */
+    MovieDbStandInServer(long seed) {
+        this.mFixtures = new MovieDbFixtures(seed, 1000);
+        this.mRandom = new Random(seed);
+        mServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                return serve(request);
+            }
+        });
+    }
+
+    /**
+     * Sets the pages of each movie list.
+     *
+     * @param totalPages the total pages
+     * @return this server
+     * @since 1.3.0 2017/05/12
+     */
+    synchronized MovieDbStandInServer totalPages(int totalPages) {
+        mFixtures = new MovieDbFixtures(mRandom.nextLong(), totalPages);
+        return this;
+    }
+
+    /**
+     * Delays every response.
+     *
+     * @param latencyMillis the fixed delay
+     * @param jitterMillis  the max random delay added to the fixed one
+     * @return this server
+     * @since 1.3.0 2017/05/12
+     */
+    synchronized MovieDbStandInServer latency(long latencyMillis, long jitterMillis) {
+        mLatencyMillis = latencyMillis;
+        mLatencyJitterMillis = jitterMillis;
+        return this;
+    }
+
+    /**
+     * Fails a share of the requests.
+     *
+     * @param errorRate the share of failed requests, between 0 and 1
+     * @param errorCode the status code of the failed requests, a 429 comes with a Retry-After
+     * @return this server
+     * @since 1.3.0 2017/05/12
+     */
+    synchronized MovieDbStandInServer errors(double errorRate, int errorCode) {
+        mErrorRate = errorRate;
+        mErrorCode = errorCode;
+        return this;
+    }
+
+    /**
+     * Limits the body transfer rate of every response.
+     *
+     * @param bytesPerSecond the transfer rate, 0 for no limit
+     * @return this server
+     * @since 1.3.0 2017/05/12
+     */
+    synchronized MovieDbStandInServer bandwidth(long bytesPerSecond) {
+        mBytesPerSecond = bytesPerSecond;
+        return this;
+    }
+
+    /**
+     * Starts the server on a free local port.
+     *
+     * @throws IOException if the server can't start
+     * @since 1.3.0 2017/05/12
+     */
+    void start() throws IOException {
+        mServer.start();
+    }
+
+    /**
+     * Gets the base URL to give to the Retrofit service.
+     *
+     * @return the API base URL
+     * @since 1.3.0 2017/05/12
+     */
+    String baseUrl() {
+        return mServer.url(BASE_PATH).toString();
+    }
+
+    /**
+     * Gets the server host, to set up the interceptors that only act on the API host.
+     *
+     * @return the host
+     * @since 1.3.0 2017/05/12
+     */
+    String host() {
+        return mServer.url(BASE_PATH).host();
+    }
+
+    /**
+     * Gets the requests that reached the server, including the failed ones.
+     *
+     * @return the request count
+     * @since 1.3.0 2017/05/12
+     */
+    int getRequestCount() {
+        return mServer.getRequestCount();
+    }
+
+    int getServedCount() {
+        return mServedCount.get();
+    }
+
+    int getErrorCount() {
+        return mErrorCount.get();
+    }
+
+    int getNotModifiedCount() {
+        return mNotModifiedCount.get();
+    }
+
+    /**
+     * Gets the next recorded request.
+     *
+     * @return the request
+     * @throws InterruptedException if interrupted while waiting
+     * @since 1.3.0 2017/05/12
+     */
+    RecordedRequest takeRequest() throws InterruptedException {
+        return mServer.takeRequest();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mServer.shutdown();
+    }
+
+    /**
+     * Answers a request.
+     *
+     * @param request the request
+     * @return the response
+     * @throws InterruptedException if interrupted while waiting the latency
+     * @since 1.3.0 2017/05/12
+     */
+    private MockResponse serve(RecordedRequest request) throws InterruptedException {
+        long latency;
+        boolean fail;
+        MovieDbFixtures fixtures;
+        long bytesPerSecond;
+        int errorCode;
+
+        synchronized (this) {
+            latency = mLatencyMillis + (mLatencyJitterMillis > 0
+                    ? (long) (mRandom.nextDouble() * mLatencyJitterMillis) : 0);
+            fail = mErrorRate > 0 && mRandom.nextDouble() < mErrorRate;
+            fixtures = mFixtures;
+            bytesPerSecond = mBytesPerSecond;
+            errorCode = mErrorCode;
+        }
+
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+
+        if (fail) {
+            mErrorCount.incrementAndGet();
+            MockResponse error = new MockResponse().setResponseCode(errorCode);
+            if (errorCode == 429) {
+                error.setHeader("Retry-After", "1");
+            }
+            return error;
+        }
+
+        String body = route(fixtures, request);
+        if (body == null) {
+            return new MockResponse().setResponseCode(HttpURLConnection.HTTP_NOT_FOUND);
+        }
+
+        String eTag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+        if (eTag.equals(request.getHeader("If-None-Match"))) {
+            mNotModifiedCount.incrementAndGet();
+            return new MockResponse()
+                    .setResponseCode(HttpURLConnection.HTTP_NOT_MODIFIED)
+                    .setHeader("ETag", eTag);
+        }
+
+        MockResponse response = new MockResponse()
+                .setHeader("Content-Type", "application/json;charset=utf-8")
+                .setHeader("ETag", eTag)
+                .setBody(body);
+
+        if (bytesPerSecond > 0) {
+            // Send a tenth of the rate every 100 ms
+            response.throttleBody(Math.max(1, bytesPerSecond / 10), 100, TimeUnit.MILLISECONDS);
+        }
+
+        mServedCount.incrementAndGet();
+        return response;
+    }
+
+    /**
+     * Finds the fixture for a request.
+     *
+     * @param fixtures the fixtures
+     * @param request  the request
+     * @return the body, {@literal null} for an unknown route
+     * @since 1.3.0 2017/05/12
+     */
+    private static String route(MovieDbFixtures fixtures, RecordedRequest request) {
+        HttpUrl url = HttpUrl.parse("http://localhost" + request.getPath());
+        if (url == null || !"GET".equals(request.getMethod()) || !url.encodedPath().startsWith(BASE_PATH)) {
+            return null;
+        }
+
+        // Path segments after /3/movie/
+        List<String> segments = url.pathSegments().subList(2, url.pathSize());
+
+        if (segments.size() == 1) {
+            int list = "popular".equals(segments.get(0)) ? 0
+                    : "top_rated".equals(segments.get(0)) ? 1 : -1;
+            int page = parsePage(url.queryParameter("page"));
+
+            if (list < 0 || page < 1 || page > fixtures.getTotalPages()) {
+                return null;
+            }
+            return fixtures.moviePage(list, page);
+        }
+
+        if (segments.size() == 2 && segments.get(0).matches("\\d+")) {
+            long movieId = Long.parseLong(segments.get(0));
+
+            if ("videos".equals(segments.get(1))) {
+                return fixtures.videos(movieId);
+            }
+            if ("reviews".equals(segments.get(1))) {
+                return fixtures.reviews(movieId);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Parses the page query parameter, TMDb defaults to the first page.
+     *
+     * @param page the parameter value
+     * @return the page, or -1 when it's not a number
+     * @since 1.3.0 2017/05/12
+     */
+    private static int parsePage(String page) {
+        if (page == null) {
+            return 1;
+        }
+        try {
+            return Integer.parseInt(page);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017 Luis Alberto Gómez Rodríguez
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.example.android.popularmovies.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the {@link LongHashSet} probing: the runs wrapping around the end of the table, the
+ * colliding values, the growth and the removals from the middle of a run.
+ *
+ * @author Luis Alberto Gómez Rodríguez (lagomez40@gmail.com)
+ * @version 1.3.0 2017/05/28
+ * @since 1.3.0 2017/05/28
+ */
+public class LongHashSetTest {
+    /**
+     * The table size of a new set, it grows past half of it
+     */
+    private static final int CAPACITY = 16;
+
+    @Test
+    public void add_thenContains() throws Exception {
+        LongHashSet set = new LongHashSet();
+
+        assertTrue(set.add(42L));
+        assertFalse(set.add(42L));
+        assertTrue(set.contains(42L));
+        assertFalse(set.contains(43L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void zero_isStoredApart() throws Exception {
+        LongHashSet set = new LongHashSet();
+
+        assertFalse(set.contains(0L));
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertTrue(set.contains(0L));
+        assertEquals(1, set.size());
+
+        assertTrue(set.remove(0L));
+        assertFalse(set.remove(0L));
+        assertFalse(set.contains(0L));
+        assertEquals(0, set.size());
+    }
+
+    @Test
+    public void collisions_allStayReachable() throws Exception {
+        long[] values = valuesWithSlot(3, 4);
+        LongHashSet set = new LongHashSet();
+
+        for (long value : values) {
+            assertTrue(set.add(value));
+        }
+
+        for (long value : values) {
+            assertTrue(set.contains(value));
+        }
+        assertEquals(values.length, set.size());
+    }
+
+    @Test
+    public void run_wrapsAroundTheTableEnd() throws Exception {
+        // The run starts on the last slot and continues on the first ones
+        long[] values = valuesWithSlot(CAPACITY - 1, 3);
+        long onFirstSlot = valuesWithSlot(0, 1)[0];
+        LongHashSet set = new LongHashSet();
+
+        for (long value : values) {
+            set.add(value);
+        }
+        set.add(onFirstSlot);
+
+        for (long value : values) {
+            assertTrue(set.contains(value));
+        }
+        assertTrue(set.contains(onFirstSlot));
+
+        // Removing the head of the run shifts back the keys past the table end
+        assertTrue(set.remove(values[0]));
+        assertFalse(set.contains(values[0]));
+        assertTrue(set.contains(values[1]));
+        assertTrue(set.contains(values[2]));
+        assertTrue(set.contains(onFirstSlot));
+        assertEquals(3, set.size());
+    }
+
+    @Test
+    public void remove_fromTheMiddleOfARun() throws Exception {
+        long[] values = valuesWithSlot(5, 3);
+        // Its own slot is taken by the run, so it lands after it
+        long displaced = valuesWithSlot(6, 1)[0];
+        LongHashSet set = new LongHashSet();
+
+        for (long value : values) {
+            set.add(value);
+        }
+        set.add(displaced);
+
+        assertTrue(set.remove(values[1]));
+        assertFalse(set.remove(values[1]));
+
+        assertFalse(set.contains(values[1]));
+        assertTrue(set.contains(values[0]));
+        assertTrue(set.contains(values[2]));
+        assertTrue(set.contains(displaced));
+        assertEquals(3, set.size());
+
+        // The freed slot is reused
+        assertTrue(set.add(values[1]));
+        assertTrue(set.contains(values[1]));
+        assertEquals(4, set.size());
+    }
+
+    @Test
+    public void remove_missingValue() throws Exception {
+        LongHashSet set = new LongHashSet();
+        long[] values = valuesWithSlot(7, 2);
+
+        set.add(values[0]);
+
+        // Probes past the colliding key and stops at the free slot
+        assertFalse(set.remove(values[1]));
+        assertTrue(set.contains(values[0]));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void resize_keepsEveryValue() throws Exception {
+        LongHashSet set = new LongHashSet();
+
+        for (long id = 1; id <= 10000; id++) {
+            assertTrue(set.add(id));
+        }
+        assertEquals(10000, set.size());
+
+        for (long id = 1; id <= 10000; id++) {
+            assertTrue(set.contains(id));
+        }
+        assertFalse(set.contains(10001L));
+
+        for (long id = 1; id <= 10000; id += 2) {
+            assertTrue(set.remove(id));
+        }
+        assertEquals(5000, set.size());
+
+        for (long id = 1; id <= 10000; id++) {
+            assertEquals(id % 2 == 0, set.contains(id));
+        }
+    }
+
+    @Test
+    public void clear_removesEveryValue() throws Exception {
+        LongHashSet set = new LongHashSet();
+        set.add(0L);
+        set.add(1L);
+        set.add(2L);
+
+        set.clear();
+
+        assertEquals(0, set.size());
+        assertFalse(set.contains(0L));
+        assertFalse(set.contains(1L));
+        assertFalse(set.contains(2L));
+    }
+
+    @Test
+    public void randomOperations_matchAHashSet() throws Exception {
+        // Few distinct values so the adds and removes hit the same runs over and over
+        Random random = new Random(17);
+        Set<Long> expected = new HashSet<>();
+        LongHashSet set = new LongHashSet();
+
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextInt(64);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(value), set.add(value));
+            } else {
+                assertEquals(expected.remove(value), set.remove(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+
+        for (long value = 0; value < 64; value++) {
+            assertEquals(expected.contains(value), set.contains(value));
+        }
+    }
+
+    /**
+     * Finds values whose home is the given slot of a new set.
+     *
+     * @param slot  the home slot
+     * @param count the number of values
+     * @return the values, in increasing order
+     */
+    private static long[] valuesWithSlot(int slot, int count) {
+        long[] values = new long[count];
+        int found = 0;
+
+        for (long value = 1; found < count; value++) {
+            if ((LongHashSet.hash(value) & (CAPACITY - 1)) == slot) {
+                values[found++] = value;
+            }
+        }
+
+        return values;
+    }
+}